@@ -0,0 +1,179 @@
+import java.util.Arrays;
+
+/**
+ * 仿射跳跃内核
+ *
+ * 没有移动阻断时，每个tick对(速度, bm)都是一个仿射变换：
+ * - v' = v * 摩擦 + 速度增量
+ * - bm' = bm + v'
+ *
+ * 因此一整个助跑跳跃（起跳tick + 滞空ticks）也是一个仿射变换：
+ * - v' = a * v + b
+ * - bm' = bm + c * v + d
+ *
+ * 这个类按角度配置和滞空时间预计算单个助跑跳跃的系数(a, b, c, d)，
+ * 再用反复平方的方法组合出n个连跳，计算量从O(总tick数)降为O(log 连跳次数)。
+ *
+ * 缓存：
+ * - powers[airtime][k]：单个助跑跳跃的2^k次组合
+ * - airPhases[airtime]：不含起跳tick的滞空部分（第一个连跳使用）
+ * - sin/cos改变时（setAngleType）自动清空缓存
+ *
+ * 注意：
+ * - 仿射组合改变了浮点运算的顺序，结果与逐tick计算只在最后几位上有差别
+ * - 所以默认不开启，需要PhysicsCalculator.setUseAffineKernel(true)（用于大范围扫描等场景）
+ */
+public class AffineJumpKernel {
+    private final AngleConfig angleConfig;
+
+    // 缓存对应的角度
+    private float cachedSin;
+    private float cachedCos;
+
+    // 按滞空时间缓存的系数
+    private Affine[] airPhases = new Affine[0];
+    private Affine[][] powers = new Affine[0][];
+
+    public AffineJumpKernel(AngleConfig angleConfig) {
+        this.angleConfig = angleConfig;
+        this.cachedSin = angleConfig.sin;
+        this.cachedCos = angleConfig.cos;
+    }
+
+    /**
+     * 仿射变换 v' = a * v + b, bm' = bm + c * v + d
+     */
+    public static class Affine {
+        public static final Affine IDENTITY = new Affine(1, 0, 0, 0);
+
+        public final double a;
+        public final double b;
+        public final double c;
+        public final double d;
+
+        public Affine(double a, double b, double c, double d) {
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.d = d;
+        }
+
+        /**
+         * 单个tick：v' = v * friction + boost, bm' = bm + v'
+         */
+        public static Affine tick(double friction, double boost) {
+            return new Affine(friction, boost, friction, boost);
+        }
+
+        /**
+         * 先执行this，再执行next
+         */
+        public Affine then(Affine next) {
+            return new Affine(next.a * a,
+                              next.a * b + next.b,
+                              c + next.c * a,
+                              d + next.c * b + next.d);
+        }
+
+        public double applyVelocity(double velocity) {
+            return a * velocity + b;
+        }
+
+        public double applyBM(double velocity, double bm) {
+            return bm + c * velocity + d;
+        }
+    }
+
+    /**
+     * 第一个连跳（不含起跳tick）加上后续count-1个完整连跳
+     * 对应calculateJumpBM和calculateRunJump中起跳tick之后的循环
+     */
+    public Affine buildUp(int airtime, int count) {
+        if (count <= 0) {
+            return Affine.IDENTITY;
+        }
+        return airPhase(airtime).then(jumps(airtime, count - 1));
+    }
+
+    /**
+     * count个完整连跳（普通跳跃tick + 滞空ticks）
+     * 对应calculateBackToFrontUnit中的循环
+     */
+    public synchronized Affine jumps(int airtime, int count) {
+        ensureCapacity(airtime);
+
+        Affine result = Affine.IDENTITY;
+        int k = 0;
+        while (count > 0) {
+            if ((count & 1) != 0) {
+                result = result.then(power(airtime, k));
+            }
+            count >>>= 1;
+            k++;
+        }
+        return result;
+    }
+
+    /**
+     * 单个助跑跳跃的2^k次组合
+     */
+    private Affine power(int airtime, int k) {
+        Affine[] table = powers[airtime];
+        if (table == null) {
+            table = new Affine[31];
+            table[0] = jumpTick().then(airPhase(airtime));
+            powers[airtime] = table;
+        }
+        for (int i = 1; i <= k; i++) {
+            if (table[i] == null) {
+                table[i] = table[i - 1].then(table[i - 1]);
+            }
+        }
+        return table[k];
+    }
+
+    /**
+     * 滞空部分：第一个airtime使用地面摩擦，后续使用空中摩擦
+     */
+    private synchronized Affine airPhase(int airtime) {
+        ensureCapacity(airtime);
+        if (airPhases[airtime] == null) {
+            double air = angleConfig.movement.air;
+            Affine phase = Affine.IDENTITY;
+            if (airtime >= 2) {
+                phase = phase.then(Affine.tick(MinecraftPhysicsConstants.FRICTION_GROUND, air));
+            }
+            Affine airTick = Affine.tick(MinecraftPhysicsConstants.FRICTION_AIR, air);
+            for (int l = 0; l < airtime - 2; l++) {
+                phase = phase.then(airTick);
+            }
+            airPhases[airtime] = phase;
+        }
+        return airPhases[airtime];
+    }
+
+    /**
+     * 普通跳跃tick（落地后起跳）
+     */
+    private static Affine jumpTick() {
+        return Affine.tick(MinecraftPhysicsConstants.FRICTION_AIR,
+                           (double)MinecraftPhysicsConstants.JUMP_BOOST + MinecraftPhysicsConstants.GROUND_MOVEMENT);
+    }
+
+    /**
+     * 扩容缓存，角度改变时清空
+     */
+    private void ensureCapacity(int airtime) {
+        if (cachedSin != angleConfig.sin || cachedCos != angleConfig.cos) {
+            cachedSin = angleConfig.sin;
+            cachedCos = angleConfig.cos;
+            airPhases = new Affine[0];
+            powers = new Affine[0][];
+        }
+        if (airtime >= airPhases.length) {
+            int size = Math.max(airtime + 1, airPhases.length * 2);
+            airPhases = Arrays.copyOf(airPhases, size);
+            powers = Arrays.copyOf(powers, size);
+        }
+    }
+}
@@ -23,16 +23,34 @@
  * 2. 计算前置速度：从-1和1开始跑1t后的速度
  * 3. 初始估计runEqualV0：使用插值公式
  * 4. 迭代20次精确计算：使跑1t后速度不变
+ * 
+ * 移动参数（MovementProfile）：
+ * - 每个空中tick都要用的 0.018384775 * sin + 0.018384775 * cos 等值在设置角度时算一次，
+ *   保存在不可变的movement里，计算时直接读取（float运算，舍入与每次现算完全相同）
+ * - 直接修改sin/cos后需要重新调用setAngleType（或updateMovement）
  */
 public class AngleConfig {
     public float sin;
     public float cos;
     public double runEqualV0;  // 跑1t后速度不变的临界速度
     public double awRun;       // 落地时45度加速的速度增量
+    public MovementProfile movement;  // 预先算好的移动参数（与sin/cos、runEqualV0、awRun对应）
     
     public AngleConfig() {
         this.sin = MinecraftPhysicsConstants.DEFAULT_SIN;
         this.cos = MinecraftPhysicsConstants.DEFAULT_COS;
+        updateMovement();
+    }
+    
+    /**
+     * 复制另一个角度配置（包括已经算好的跑跳参数）
+     */
+    public AngleConfig(AngleConfig other) {
+        this.sin = other.sin;
+        this.cos = other.cos;
+        this.runEqualV0 = other.runEqualV0;
+        this.awRun = other.awRun;
+        this.movement = other.movement;
     }
     
     /**
@@ -83,6 +101,41 @@ public class AngleConfig {
             double nextV0 = runEqualV0 * (float)(MinecraftPhysicsConstants.FRICTION_GROUND) + awRun;
             runEqualV0 = (runEqualV0 - nextV0) / 2;
         }
+        updateMovement();
+    }
+    
+    /**
+     * 按当前的sin/cos、runEqualV0、awRun重新生成movement
+     */
+    public void updateMovement() {
+        movement = new MovementProfile(sin, cos, runEqualV0, awRun);
+    }
+    
+    /**
+     * 预先算好的移动参数（不可变，多个线程可以共享）
+     * 
+     * air和landing是float：与原来每次计算的 AIR_MOVEMENT_45 * sin + AIR_MOVEMENT_45 * cos 一样
+     * 先按float相乘相加再舍入，加到double速度上时才转换成double，所以结果逐位一致。
+     * 起跳tick的 速度 * 摩擦 + JUMP_BOOST + GROUND_MOVEMENT 是从左到右的两次double加法，
+     * 合并成一个常数会改变舍入，所以不放在这里。
+     */
+    public static final class MovementProfile {
+        public final float sin;
+        public final float cos;
+        public final float air;          // 空中45度加速：0.018384775 * sin + 0.018384775 * cos
+        public final float landing;      // 落地时45度加速：0.09192386 * sin + 0.09192386 * cos
+        public final double runEqualV0;  // 跑1t后速度不变的临界速度
+        public final double awRun;       // 落地时45度加速的速度增量（设置角度后与landing相同）
+        
+        MovementProfile(float sin, float cos, double runEqualV0, double awRun) {
+            this.sin = sin;
+            this.cos = cos;
+            this.air = MinecraftPhysicsConstants.AIR_MOVEMENT_45 * sin + MinecraftPhysicsConstants.AIR_MOVEMENT_45 * cos;
+            this.landing = MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * sin +
+                           MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * cos;
+            this.runEqualV0 = runEqualV0;
+            this.awRun = awRun;
+        }
     }
 }
 
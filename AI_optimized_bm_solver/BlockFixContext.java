@@ -36,6 +36,7 @@
  * 调试标志：
  * - finals：是否在最终计算阶段
  * - jFinals：是否在跳跃最终计算阶段
+ * - trace：调试事件输出，所有模块共用同一个BlockFixContext，所以放在这里
  */
 public class BlockFixContext {
     // 阻断检测
@@ -54,6 +55,9 @@ public class BlockFixContext {
     public boolean finals = false;
     public boolean jFinals = false;
     
+    // 调试事件输出（默认不输出，见TraceSink），reset()不会重置
+    public TraceSink trace = TraceSink.NOOP;
+    
     /**
      * 重置所有状态
      */
@@ -34,6 +34,9 @@ public class BlockFixHandler {
     private final BlockFixContext context;
     private final AngleConfig angleConfig;
     
+    // 最近一次handleBlockFix选择的方案（1, 2, 3；没有方案更优时为0）
+    public int lastPlan = 0;
+    
     public BlockFixHandler(PhysicsCalculator physicsCalculator, BlockFixContext context, AngleConfig angleConfig) {
         this.physicsCalculator = physicsCalculator;
         this.context = context;
@@ -88,9 +91,12 @@ public class BlockFixHandler {
         context.fixPlan = 0;
         context.planSteps = 0;
         physicsCalculator.tempV0 = maxV0;
+        lastPlan = bestPlan;
         
-        System.out.println(physicsCalculator.tempBM + " finbm  " + maxV0 + " tempv0 " + 
-                          optimalJumpSpeed + " js plan: " + bestPlan);
+        if (context.trace.enabled()) {
+            context.trace.event(TraceEvent.BLOCK_FIX_RESULT, physicsCalculator.tempBM, maxV0, optimalJumpSpeed,
+                                bestPlan);
+        }
         
         return maxV0;
     }
@@ -102,8 +108,8 @@ public class BlockFixHandler {
         context.fixPlan = 1;
         
         // 计算阻断位置的起跳速度
-        double fbm = physicsCalculator.calculateDelayedJumpJumps(initialSpeed, -1, finalDelayed);
-        double sbm = physicsCalculator.calculateDelayedJumpJumps(initialSpeed, 1, finalDelayed);
+        double sbm = physicsCalculator.calculateDelayedJumpJumpsPair(initialSpeed, finalDelayed);
+        double fbm = physicsCalculator.tempLow;
         
         double jumpSpeed;
         if (context.inPlace == 1) {
@@ -117,7 +123,9 @@ public class BlockFixHandler {
         context.inFix = 0;
         physicsCalculator.calculateDelayedJumpJumps(initialSpeed, jumpSpeed, finalDelayed);
         
-        System.out.println("p1v0 " + physicsCalculator.tempV0);
+        if (context.trace.enabled()) {
+            context.trace.event(TraceEvent.PLAN1_SPEED, physicsCalculator.tempV0);
+        }
         return physicsCalculator.tempV0;
     }
     
@@ -125,8 +133,8 @@ public class BlockFixHandler {
      * 计算Plan 1的起跳速度
      */
     private double calculatePlan1JumpSpeed(double targetBM, double initialSpeed, boolean finalDelayed) {
-        double fbm = physicsCalculator.calculateDelayedJumpJumps(initialSpeed, -1, finalDelayed);
-        double sbm = physicsCalculator.calculateDelayedJumpJumps(initialSpeed, 1, finalDelayed);
+        double sbm = physicsCalculator.calculateDelayedJumpJumpsPair(initialSpeed, finalDelayed);
+        double fbm = physicsCalculator.tempLow;
         
         if (context.inPlace == 1) {
             return -MinecraftPhysicsConstants.BLOCK_THRESHOLD_GROUND;
@@ -160,7 +168,9 @@ public class BlockFixHandler {
         // 第三步：使用修复速度计算
         physicsCalculator.calculateDelayedJumpJumps(initialSpeed, plan1JumpSpeed, finalDelayed);
         
-        System.out.println("p2v0 " + physicsCalculator.tempV0 + "  fixsp " + context.fixSpeed);
+        if (context.trace.enabled()) {
+            context.trace.event(TraceEvent.PLAN2_SPEED, physicsCalculator.tempV0, context.fixSpeed);
+        }
         context.planSteps = 0;
         
         return physicsCalculator.tempV0;
@@ -173,8 +183,8 @@ public class BlockFixHandler {
         context.fixPlan = 3;
         
         // 计算阻断位置的起跳速度
-        double fbm = physicsCalculator.calculateDelayedJumpJumps(initialSpeed, -1, finalDelayed);
-        double sbm = physicsCalculator.calculateDelayedJumpJumps(initialSpeed, 1, finalDelayed);
+        double sbm = physicsCalculator.calculateDelayedJumpJumpsPair(initialSpeed, finalDelayed);
+        double fbm = physicsCalculator.tempLow;
         
         double jumpSpeed;
         if (context.inPlace == 1) {
@@ -206,7 +216,9 @@ public class BlockFixHandler {
                                   MinecraftPhysicsConstants.JUMP_BOOST + 
                                   MinecraftPhysicsConstants.GROUND_MOVEMENT;
         
-        System.out.println("p3v0 " + physicsCalculator.tempV0 + "  fixsp " + context.fixSpeed);
+        if (context.trace.enabled()) {
+            context.trace.event(TraceEvent.PLAN3_SPEED, physicsCalculator.tempV0, context.fixSpeed);
+        }
         
         if (expectedJumpSpeed >= jumpSpeed) {
             return physicsCalculator.tempV0;  // 满足条件，Plan 3可行
@@ -0,0 +1,385 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 在Minecraft的sin表中搜索最优的有效角
+ *
+ * 游戏里的sin/cos不是直接算的，而是查MathHelper的65536项表：
+ *   sin(x) = SIN_TABLE[(int)(x * 10430.378F) & 65535]
+ *   cos(x) = SIN_TABLE[(int)(x * 10430.378F + 16384.0F) & 65535]
+ * 所以能用的sin/cos只有表里的值。AngleConfig的四种角度都是表项：
+ * - Type 1：sin下标8192（45度），cos下标8192 + 16384
+ * - Type 2：sin下标8193，cos下标8193 + 16384（45.006度）
+ * - Type 3/4（半角）：sin下标8192，cos下标不是sin下标 + 16384，而是相差-1和-64
+ * 这里把每个yaw下标（sin下标0~65535）和cos下标相差不超过maxOffset的半角组合都作为候选，
+ * 对给定的设置找出跳得最远（或容错最大）的一个。距离和容错都按result()推荐的跳法计算（与界面显示的一致），
+ * 不是candidates()中最远的跳法（两者的区别见BmSolverOptimized.candidates()）。
+ *
+ * 求解只用到每个空中tick的加速（air = 0.018384775 * sin + 0.018384775 * cos）和
+ * 落地时的加速（landing，见AngleConfig.MovementProfile），air和landing都相同的组合结果完全相同，只求解一次。
+ *
+ * 剪枝：假设每tick的加速都不小时跳得也不会更近（air和landing都不小于另一个组合时，最远的跳法不比它近）。
+ * 这只是经验规律，没有证明：在各种设置下检查过前几十万个组合，只有1e-15左右的浮点误差（所以有TOLERANCE的余量），
+ * 但不保证对所有设置都成立。
+ * 按air从大到小求解，已经求解过的组合中air、landing都不小于剩下所有组合的那个的最远跳法的距离
+ * 就是剩下组合距离的上界（result()的距离不会超过最远的跳法），上界不可能超过当前最优时停止。
+ * 一般只需要求解最前面的几十个组合；result()的距离都是0（连跳满助跑更远，见candidates()）时上界不起作用，
+ * 会求解所有组合。setExhaustive(true)时不剪枝，逐个求解所有组合（很慢，只用来验证剪枝）。
+ * air <= 0（向后或向侧面走）的组合不考虑。
+ *
+ * 每一批组合并行求解（每个组合用自己的BmSolverOptimized）。
+ *
+ * 使用方法：
+ *   BmAngleSearch search = new BmAngleSearch(BmAngleSearch.DEFAULT_MAX_OFFSET);
+ *   BmAngleSearch.Angle angle = search.farthest(12, 12, 1.8125);
+ *   angle.sinIndex; angle.cosIndex; angle.distance; angle.pb;
+ *
+ * 命令行用法：
+ *   java BmAngleSearch <助跑滞空时间> <跳跃滞空时间> <助跑长度> [最小距离] [半角最大偏移=64]
+ *   给出最小距离时还输出距离不小于它的组合中容错最大的一个
+ */
+public final class BmAngleSearch {
+    public static final int TABLE_SIZE = 65536;
+    public static final int DEFAULT_MAX_OFFSET = 64;   // 包括Type 3（-1）和Type 4（-64）
+    public static final double TOLERANCE = 1e-9;      // 上界的余量（单调性的浮点误差）
+
+    private static final float[] SIN_TABLE = new float[TABLE_SIZE];
+
+    static {
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            SIN_TABLE[i] = (float) Math.sin(i * Math.PI * 2.0 / TABLE_SIZE);
+        }
+    }
+
+    /**
+     * 搜索目标
+     */
+    public enum Objective {
+        DISTANCE,   // 距离最远
+        PB          // 距离不小于最小距离的组合中容错最大（相同时距离远的）
+    }
+
+    private final int maxOffset;
+    private final long[] levels;            // 按air从大到小（相同时偏移小、下标小的在前）的组合（见key()）
+    private final float[] suffixLanding;    // suffixLanding[i]：levels[i..]中最大的landing
+    private final AtomicLong solves = new AtomicLong();
+    private volatile boolean exhaustive = false;
+
+    /**
+     * @param maxOffset cos下标与sin下标 + 16384最多相差多少（0时只有普通的yaw）
+     */
+    public BmAngleSearch(int maxOffset) {
+        if (maxOffset < 0 || maxOffset >= TABLE_SIZE / 4) {
+            throw new IllegalArgumentException("半角偏移不对: " + maxOffset);
+        }
+        this.maxOffset = maxOffset;
+        long[] keys = new long[TABLE_SIZE * (2 * maxOffset + 1)];
+        int count = 0;
+        for (int rank = 0; rank <= 2 * maxOffset; rank++) {
+            int offset = offset(rank);
+            for (int index = 0; index < TABLE_SIZE; index++) {
+                float air = air(SIN_TABLE[index], SIN_TABLE[(index + TABLE_SIZE / 4 + offset) & (TABLE_SIZE - 1)]);
+                if (air > 0) {
+                    keys[count++] = key(air, rank << 16 | index);
+                }
+            }
+        }
+        levels = Arrays.copyOf(keys, count);
+        Arrays.parallelSort(levels);
+        // 从大到小
+        for (int i = 0, j = count - 1; i < j; i++, j--) {
+            long swap = levels[i];
+            levels[i] = levels[j];
+            levels[j] = swap;
+        }
+        suffixLanding = new float[count];
+        float max = Float.NEGATIVE_INFINITY;
+        for (int i = count - 1; i >= 0; i--) {
+            max = Math.max(max, landing(combo(levels[i])));
+            suffixLanding[i] = max;
+        }
+    }
+
+    /**
+     * 设置是否不剪枝、求解所有组合（默认false；用来验证剪枝的结果）
+     */
+    public void setExhaustive(boolean exhaustive) {
+        this.exhaustive = exhaustive;
+    }
+
+    /**
+     * MathHelper.sin
+     */
+    public static float sin(float radians) {
+        return SIN_TABLE[(int) (radians * 10430.378F) & (TABLE_SIZE - 1)];
+    }
+
+    /**
+     * MathHelper.cos
+     */
+    public static float cos(float radians) {
+        return SIN_TABLE[(int) (radians * 10430.378F + 16384.0F) & (TABLE_SIZE - 1)];
+    }
+
+    /**
+     * sin表的第index项
+     */
+    public static float table(int index) {
+        return SIN_TABLE[index & (TABLE_SIZE - 1)];
+    }
+
+    /**
+     * 跳得最远的组合
+     */
+    public Angle farthest(int buildUpAirtime, int jumpAirtime, double buildUpLength) {
+        return search(buildUpAirtime, jumpAirtime, buildUpLength, Objective.DISTANCE, 0);
+    }
+
+    /**
+     * 距离不小于minDistance的组合中容错最大的（没有时为null）
+     * minDistance离最远距离越远，需要求解的组合越多
+     */
+    public Angle maxPb(int buildUpAirtime, int jumpAirtime, double buildUpLength, double minDistance) {
+        return search(buildUpAirtime, jumpAirtime, buildUpLength, Objective.PB, minDistance);
+    }
+
+    private Angle search(int buildUpAirtime, int jumpAirtime, double buildUpLength, Objective objective,
+                         double minDistance) {
+        int batchSize = 4 * ForkJoinPool.getCommonPoolParallelism();
+        List<Angle> solved = new ArrayList<>();
+        Angle best = null;
+        float runAir = Float.NaN;                   // 当前air相同的一段中已经出现过的landing
+        Set<Float> runLandings = new HashSet<>();
+        int position = 0;
+        while (position < levels.length) {
+            if (!exhaustive && !solved.isEmpty() && !canImprove(bound(solved, suffixLanding[position]), best, objective, minDistance)) {
+                break;
+            }
+            List<Integer> batch = new ArrayList<>(batchSize);
+            while (position < levels.length && batch.size() < batchSize) {
+                int combo = combo(levels[position++]);
+                float air = air(combo);
+                if (air != runAir) {
+                    runAir = air;
+                    runLandings.clear();
+                }
+                if (runLandings.add(landing(combo))) {
+                    batch.add(combo);
+                }
+            }
+            Angle[] results = batch.parallelStream()
+                .map(combo -> evaluate(combo, buildUpAirtime, jumpAirtime, buildUpLength))
+                .toArray(Angle[]::new);
+            for (Angle angle : results) {
+                solved.add(angle);
+                if (better(angle, best, objective, minDistance)) {
+                    best = angle;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 已经求解过的组合中，air和landing都不小于剩下所有组合（air已经按顺序保证）的最后一个的最远跳法的距离；
+     * 没有时为NaN
+     */
+    private static double bound(List<Angle> solved, float landing) {
+        for (int i = solved.size() - 1; i >= 0; i--) {
+            if (solved.get(i).landing >= landing) {
+                return solved.get(i).reach;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * 距离不超过bound的组合是否可能比best更好
+     */
+    private static boolean canImprove(double bound, Angle best, Objective objective, double minDistance) {
+        if (Double.isNaN(bound)) {
+            return true;
+        }
+        double limit = bound + TOLERANCE;
+        if (objective == Objective.DISTANCE) {
+            return best == null || limit >= best.distance;
+        }
+        if (limit < minDistance) {
+            return false;
+        }
+        // 剩下的距离都在[minDistance, limit]内并且不跨过0.0625的倍数时，容错不超过limit的容错
+        double mark = MinecraftPhysicsConstants.BLOCK_SIZE * Math.floor(limit / MinecraftPhysicsConstants.BLOCK_SIZE);
+        return best == null || mark > minDistance || limit - mark >= best.pb;
+    }
+
+    private static boolean better(Angle angle, Angle best, Objective objective, double minDistance) {
+        if (objective == Objective.DISTANCE) {
+            return best == null || angle.distance > best.distance;
+        }
+        if (angle.distance < minDistance) {
+            return false;
+        }
+        return best == null || angle.pb > best.pb || (angle.pb == best.pb && angle.distance > best.distance);
+    }
+
+    private Angle evaluate(int combo, int buildUpAirtime, int jumpAirtime, double buildUpLength) {
+        int sinIndex = combo & (TABLE_SIZE - 1);
+        int cosIndex = (sinIndex + TABLE_SIZE / 4 + offset(combo >>> 16)) & (TABLE_SIZE - 1);
+        AngleConfig config = new AngleConfig();
+        config.sin = SIN_TABLE[sinIndex];
+        config.cos = SIN_TABLE[cosIndex];
+        config.setAngleType(0);     // 保留sin/cos，重新计算跑跳参数和movement
+        BmSolverOptimized solver = new BmSolverOptimized(config);
+        solver.solve(buildUpAirtime, jumpAirtime, buildUpLength);
+        solves.incrementAndGet();
+        SolveResult result = solver.result();
+        List<SolveCandidate> candidates = solver.candidates();
+        SolveCandidate jump = null;
+        for (SolveCandidate candidate : candidates) {
+            if (candidate.chosen) {
+                jump = candidate;
+            }
+        }
+        double reach = candidates.isEmpty() ? result.distance : Math.max(result.distance, candidates.get(0).distance);
+        return new Angle(sinIndex, cosIndex, config.sin, config.cos, config.movement.air, config.movement.landing,
+                         result.distance, result.pb, reach, jump);
+    }
+
+    /**
+     * 排序用的键：air（正数，位模式的顺序与大小相同）在高32位，低32位越大组合越靠前
+     */
+    private static long key(float air, int combo) {
+        return (long) Float.floatToRawIntBits(air) << 32 | (0xFFFFFFFFL - combo);
+    }
+
+    private static int combo(long key) {
+        return (int) (0xFFFFFFFFL - (key & 0xFFFFFFFFL));
+    }
+
+    /**
+     * 偏移的顺序：0, -1, 1, -2, 2, ...
+     */
+    private static int offset(int rank) {
+        int size = (rank + 1) / 2;
+        return (rank & 1) == 1 ? -size : size;
+    }
+
+    private static float air(int combo) {
+        int index = combo & (TABLE_SIZE - 1);
+        return air(SIN_TABLE[index], SIN_TABLE[(index + TABLE_SIZE / 4 + offset(combo >>> 16)) & (TABLE_SIZE - 1)]);
+    }
+
+    private static float landing(int combo) {
+        int index = combo & (TABLE_SIZE - 1);
+        float sin = SIN_TABLE[index];
+        float cos = SIN_TABLE[(index + TABLE_SIZE / 4 + offset(combo >>> 16)) & (TABLE_SIZE - 1)];
+        return MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * sin + MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * cos;
+    }
+
+    private static float air(float sin, float cos) {
+        return MinecraftPhysicsConstants.AIR_MOVEMENT_45 * sin + MinecraftPhysicsConstants.AIR_MOVEMENT_45 * cos;
+    }
+
+    /**
+     * 到目前为止所有搜索的求解次数
+     */
+    public long solves() {
+        return solves.get();
+    }
+
+    /**
+     * 候选组合的个数（air > 0，相同的air和landing没有合并）
+     */
+    public int size() {
+        return levels.length;
+    }
+
+    public int maxOffset() {
+        return maxOffset;
+    }
+
+    /**
+     * 一个sin/cos组合和它的求解结果
+     */
+    public static final class Angle {
+        public final int sinIndex;          // sin的表下标（yaw下标）
+        public final int cosIndex;          // cos的表下标（普通的yaw是sinIndex + 16384）
+        public final float sin;
+        public final float cos;
+        public final float air;             // 每个空中tick的加速
+        public final float landing;         // 落地时的加速
+        public final double distance;       // result()的距离
+        public final double pb;             // result()的容错
+        public final double reach;          // 所有跳法中最远的距离（剪枝用，可能比distance远）
+        public final SolveCandidate jump;   // result()推荐的跳法（见SolveCandidate.chosen），没有时为null
+
+        Angle(int sinIndex, int cosIndex, float sin, float cos, float air, float landing, double distance, double pb,
+              double reach, SolveCandidate jump) {
+            this.sinIndex = sinIndex;
+            this.cosIndex = cosIndex;
+            this.sin = sin;
+            this.cos = cos;
+            this.air = air;
+            this.landing = landing;
+            this.distance = distance;
+            this.pb = pb;
+            this.reach = reach;
+            this.jump = jump;
+        }
+
+        /**
+         * cos下标与sinIndex + 16384的差（0是普通的yaw，不是0时是半角）
+         */
+        public int offset() {
+            return (short) (cosIndex - sinIndex - TABLE_SIZE / 4);
+        }
+
+        /**
+         * sin下标对应的角度（度）
+         */
+        public double yaw() {
+            return sinIndex * 360.0 / TABLE_SIZE;
+        }
+
+        @Override
+        public String toString() {
+            return sinIndex + "\t" + cosIndex + "\t" + offset() + "\t" + yaw() + "\t" + sin + "\t" + cos + "\t" +
+                   distance + "\t" + pb + "\t" + (jump == null ? "" : jump.strategy + "\t" + jump.delayed);
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("用法: java BmAngleSearch <助跑滞空时间> <跳跃滞空时间> <助跑长度> [最小距离] [半角最大偏移=64]");
+            return;
+        }
+        int buildUpAirtime = Integer.parseInt(args[0]);
+        int jumpAirtime = Integer.parseInt(args[1]);
+        double buildUpLength = Double.parseDouble(args[2]);
+        int maxOffset = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_MAX_OFFSET;
+
+        long start = System.nanoTime();
+        BmAngleSearch search = new BmAngleSearch(maxOffset);
+        System.err.println(search.size() + "个组合, 用时 " + (System.nanoTime() - start) / 1e9 + "s");
+        System.out.println("sinIndex\tcosIndex\toffset\tyaw\tsin\tcos\tdistance\tpb\tstrategy\tdelayed");
+
+        start = System.nanoTime();
+        System.out.println(search.farthest(buildUpAirtime, jumpAirtime, buildUpLength));
+        if (args.length > 3) {
+            System.out.println(search.maxPb(buildUpAirtime, jumpAirtime, buildUpLength, Double.parseDouble(args[3])));
+        }
+        System.err.println("求解" + search.solves() + "次, 用时 " + (System.nanoTime() - start) / 1e9 + "s");
+
+        // 对比AngleConfig的四种角度
+        BmSolverEngine engine = new BmSolverEngine();
+        for (int type = 1; type <= 4; type++) {
+            SolveResult result = engine.solve(type, buildUpAirtime, jumpAirtime, buildUpLength).result();
+            System.err.println("Type " + type + ": " + result.distance + "\t" + result.pb);
+        }
+    }
+}
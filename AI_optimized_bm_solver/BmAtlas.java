@@ -0,0 +1,266 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * 预计算的bm表（内存映射的二进制文件）
+ *
+ * 标准网格（角度类型1~4 × 助跑滞空时间1~N × 跳跃滞空时间1~N × 助跑长度step的整数倍）的结果是固定的，
+ * generate()把整个网格求解一次写成定长记录的文件，open()用FileChannel.map映射后，
+ * 查询只是一次下标计算加几次绝对位置的读取：
+ * - index()和distance()/pb()等按下标读取的方法不分配任何对象（下标不在0~size()-1时抛出IndexOutOfBoundsException）
+ * - 打开文件不读取内容，启动时间与文件大小无关（由操作系统按需加载页面）
+ * - 不在网格上的查询（其他角度、长度不是step的整数倍等）交给实时求解（SolveCache）
+ *
+ * 文件格式（大端）：
+ *   文件头64字节：魔数"BMA1"、版本、角度数、最大滞空时间、长度个数、记录长度、长度步长（double）
+ *   记录64字节：distance, pb, jpb, backwardSpeed, landSpeed, jumpSpeed（double），
+ *              loops, deloops, jloops（int），strategy, delayed, blockFixPlan, bwmmBlockFixPlan（byte）
+ *   记录下标：((角度-1) * N + 助跑滞空-1) * N + 跳跃滞空-1) * 长度个数 + 长度/step-1
+ *
+ * 命令行用法：
+ *   java BmAtlas generate <文件> [最大助跑长度=20] [最大滞空时间=30] [长度步长=0.0625]
+ *   java BmAtlas lookup <文件> <角度类型> <助跑滞空时间> <跳跃滞空时间> <助跑长度>
+ */
+public final class BmAtlas {
+    private static final int MAGIC = 0x424d4131;  // "BMA1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 64;
+    private static final int ANGLE_TYPES = 4;
+
+    // 记录内各字段的偏移
+    private static final int DISTANCE = 0;
+    private static final int PB = 8;
+    private static final int JPB = 16;
+    private static final int BACKWARD_SPEED = 24;
+    private static final int LAND_SPEED = 32;
+    private static final int JUMP_SPEED = 40;
+    private static final int LOOPS = 48;
+    private static final int DELOOPS = 52;
+    private static final int JLOOPS = 56;
+    private static final int STRATEGY = 60;
+    private static final int DELAYED = 61;
+    private static final int BLOCK_FIX_PLAN = 62;
+    private static final int BWMM_BLOCK_FIX_PLAN = 63;
+
+    private static final SolveResult.Strategy[] STRATEGIES = SolveResult.Strategy.values();
+
+    private final ByteBuffer buffer;
+    private final int maxAirtime;
+    private final int lengthCount;
+    private final int records;
+    private final double lengthStep;
+    private final SolveCache fallback;
+
+    private BmAtlas(ByteBuffer buffer, SolveCache fallback) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("不是bm表文件，或者版本不对");
+        }
+        if (buffer.getInt(8) != ANGLE_TYPES || buffer.getInt(20) != RECORD_SIZE) {
+            throw new IllegalArgumentException("bm表文件格式不对");
+        }
+        this.buffer = buffer;
+        this.maxAirtime = buffer.getInt(12);
+        this.lengthCount = buffer.getInt(16);
+        this.lengthStep = buffer.getDouble(24);
+        long expected = HEADER_SIZE + (long) ANGLE_TYPES * maxAirtime * maxAirtime * lengthCount * RECORD_SIZE;
+        if (buffer.capacity() != expected) {
+            throw new IllegalArgumentException("bm表文件大小不对: " + buffer.capacity() + "，应为" + expected);
+        }
+        this.records = ANGLE_TYPES * maxAirtime * maxAirtime * lengthCount;
+        this.fallback = fallback;
+    }
+
+    /**
+     * 映射bm表文件，网格外的查询使用新的BmSolverEngine实时求解
+     */
+    public static BmAtlas open(Path path) throws IOException {
+        return open(path, new SolveCache(new BmSolverEngine(), 10000));
+    }
+
+    /**
+     * 映射bm表文件，网格外的查询交给fallback
+     */
+    public static BmAtlas open(Path path, SolveCache fallback) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // 关闭channel后映射仍然有效
+            return new BmAtlas(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), fallback);
+        }
+    }
+
+    /**
+     * 求解整个网格并写入文件（先写临时文件，完成后再替换，读者不会看到写了一半的文件）
+     *
+     * @param maxLength 最大助跑长度（包含）
+     * @param maxAirtime 最大滞空时间（助跑和跳跃都是1~maxAirtime）
+     * @param lengthStep 助跑长度步长
+     */
+    public static void generate(Path path, double maxLength, int maxAirtime, double lengthStep) throws IOException {
+        double[] lengths = BmSolverSweep.lengths(lengthStep, maxLength);
+        int lengthCount = lengths.length;
+        long cells = (long) ANGLE_TYPES * maxAirtime * maxAirtime * lengthCount;
+        long size = HEADER_SIZE + cells * RECORD_SIZE;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("bm表过大: " + size + "字节");
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.putInt(0, MAGIC)
+               .putInt(4, VERSION)
+               .putInt(8, ANGLE_TYPES)
+               .putInt(12, maxAirtime)
+               .putInt(16, lengthCount)
+               .putInt(20, RECORD_SIZE)
+               .putDouble(24, lengthStep);
+
+            BmSolverEngine engine = new BmSolverEngine();
+            IntStream.range(0, (int) cells).parallel().forEach(index -> {
+                int cell = index / lengthCount;
+                int jumpAirtime = cell % maxAirtime + 1;
+                int buildUpAirtime = cell / maxAirtime % maxAirtime + 1;
+                int angleType = cell / (maxAirtime * maxAirtime) + 1;
+                SolveResult result = engine.solve(angleType, buildUpAirtime, jumpAirtime,
+                                                  lengths[index % lengthCount]).result();
+                write(out, HEADER_SIZE + index * RECORD_SIZE, result);
+            });
+            out.force();
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void write(ByteBuffer out, int offset, SolveResult result) {
+        out.putDouble(offset + DISTANCE, result.distance)
+           .putDouble(offset + PB, result.pb)
+           .putDouble(offset + JPB, result.jpb)
+           .putDouble(offset + BACKWARD_SPEED, result.backwardSpeed)
+           .putDouble(offset + LAND_SPEED, result.landSpeed)
+           .putDouble(offset + JUMP_SPEED, result.jumpSpeed)
+           .putInt(offset + LOOPS, result.loops)
+           .putInt(offset + DELOOPS, result.deloops)
+           .putInt(offset + JLOOPS, result.jloops)
+           .put(offset + STRATEGY, (byte) result.strategy.ordinal())
+           .put(offset + DELAYED, (byte) (result.delayed ? 1 : 0))
+           .put(offset + BLOCK_FIX_PLAN, (byte) result.blockFixPlan)
+           .put(offset + BWMM_BLOCK_FIX_PLAN, (byte) result.bwmmBlockFixPlan);
+    }
+
+    /**
+     * 查询在表中的记录下标，不在网格上时返回-1
+     */
+    public int index(int angleType, int buildUpAirtime, int jumpAirtime, double buildUpLength) {
+        if (angleType < 1 || angleType > ANGLE_TYPES ||
+            buildUpAirtime < 1 || buildUpAirtime > maxAirtime ||
+            jumpAirtime < 1 || jumpAirtime > maxAirtime) {
+            return -1;
+        }
+        // 与BmSolverSweep.lengths相同的计算方式，只有完全相等的长度才算在网格上
+        double steps = Math.rint(buildUpLength / lengthStep);
+        if (steps < 1 || steps > lengthCount || lengthStep * steps != buildUpLength) {
+            return -1;
+        }
+        return (((angleType - 1) * maxAirtime + buildUpAirtime - 1) * maxAirtime + jumpAirtime - 1) * lengthCount +
+               (int) steps - 1;
+    }
+
+    public double distance(int index) {
+        return buffer.getDouble(offset(index) + DISTANCE);
+    }
+
+    public double pb(int index) {
+        return buffer.getDouble(offset(index) + PB);
+    }
+
+    public double jpb(int index) {
+        return buffer.getDouble(offset(index) + JPB);
+    }
+
+    public int loops(int index) {
+        return buffer.getInt(offset(index) + LOOPS);
+    }
+
+    public int deloops(int index) {
+        return buffer.getInt(offset(index) + DELOOPS);
+    }
+
+    public int jloops(int index) {
+        return buffer.getInt(offset(index) + JLOOPS);
+    }
+
+    public boolean delayed(int index) {
+        return buffer.get(offset(index) + DELAYED) != 0;
+    }
+
+    public SolveResult.Strategy strategy(int index) {
+        return STRATEGIES[buffer.get(offset(index) + STRATEGY)];
+    }
+
+    /**
+     * 完整结果：在网格上时从表中读取，否则实时求解
+     */
+    public SolveResult solve(int angleType, int buildUpAirtime, int jumpAirtime, double buildUpLength) {
+        int index = index(angleType, buildUpAirtime, jumpAirtime, buildUpLength);
+        if (index < 0) {
+            return fallback.solve(angleType, buildUpAirtime, jumpAirtime, buildUpLength);
+        }
+        int offset = offset(index);
+        return new SolveResult(buffer.getDouble(offset + DISTANCE), buffer.getDouble(offset + PB),
+                               buffer.getDouble(offset + JPB), buffer.getInt(offset + LOOPS),
+                               buffer.getInt(offset + DELOOPS), buffer.getInt(offset + JLOOPS),
+                               buffer.get(offset + DELAYED) != 0, STRATEGIES[buffer.get(offset + STRATEGY)],
+                               buffer.get(offset + BLOCK_FIX_PLAN), buffer.get(offset + BWMM_BLOCK_FIX_PLAN),
+                               buffer.getDouble(offset + BACKWARD_SPEED), buffer.getDouble(offset + LAND_SPEED),
+                               buffer.getDouble(offset + JUMP_SPEED));
+    }
+
+    /**
+     * 记录个数
+     */
+    public int size() {
+        return records;
+    }
+
+    public int maxAirtime() {
+        return maxAirtime;
+    }
+
+    public double maxLength() {
+        return lengthStep * lengthCount;
+    }
+
+    private int offset(int index) {
+        return HEADER_SIZE + Objects.checkIndex(index, records) * RECORD_SIZE;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 2 && args[0].equals("generate")) {
+            double maxLength = args.length > 2 ? Double.parseDouble(args[2]) : 20;
+            int maxAirtime = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+            double step = args.length > 4 ? Double.parseDouble(args[4]) : MinecraftPhysicsConstants.BLOCK_SIZE;
+            long start = System.nanoTime();
+            generate(Paths.get(args[1]), maxLength, maxAirtime, step);
+            System.err.println("生成完成, 用时 " + (System.nanoTime() - start) / 1e9 + "s");
+        } else if (args.length == 6 && args[0].equals("lookup")) {
+            BmAtlas atlas = open(Paths.get(args[1]));
+            SolveResult result = atlas.solve(Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                                             Integer.parseInt(args[4]), Double.parseDouble(args[5]));
+            for (String line : result.lines(SolveResult.Language.ZH)) {
+                System.out.println(line);
+            }
+        } else {
+            System.err.println("用法: java BmAtlas generate <文件> [最大助跑长度=20] [最大滞空时间=30] [长度步长=0.0625]");
+            System.err.println("      java BmAtlas lookup <文件> <角度类型> <助跑滞空时间> <跳跃滞空时间> <助跑长度>");
+        }
+    }
+}
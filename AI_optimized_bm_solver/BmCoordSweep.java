@@ -0,0 +1,241 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * 起始坐标（coord2）扫描
+ *
+ * 求解时所有的bm和距离都是从起始坐标开始累加、最后再减去起始坐标，calculateFinalJump还会减去Math.ulp(distance)，
+ * 所以同一个设置在不同的位置起跳，浮点舍入不同，距离和容错会有很小的差别（坐标越大差别越大）。
+ * 这个类对一组起始坐标并行求解（每个坐标用BmSolverEngine求解一次），
+ * 找出哪些位置跳得最远，以及距离随位置有哪几种取值。
+ *
+ * 起始坐标可以是：
+ * - grid(from, to, step)：一段方块范围内每隔step（例如0.0625）一个
+ * - ulps(center, count)：center前后各count个相邻的double（例如整数坐标附近每个能表示的值）
+ *
+ * 使用方法：
+ *   BmCoordSweep.Result result = BmCoordSweep.run(engine, 2, 12, 12, 1.8125, BmCoordSweep.grid(0, 16, 0.0625));
+ *   result.coord[result.best()];        // 跳得最远的位置
+ *   result.levels();                    // 距离的每种取值、出现次数和第一个出现的位置
+ *
+ * 命令行用法：
+ *   java BmCoordSweep <角度类型> <助跑滞空时间> <跳跃滞空时间> <助跑长度> <起始坐标> <结束坐标> [步长=0.0625] [--tsv]
+ *   java BmCoordSweep <角度类型> <助跑滞空时间> <跳跃滞空时间> <助跑长度> ulp <坐标> <前后个数> [--tsv]
+ *   输出距离的每种取值；加--tsv时输出每个坐标的结果
+ */
+public final class BmCoordSweep {
+    private BmCoordSweep() {
+    }
+
+    /**
+     * from, from + step, ...，直到不超过to（用乘法而不是累加，避免累积误差）
+     */
+    public static double[] grid(double from, double to, double step) {
+        if (!(step > 0) || !(to >= from)) {
+            throw new IllegalArgumentException("坐标范围不对: [" + from + ", " + to + "], 步长" + step);
+        }
+        int count = (int) Math.floor((to - from) / step + 1e-9) + 1;
+        double[] coords = new double[count];
+        for (int i = 0; i < count; i++) {
+            coords[i] = from + step * i;
+        }
+        return coords;
+    }
+
+    /**
+     * center和它前后各count个相邻的double（共2 * count + 1个，从小到大）
+     */
+    public static double[] ulps(double center, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("个数不对: " + count);
+        }
+        double[] coords = new double[2 * count + 1];
+        coords[count] = center;
+        for (int i = 1; i <= count; i++) {
+            coords[count - i] = Math.nextDown(coords[count - i + 1]);
+            coords[count + i] = Math.nextUp(coords[count + i - 1]);
+        }
+        return coords;
+    }
+
+    /**
+     * 对每个起始坐标求解（loop开始时的向后速度为0）
+     */
+    public static Result run(BmSolverEngine engine, int angleType, int buildUpAirtime, int jumpAirtime,
+                             double buildUpLength, double[] coords) {
+        Result result = new Result(coords.clone(),
+                                   engine.solve(angleType, buildUpAirtime, jumpAirtime, buildUpLength).result());
+        IntStream.range(0, coords.length).parallel().forEach(i -> {
+            SolveResult solved = engine.solve(angleType, buildUpAirtime, jumpAirtime, buildUpLength,
+                                              coords[i], 0).result();
+            result.distance[i] = solved.distance;
+            result.pb[i] = solved.pb;
+            result.delayed[i] = solved.delayed;
+            result.strategy[i] = solved.strategy;
+        });
+        return result;
+    }
+
+    /**
+     * 扫描结果（按列存储，第i个坐标的结果在各列数组的第i个元素）
+     */
+    public static final class Result {
+        public final double[] coord;
+        public final double[] distance;
+        public final double[] pb;
+        public final boolean[] delayed;
+        public final SolveResult.Strategy[] strategy;
+        public final SolveResult origin;    // 起始坐标为0（默认）时的结果
+
+        Result(double[] coord, SolveResult origin) {
+            this.coord = coord;
+            this.distance = new double[coord.length];
+            this.pb = new double[coord.length];
+            this.delayed = new boolean[coord.length];
+            this.strategy = new SolveResult.Strategy[coord.length];
+            this.origin = origin;
+        }
+
+        public int size() {
+            return coord.length;
+        }
+
+        /**
+         * 跳得最远的坐标的下标（相同时取第一个）
+         */
+        public int best() {
+            int best = 0;
+            for (int i = 1; i < distance.length; i++) {
+                if (distance[i] > distance[best]) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * 跳得最近的坐标的下标（相同时取第一个）
+         */
+        public int worst() {
+            int worst = 0;
+            for (int i = 1; i < distance.length; i++) {
+                if (distance[i] < distance[worst]) {
+                    worst = i;
+                }
+            }
+            return worst;
+        }
+
+        /**
+         * 距离的每种取值，从远到近
+         */
+        public List<Level> levels() {
+            TreeMap<Double, Level> levels = new TreeMap<>();
+            for (int i = 0; i < distance.length; i++) {
+                Level level = levels.get(distance[i]);
+                if (level == null) {
+                    levels.put(distance[i], new Level(distance[i], pb[i], coord[i]));
+                } else {
+                    level.count++;
+                }
+            }
+            return new ArrayList<>(levels.descendingMap().values());
+        }
+
+        /**
+         * 以TSV格式输出（第一行是表头）
+         */
+        public void writeTsv(Writer out) throws IOException {
+            out.write("coord\tdistance\tpb\tdelayed\tstrategy\n");
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < coord.length; i++) {
+                line.setLength(0);
+                line.append(coord[i]).append('\t')
+                    .append(distance[i]).append('\t')
+                    .append(pb[i]).append('\t')
+                    .append(delayed[i]).append('\t')
+                    .append(strategy[i]).append('\n');
+                out.write(line.toString());
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * 距离的一种取值
+     */
+    public static final class Level {
+        public final double distance;
+        public final double pb;
+        public final double firstCoord;    // 第一个跳出这个距离的坐标
+        private int count = 1;
+
+        Level(double distance, double pb, double firstCoord) {
+            this.distance = distance;
+            this.pb = pb;
+            this.firstCoord = firstCoord;
+        }
+
+        /**
+         * 跳出这个距离的坐标个数
+         */
+        public int count() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return distance + "\t" + pb + "\t" + count + "\t" + firstCoord;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean tsv = args.length > 0 && args[args.length - 1].equals("--tsv");
+        int count = tsv ? args.length - 1 : args.length;
+        if (count < 6 || (args[4].equals("ulp") && count < 7)) {
+            System.err.println("用法: java BmCoordSweep <角度类型> <助跑滞空时间> <跳跃滞空时间> <助跑长度> " +
+                               "<起始坐标> <结束坐标> [步长=0.0625] [--tsv]");
+            System.err.println("      java BmCoordSweep <角度类型> <助跑滞空时间> <跳跃滞空时间> <助跑长度> " +
+                               "ulp <坐标> <前后个数> [--tsv]");
+            return;
+        }
+        int angleType = Integer.parseInt(args[0]);
+        int buildUpAirtime = Integer.parseInt(args[1]);
+        int jumpAirtime = Integer.parseInt(args[2]);
+        double buildUpLength = Double.parseDouble(args[3]);
+        double[] coords;
+        if (args[4].equals("ulp")) {
+            coords = ulps(Double.parseDouble(args[5]), Integer.parseInt(args[6]));
+        } else {
+            double step = count > 6 ? Double.parseDouble(args[6]) : MinecraftPhysicsConstants.BLOCK_SIZE;
+            coords = grid(Double.parseDouble(args[4]), Double.parseDouble(args[5]), step);
+        }
+
+        long start = System.nanoTime();
+        Result result = run(new BmSolverEngine(), angleType, buildUpAirtime, jumpAirtime, buildUpLength, coords);
+        int best = result.best();
+        int worst = result.worst();
+        System.err.println(result.size() + "个坐标, 用时 " + (System.nanoTime() - start) / 1e9 + "s");
+        System.err.println("坐标0: " + result.origin.distance + "\t" + result.origin.pb);
+        System.err.println("最远: " + result.distance[best] + "\t" + result.pb[best] + "\t坐标 " + result.coord[best]);
+        System.err.println("最近: " + result.distance[worst] + "\t" + result.pb[worst] + "\t坐标 " + result.coord[worst]);
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        if (tsv) {
+            result.writeTsv(out);
+        } else {
+            out.write("distance\tpb\tcount\tfirstCoord\n");
+            for (Level level : result.levels()) {
+                out.write(level + "\n");
+            }
+            out.flush();
+        }
+    }
+}
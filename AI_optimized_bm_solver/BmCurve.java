@@ -0,0 +1,299 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 一个设置（角度、助跑滞空时间、跳跃滞空时间）下距离随助跑长度变化的分段线性模型
+ *
+ * 角度和滞空时间固定时，连跳次数、是否进入移动阻断区间、delayed与否、跑跳Type 1~3等
+ * 离散的选择不变的一段助跑长度内，每一步都是速度和bm的仿射运算（loop收敛后的速度也是），
+ * 所以最终距离是助跑长度的分段线性函数。compile()找出这些分段点，之后的查询只是
+ * 一次二分查找加一次线性插值，不需要求解（图表等需要对同一个设置查询成千上万个bm的场景）。
+ *
+ * 找分段点的方法：
+ * - 先在[minLength, maxLength]上按step求解一遍（并行）
+ * - 每个区间求解中点：中点的距离与两端的线性插值相差不超过TOLERANCE时，认为这个区间是线性的；
+ *   否则分成两半继续，直到区间宽度小于MIN_WIDTH（距离跳变的位置也会被定位到这个宽度）
+ * - 最后把所有中间点都在同一条直线上的相邻区间合并成一段
+ *
+ * 只按距离分段，不按跳法分段：例如BWMM和loop 0次在浮点误差的范围内来回切换时距离是同一条直线，
+ * 按跳法分段会得到几万段。每一段的strategy()等是这一段起点的求解结果。
+ *
+ * 分段点都是实际求解的结果，在分段点上查询与求解逐位一致；段内的误差不超过TOLERANCE左右。
+ * 比step窄、两端和中点都看不到的小区间可能被漏掉，需要时用更小的step。
+ *
+ * 使用方法：
+ *   BmCurve curve = BmCurve.compile(engine, 2, 12, 12, 0.0625, 20);
+ *   double distance = curve.distance(1.3);
+ *   double pb = curve.pb(1.3);
+ *   int piece = curve.piece(1.3);  // curve.start(piece)、curve.strategy(piece)...
+ *
+ * 命令行用法：
+ *   java BmCurve <角度类型> <助跑滞空时间> <跳跃滞空时间> <最小助跑长度> <最大助跑长度> [输出步长]
+ *   不给输出步长时输出每一段，否则按输出步长输出 助跑长度/距离/容错 的TSV
+ */
+public final class BmCurve {
+    public static final double DEFAULT_STEP = MinecraftPhysicsConstants.BLOCK_SIZE / 4;
+    public static final double TOLERANCE = 1e-9;   // 认为区间是线性的最大误差
+    public static final double MIN_WIDTH = 1e-9;   // 分段点定位的精度
+
+    private static final SolveResult.Strategy[] STRATEGIES = SolveResult.Strategy.values();
+
+    private final BmSolverEngine engine;
+    private final int angleType;
+    private final int buildUpAirtime;
+    private final int jumpAirtime;
+    private final double[] knots;       // 第i段是[knots[i], knots[i + 1]]
+    private final double[] distances;   // knots上求解得到的距离
+    private final int[] kinds;          // 每一段起点的跳法（见kind()）
+    private final int solves;           // compile时求解的次数
+
+    private BmCurve(BmSolverEngine engine, int angleType, int buildUpAirtime, int jumpAirtime,
+                    double[] knots, double[] distances, int[] kinds, int solves) {
+        this.engine = engine;
+        this.angleType = angleType;
+        this.buildUpAirtime = buildUpAirtime;
+        this.jumpAirtime = jumpAirtime;
+        this.knots = knots;
+        this.distances = distances;
+        this.kinds = kinds;
+        this.solves = solves;
+    }
+
+    /**
+     * 用默认的初始步长（1/64）编译[minLength, maxLength]
+     */
+    public static BmCurve compile(BmSolverEngine engine, int angleType, int buildUpAirtime, int jumpAirtime,
+                                  double minLength, double maxLength) {
+        return compile(engine, angleType, buildUpAirtime, jumpAirtime, minLength, maxLength, DEFAULT_STEP);
+    }
+
+    /**
+     * 编译[minLength, maxLength]上的分段模型
+     *
+     * @param step 初始求解的步长（比step窄的区间可能找不到）
+     */
+    public static BmCurve compile(BmSolverEngine engine, int angleType, int buildUpAirtime, int jumpAirtime,
+                                  double minLength, double maxLength, double step) {
+        if (!(minLength < maxLength) || !(step > 0)) {
+            throw new IllegalArgumentException("助跑长度范围或步长不对: [" + minLength + ", " + maxLength + "], " + step);
+        }
+        int intervals = (int) Math.ceil((maxLength - minLength) / step);
+        Sample[] grid = IntStream.rangeClosed(0, intervals).parallel()
+            .mapToObj(i -> Sample.solve(engine, angleType, buildUpAirtime, jumpAirtime,
+                                        i == intervals ? maxLength : minLength + step * i))
+            .toArray(Sample[]::new);
+
+        // 每个初始区间单独细分（互不相关，并行），结果按顺序拼起来
+        List<List<Sample>> refined = IntStream.range(0, intervals).parallel()
+            .mapToObj(i -> {
+                List<Sample> samples = new ArrayList<>();
+                refine(engine, angleType, buildUpAirtime, jumpAirtime, grid[i], grid[i + 1], samples);
+                return samples;
+            })
+            .collect(Collectors.toList());
+        List<Sample> samples = new ArrayList<>();
+        samples.add(grid[0]);
+        int solves = grid.length;
+        for (List<Sample> part : refined) {
+            samples.addAll(part);
+            solves += part.size() - 1;  // 区间右端是初始网格上的点
+        }
+        return merge(engine, angleType, buildUpAirtime, jumpAirtime, samples, solves);
+    }
+
+    /**
+     * 细分(left, right]，按顺序把中间的点和right加入samples
+     */
+    private static void refine(BmSolverEngine engine, int angleType, int buildUpAirtime, int jumpAirtime,
+                               Sample left, Sample right, List<Sample> samples) {
+        double middle = left.length + (right.length - left.length) / 2;
+        if (right.length - left.length <= MIN_WIDTH || middle <= left.length || middle >= right.length) {
+            samples.add(right);
+            return;
+        }
+        Sample mid = Sample.solve(engine, angleType, buildUpAirtime, jumpAirtime, middle);
+        if (Math.abs(mid.distance - interpolate(left, right, middle)) <= TOLERANCE) {
+            samples.add(mid);
+            samples.add(right);
+            return;
+        }
+        refine(engine, angleType, buildUpAirtime, jumpAirtime, left, mid, samples);
+        refine(engine, angleType, buildUpAirtime, jumpAirtime, mid, right, samples);
+    }
+
+    /**
+     * 把中间点都在两端连线上的相邻区间合并成一段
+     */
+    private static BmCurve merge(BmSolverEngine engine, int angleType, int buildUpAirtime, int jumpAirtime,
+                                 List<Sample> samples, int solves) {
+        int count = samples.size();
+        double[] knots = new double[count];
+        double[] distances = new double[count];
+        int[] kinds = new int[count];
+        int pieces = 0;
+        int start = 0;
+        knots[0] = samples.get(0).length;
+        distances[0] = samples.get(0).distance;
+        for (int end = 1; end < count; end++) {
+            boolean extend = end + 1 < count;
+            for (int i = start + 1; extend && i <= end; i++) {
+                extend = Math.abs(samples.get(i).distance -
+                                  interpolate(samples.get(start), samples.get(end + 1), samples.get(i).length)) <= TOLERANCE;
+            }
+            if (!extend) {
+                kinds[pieces] = samples.get(start).kind;
+                pieces++;
+                knots[pieces] = samples.get(end).length;
+                distances[pieces] = samples.get(end).distance;
+                start = end;
+            }
+        }
+        return new BmCurve(engine, angleType, buildUpAirtime, jumpAirtime, Arrays.copyOf(knots, pieces + 1),
+                           Arrays.copyOf(distances, pieces + 1), Arrays.copyOf(kinds, pieces), solves);
+    }
+
+    private static double interpolate(Sample left, Sample right, double length) {
+        return left.distance + (right.distance - left.distance) * ((length - left.length) / (right.length - left.length));
+    }
+
+    /**
+     * 助跑长度所在的段，不在编译范围内时返回-1
+     */
+    public int piece(double buildUpLength) {
+        if (!(buildUpLength >= knots[0] && buildUpLength <= knots[knots.length - 1])) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(knots, buildUpLength);
+        if (index >= 0) {
+            return Math.min(index, kinds.length - 1);
+        }
+        return -index - 2;
+    }
+
+    /**
+     * 最终距离：在编译范围内时由模型计算，否则实时求解
+     */
+    public double distance(double buildUpLength) {
+        int piece = piece(buildUpLength);
+        if (piece < 0) {
+            return engine.solve(angleType, buildUpAirtime, jumpAirtime, buildUpLength).result().distance;
+        }
+        double left = knots[piece];
+        double right = knots[piece + 1];
+        if (buildUpLength == left) {
+            return distances[piece];
+        }
+        if (buildUpLength == right) {
+            return distances[piece + 1];
+        }
+        return distances[piece] + (distances[piece + 1] - distances[piece]) * ((buildUpLength - left) / (right - left));
+    }
+
+    /**
+     * 容错（与calculateFinalJump相同的算法，由distance()换算）
+     */
+    public double pb(double buildUpLength) {
+        double distance = distance(buildUpLength);
+        return distance - MinecraftPhysicsConstants.BLOCK_SIZE * ((int)(distance / MinecraftPhysicsConstants.BLOCK_SIZE));
+    }
+
+    public int pieces() {
+        return kinds.length;
+    }
+
+    public double start(int piece) {
+        return knots[piece];
+    }
+
+    public double end(int piece) {
+        return knots[piece + 1];
+    }
+
+    /**
+     * 这一段中距离随助跑长度的变化率
+     */
+    public double slope(int piece) {
+        return (distances[piece + 1] - distances[piece]) / (knots[piece + 1] - knots[piece]);
+    }
+
+    public SolveResult.Strategy strategy(int piece) {
+        return STRATEGIES[kinds[piece] & 0xf];
+    }
+
+    public boolean delayed(int piece) {
+        return (kinds[piece] >> 4 & 1) != 0;
+    }
+
+    public int blockFixPlan(int piece) {
+        return kinds[piece] >> 8 & 0xf;
+    }
+
+    public int bwmmBlockFixPlan(int piece) {
+        return (kinds[piece] >> 12 & 0xf) - 1;
+    }
+
+    /**
+     * compile时求解的次数
+     */
+    public int solves() {
+        return solves;
+    }
+
+    /**
+     * 跳法、delayed、移动阻断方案合成一个int
+     */
+    private static int kind(SolveResult result) {
+        return result.strategy.ordinal() | (result.delayed ? 1 << 4 : 0) |
+               result.blockFixPlan << 8 | (result.bwmmBlockFixPlan + 1) << 12;
+    }
+
+    /**
+     * 一次求解的结果中模型需要的部分
+     */
+    private static final class Sample {
+        final double length;
+        final double distance;
+        final int kind;
+
+        Sample(double length, double distance, int kind) {
+            this.length = length;
+            this.distance = distance;
+            this.kind = kind;
+        }
+
+        static Sample solve(BmSolverEngine engine, int angleType, int buildUpAirtime, int jumpAirtime, double length) {
+            SolveResult result = engine.solve(angleType, buildUpAirtime, jumpAirtime, length).result();
+            return new Sample(length, result.distance, kind(result));
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 5 && args.length != 6) {
+            System.err.println("用法: java BmCurve <角度类型> <助跑滞空时间> <跳跃滞空时间> <最小助跑长度> <最大助跑长度> [输出步长]");
+            return;
+        }
+        long start = System.nanoTime();
+        BmCurve curve = compile(new BmSolverEngine(), Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                                Integer.parseInt(args[2]), Double.parseDouble(args[3]), Double.parseDouble(args[4]));
+        System.err.println(curve.pieces() + "段, 求解" + curve.solves() + "次, 用时 " +
+                           (System.nanoTime() - start) / 1e9 + "s");
+        if (args.length == 5) {
+            for (int piece = 0; piece < curve.pieces(); piece++) {
+                System.out.println(curve.start(piece) + "\t" + curve.end(piece) + "\t" + curve.slope(piece) + "\t" +
+                                   curve.strategy(piece) + "\t" + curve.delayed(piece) + "\t" +
+                                   curve.blockFixPlan(piece) + "\t" + curve.bwmmBlockFixPlan(piece));
+            }
+        } else {
+            double step = Double.parseDouble(args[5]);
+            double min = curve.start(0);
+            double max = curve.end(curve.pieces() - 1);
+            for (int i = 0; min + step * i <= max; i++) {
+                double length = min + step * i;
+                System.out.println(length + "\t" + curve.distance(length) + "\t" + curve.pb(length));
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * 线程安全的求解引擎
+ * 
+ * BmSolverOptimized的中间值都放在可变字段里（PhysicsCalculator.tempV0/tempBM、
+ * BlockFixContext.inPlace/fixPlan/planSteps、SolverState等），一个实例同时只能跑一个求解。
+ * 
+ * 这个类把两部分分开：
+ * - 不可变配置：每种角度类型的AngleConfig在构造时算好，之后不再修改，所有线程共享
+ * - 每次求解的临时状态：每次调用新建一个BmSolverOptimized（复制角度配置，
+ *   以及自己的PhysicsCalculator、BlockFixContext、SolverState）
+ * 
+ * 所以多个线程可以在同一个引擎上同时求解互不相关的查询，不需要加锁。
+ * 
+ * 使用方法：
+ *   BmSolverEngine engine = new BmSolverEngine();
+ *   // 任意线程
+ *   SolveResult result = engine.solve(2, 12, 12, 15.4375).result();
+ *   System.out.println(result.distance + " " + result.pb + " " + result.strategy);
+ */
+public final class BmSolverEngine {
+    private static final int MAX_ANGLE_TYPE = 4;
+    
+    // angleConfigs[type]：1~4对应各角度类型，0对应其他值（保持默认角度，见AngleConfig.setAngleType）
+    private final AngleConfig[] angleConfigs = new AngleConfig[MAX_ANGLE_TYPE + 1];
+    
+    public BmSolverEngine() {
+        for (int type = 0; type <= MAX_ANGLE_TYPE; type++) {
+            AngleConfig config = new AngleConfig();
+            config.setAngleType(type);
+            angleConfigs[type] = config;
+        }
+    }
+    
+    /**
+     * 求解一个查询，结果与 new BmSolverOptimized() + setAngleType(angleType) + solve(...) 完全一致
+     * 
+     * @param angleType 角度类型（1:原版45, 2:45.006, 3:原版小半角, 4:原版大半角）
+     * @param buildUpAirtime 助跑上的滞空时间
+     * @param jumpAirtime 跳跃的滞空时间
+     * @param buildUpLength 助跑长度
+     * @return 求解完成的求解器（只属于这次调用，用result()读取结果）
+     */
+    public BmSolverOptimized solve(int angleType, int buildUpAirtime, int jumpAirtime, double buildUpLength) {
+        return solve(angleType, buildUpAirtime, jumpAirtime, buildUpLength, TraceSink.NOOP);
+    }
+    
+    /**
+     * 求解一个查询，并把这次求解的调试事件输出到trace（只影响这一次调用）
+     */
+    public BmSolverOptimized solve(int angleType, int buildUpAirtime, int jumpAirtime, double buildUpLength,
+                                   TraceSink trace) {
+        BmSolverOptimized solver = new BmSolverOptimized(angleConfig(angleType));
+        solver.setTraceSink(trace);
+        solver.solve(buildUpAirtime, jumpAirtime, buildUpLength);
+        return solver;
+    }
+    
+    /**
+     * 指定起始坐标和loop开始时的向后速度求解（见BmSolverOptimized.setStartCoord/setStartSpeed）
+     */
+    public BmSolverOptimized solve(int angleType, int buildUpAirtime, int jumpAirtime, double buildUpLength,
+                                   double startCoord, double startSpeed) {
+        BmSolverOptimized solver = new BmSolverOptimized(angleConfig(angleType));
+        solver.setStartCoord(startCoord);
+        solver.setStartSpeed(startSpeed);
+        solver.solve(buildUpAirtime, jumpAirtime, buildUpLength);
+        return solver;
+    }
+    
+    /**
+     * 角度类型对应的共享配置（不要修改）
+     */
+    AngleConfig angleConfig(int angleType) {
+        if (angleType < 1 || angleType > MAX_ANGLE_TYPE) {
+            return angleConfigs[0];
+        }
+        return angleConfigs[angleType];
+    }
+}
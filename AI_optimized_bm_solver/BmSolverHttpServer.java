@@ -0,0 +1,273 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 本地HTTP求解服务
+ *
+ * 基于JDK自带的com.sun.net.httpserver，每个请求一个虚拟线程（Java 21+）；
+ * 在Java 17上没有虚拟线程，自动退回到按需创建的线程池（见newExecutor）。
+ * 求解用的BmSolverEngine是线程安全的，不需要调节线程池大小。
+ *
+ * 接口：
+ * - GET  /solve?angleType=2&buildUpAirtime=12&jumpAirtime=12&buildUpLength=1.25[&text=zh]
+ * - POST /solve  请求体是一个JSON对象，字段与BmSolverServer相同
+ *   返回JSON（字段见BmSolverServer），参数错误返回400和{"error":...}
+ * - GET  /sweep?angleTypes=1-4&buildUpAirtimes=12&jumpAirtimes=11,12&maxLength=5[&step=0.0625]
+ *   返回TSV（见BmSolverSweep.SweepResult.writeTsv），每个参数可以是"a-b"区间或逗号分隔的列表
+ * - GET  /latency  solve和sweep的延迟直方图（见LatencyHistogram，单位微秒）
+ * - GET  /cache    solve结果缓存的统计（见SolveCache）
+ *
+ * 命令行用法（只监听本机地址）：
+ *   java BmSolverHttpServer [端口=8080]
+ */
+public final class BmSolverHttpServer {
+    // 一次sweep最多的格子数，避免一个请求占满CPU太久
+    private static final int MAX_SWEEP_CELLS = 1 << 20;
+
+    private final BmSolverServer solver = new BmSolverServer();
+    private final LatencyHistogram solveLatency = new LatencyHistogram();
+    private final LatencyHistogram sweepLatency = new LatencyHistogram();
+    private final HttpServer http;
+    private final ExecutorService executor;
+
+    public BmSolverHttpServer(InetSocketAddress address) throws IOException {
+        http = HttpServer.create(address, 0);
+        executor = newExecutor();
+        http.setExecutor(executor);
+        http.createContext("/solve", exchange -> timed(exchange, solveLatency, this::solve));
+        http.createContext("/sweep", exchange -> timed(exchange, sweepLatency, this::sweep));
+        http.createContext("/latency", exchange -> respond(exchange, 200, "application/json", latency()));
+        http.createContext("/cache", exchange -> respond(exchange, 200, "application/json", cacheStats()));
+    }
+
+    public void start() {
+        http.start();
+    }
+
+    /**
+     * 停止服务，最多等待delaySeconds秒让正在处理的请求完成
+     */
+    public void stop(int delaySeconds) {
+        http.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * 实际监听的端口（构造时传入端口0时由系统分配）
+     */
+    public int port() {
+        return http.getAddress().getPort();
+    }
+
+    public BmSolverServer solver() {
+        return solver;
+    }
+
+    /**
+     * 每个任务一个虚拟线程；没有虚拟线程时（Java 21之前）使用按需创建的线程池
+     * 用反射调用，这样在Java 17上也能编译
+     */
+    static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "bm-solver-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    private static void timed(HttpExchange exchange, LatencyHistogram histogram, Handler handler) throws IOException {
+        long start = System.nanoTime();
+        try {
+            handler.handle(exchange);
+        } finally {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    private void solve(HttpExchange exchange) throws IOException {
+        Map<String, Object> request;
+        try {
+            if ("POST".equals(exchange.getRequestMethod())) {
+                request = Json.parseObject(readBody(exchange.getRequestBody()));
+            } else if ("GET".equals(exchange.getRequestMethod())) {
+                request = queryParameters(exchange);
+            } else {
+                respond(exchange, 405, "application/json", "{\"error\":\"只支持GET和POST\"}");
+                return;
+            }
+            SolveResult result = solver.solve(request);
+            StringBuilder out = new StringBuilder(256).append('{');
+            Json.appendResultFields(out, result, BmSolverServer.language(request.get("text")));
+            respond(exchange, 200, "application/json", out.append('}').toString());
+        } catch (RuntimeException e) {
+            respondError(exchange, e);
+        }
+    }
+
+    private void sweep(HttpExchange exchange) throws IOException {
+        BmSolverSweep.SweepResult result;
+        try {
+            Map<String, Object> request = queryParameters(exchange);
+            double step = request.containsKey("step") ? number(request, "step") : MinecraftPhysicsConstants.BLOCK_SIZE;
+            double maxLength = number(request, "maxLength");
+            int[] angleTypes = list(request, "angleTypes");
+            int[] buildUpAirtimes = list(request, "buildUpAirtimes");
+            int[] jumpAirtimes = list(request, "jumpAirtimes");
+            for (int angleType : angleTypes) {
+                BmSolverServer.checkAngleType("angleTypes", angleType);
+            }
+            for (int airtime : buildUpAirtimes) {
+                BmSolverServer.checkAirtime("buildUpAirtimes", airtime);
+            }
+            for (int airtime : jumpAirtimes) {
+                BmSolverServer.checkAirtime("jumpAirtimes", airtime);
+            }
+            if (maxLength > BmSolverServer.MAX_BUILD_UP_LENGTH) {
+                throw new IllegalArgumentException("maxLength 不能超过" + BmSolverServer.MAX_BUILD_UP_LENGTH + ": " + maxLength);
+            }
+            // 先算格子数再分配助跑长度数组（step很小时个数可能有几十亿）
+            // 用double相乘，避免long溢出
+            double cells = (double) angleTypes.length * buildUpAirtimes.length * jumpAirtimes.length *
+                           BmSolverSweep.lengthCount(step, maxLength);
+            if (cells > MAX_SWEEP_CELLS) {
+                throw new IllegalArgumentException("扫描网格过大: " + (long) cells + "（最多" + MAX_SWEEP_CELLS + "）");
+            }
+            BmSolverSweep sweep = new BmSolverSweep(angleTypes, buildUpAirtimes, jumpAirtimes,
+                                                    BmSolverSweep.lengths(step, maxLength));
+            result = sweep.run();
+        } catch (RuntimeException e) {
+            respondError(exchange, e);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/tab-separated-values; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)) {
+            result.writeTsv(out);
+        }
+    }
+
+    private String latency() {
+        StringBuilder out = new StringBuilder("{\"solve\":");
+        solveLatency.appendJson(out).append(",\"sweep\":");
+        return sweepLatency.appendJson(out).append('}').toString();
+    }
+
+    private String cacheStats() {
+        SolveCache cache = solver.cache();
+        return "{\"size\":" + cache.size() + ",\"capacity\":" + cache.capacity() + ",\"hits\":" + cache.hits() +
+               ",\"misses\":" + cache.misses() + ",\"coalesced\":" + cache.coalesced() +
+               ",\"evictions\":" + cache.evictions() + "}";
+    }
+
+    /**
+     * 查询参数，能解析成数字的值是Double（与Json.parseObject一致），其余是字符串
+     */
+    private static Map<String, Object> queryParameters(HttpExchange exchange) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            try {
+                parameters.put(name, Double.valueOf(value));
+            } catch (NumberFormatException e) {
+                parameters.put(name, value);
+            }
+        }
+        return parameters;
+    }
+
+    private static double number(Map<String, Object> request, String name) {
+        Object value = request.get(name);
+        if (!(value instanceof Double)) {
+            throw new IllegalArgumentException(value == null ? "缺少参数: " + name : name + " 必须是数字");
+        }
+        return (Double) value;
+    }
+
+    /**
+     * "a-b"区间或逗号分隔的整数列表
+     */
+    private static int[] list(Map<String, Object> request, String name) {
+        Object value = request.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("缺少参数: " + name);
+        }
+        String text = value instanceof Double ? String.valueOf(((Double) value).intValue()) : (String) value;
+        try {
+            int dash = text.indexOf('-', 1);
+            if (dash > 0) {
+                int from = Integer.parseInt(text.substring(0, dash).trim());
+                int to = Integer.parseInt(text.substring(dash + 1).trim());
+                if ((long) to - from >= MAX_SWEEP_CELLS) {
+                    throw new IllegalArgumentException(name + " 区间过大: " + text);
+                }
+                return BmSolverSweep.range(from, to);
+            }
+            String[] parts = text.split(",");
+            int[] values = new int[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                values[i] = Integer.parseInt(parts[i].trim());
+            }
+            return values;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " 格式错误: " + text);
+        }
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        in.transferTo(body);
+        return body.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void respondError(HttpExchange exchange, RuntimeException e) throws IOException {
+        StringBuilder out = new StringBuilder("{\"error\":");
+        Json.appendString(out, String.valueOf(e.getMessage()));
+        respond(exchange, 400, "application/json", out.append('}').toString());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        BmSolverHttpServer server = new BmSolverHttpServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        server.solver().warmUp(200);
+        server.start();
+        System.err.println("监听 http://127.0.0.1:" + server.port() + "/");
+    }
+}
@@ -0,0 +1,186 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 反向查询：给定目标距离，找出能跳出这个距离的所有设置（角度、助跑滞空时间、跳跃滞空时间、助跑长度）
+ *
+ * 例如"哪种bm/滞空时间/角度跳4.375的容错最大"，代替手动对整个网格逐个求解。
+ *
+ * 一个设置满足条件：minDistance <= 距离 < maxDistance，并且容错（距离 - minDistance）不小于minPb。
+ * 只给一个目标距离时范围是[目标, 目标 + 0.0625)，这时的容错就是求解结果中的pb。
+ * 结果按容错从大到小排序（相同时助跑长度短的、滞空时间小的在前）。
+ *
+ * 剪枝：角度、助跑滞空时间、助跑长度相同时，距离随跳跃滞空时间单调不减，
+ * 所以对跳跃滞空时间二分查找第一个不小于minDistance的值，然后只向后求解到距离不小于maxDistance为止，
+ * 每组只需要求解log(跳跃滞空时间个数)+匹配个数次，而不是全部。
+ * 距离随助跑长度和助跑滞空时间并不单调（例如跑跳Type 3换成Type 2时距离会变小），不能用来剪枝。
+ *
+ * 角度 × 助跑滞空时间 × 助跑长度的各组互不相关，并行求解（BmSolverEngine是线程安全的）。
+ *
+ * 命令行用法：
+ *   java BmSolverInverse <目标距离> [最大助跑长度=10] [最大滞空时间=12] [最小容错=0] [输出个数=20]
+ */
+public final class BmSolverInverse {
+    private final int[] angleTypes;
+    private final int[] buildUpAirtimes;
+    private final int[] jumpAirtimes;       // 从小到大
+    private final double[] buildUpLengths;
+    private final BmSolverEngine engine;
+    private final AtomicLong solves = new AtomicLong();
+
+    /**
+     * 搜索范围（助跑滞空时间、助跑长度可以是任意集合，跳跃滞空时间会被排序）
+     */
+    public BmSolverInverse(BmSolverEngine engine, int[] angleTypes, int[] buildUpAirtimes, int[] jumpAirtimes,
+                           double[] buildUpLengths) {
+        this.engine = engine;
+        this.angleTypes = angleTypes.clone();
+        this.buildUpAirtimes = buildUpAirtimes.clone();
+        this.jumpAirtimes = jumpAirtimes.clone();
+        Arrays.sort(this.jumpAirtimes);
+        this.buildUpLengths = buildUpLengths.clone();
+    }
+
+    /**
+     * 跳出目标距离（[target, target + 0.0625)）的所有设置，容错就是求解结果的pb
+     */
+    public List<Match> find(double targetDistance, double minPb) {
+        return find(targetDistance, targetDistance + MinecraftPhysicsConstants.BLOCK_SIZE, minPb);
+    }
+
+    /**
+     * 距离在[minDistance, maxDistance)内、容错（距离 - minDistance）不小于minPb的所有设置，按容错从大到小排序
+     */
+    public List<Match> find(double minDistance, double maxDistance, double minPb) {
+        if (!(minDistance < maxDistance)) {
+            throw new IllegalArgumentException("距离范围不对: [" + minDistance + ", " + maxDistance + ")");
+        }
+        int groups = angleTypes.length * buildUpAirtimes.length * buildUpLengths.length;
+        return IntStream.range(0, groups).parallel()
+            .mapToObj(group -> findInGroup(group, minDistance, maxDistance, minPb))
+            .flatMap(List::stream)
+            .sorted(Comparator.comparingDouble((Match match) -> -match.pb)
+                              .thenComparingDouble(match -> match.buildUpLength)
+                              .thenComparingInt(match -> match.buildUpAirtime)
+                              .thenComparingInt(match -> match.jumpAirtime)
+                              .thenComparingInt(match -> match.angleType))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * 一组（角度、助跑滞空时间、助跑长度）中满足条件的跳跃滞空时间
+     */
+    private List<Match> findInGroup(int group, double minDistance, double maxDistance, double minPb) {
+        int angleType = angleTypes[group / (buildUpLengths.length * buildUpAirtimes.length)];
+        int buildUpAirtime = buildUpAirtimes[group / buildUpLengths.length % buildUpAirtimes.length];
+        double buildUpLength = buildUpLengths[group % buildUpLengths.length];
+        SolveResult[] results = new SolveResult[jumpAirtimes.length];
+
+        // 第一个距离不小于minDistance的跳跃滞空时间
+        int low = 0;
+        int high = jumpAirtimes.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (solve(results, middle, angleType, buildUpAirtime, buildUpLength).distance >= minDistance) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (int i = low; i < jumpAirtimes.length; i++) {
+            SolveResult result = solve(results, i, angleType, buildUpAirtime, buildUpLength);
+            if (result.distance >= maxDistance) {
+                break;
+            }
+            double pb = result.distance - minDistance;
+            if (pb >= minPb) {
+                matches.add(new Match(angleType, buildUpAirtime, jumpAirtimes[i], buildUpLength, pb, result));
+            }
+        }
+        return matches;
+    }
+
+    private SolveResult solve(SolveResult[] results, int index, int angleType, int buildUpAirtime,
+                              double buildUpLength) {
+        if (results[index] == null) {
+            results[index] = engine.solve(angleType, buildUpAirtime, jumpAirtimes[index], buildUpLength).result();
+            solves.incrementAndGet();
+        }
+        return results[index];
+    }
+
+    /**
+     * 到目前为止所有查询的求解次数
+     */
+    public long solves() {
+        return solves.get();
+    }
+
+    /**
+     * 不剪枝时需要的求解次数（每个查询）
+     */
+    public long size() {
+        return (long) angleTypes.length * buildUpAirtimes.length * jumpAirtimes.length * buildUpLengths.length;
+    }
+
+    /**
+     * 一个满足条件的设置
+     */
+    public static final class Match {
+        public final int angleType;
+        public final int buildUpAirtime;
+        public final int jumpAirtime;
+        public final double buildUpLength;
+        public final double pb;             // 距离 - minDistance
+        public final SolveResult result;    // 完整求解结果（跳法、loop次数等）
+
+        Match(int angleType, int buildUpAirtime, int jumpAirtime, double buildUpLength, double pb,
+              SolveResult result) {
+            this.angleType = angleType;
+            this.buildUpAirtime = buildUpAirtime;
+            this.jumpAirtime = jumpAirtime;
+            this.buildUpLength = buildUpLength;
+            this.pb = pb;
+            this.result = result;
+        }
+
+        @Override
+        public String toString() {
+            return angleType + "\t" + buildUpAirtime + "\t" + jumpAirtime + "\t" + buildUpLength + "\t" +
+                   result.distance + "\t" + pb + "\t" + result.strategy + "\t" + result.delayed + "\t" + result.jloops;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("用法: java BmSolverInverse <目标距离> [最大助跑长度=10] [最大滞空时间=12] [最小容错=0] [输出个数=20]");
+            return;
+        }
+        double target = Double.parseDouble(args[0]);
+        double maxLength = args.length > 1 ? Double.parseDouble(args[1]) : 10;
+        int maxAirtime = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+        double minPb = args.length > 3 ? Double.parseDouble(args[3]) : 0;
+        int limit = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+
+        BmSolverInverse inverse = new BmSolverInverse(new BmSolverEngine(), BmSolverSweep.range(1, 4),
+                                                      BmSolverSweep.range(1, maxAirtime),
+                                                      BmSolverSweep.range(1, maxAirtime),
+                                                      BmSolverSweep.lengths(MinecraftPhysicsConstants.BLOCK_SIZE,
+                                                                            maxLength));
+        long start = System.nanoTime();
+        List<Match> matches = inverse.find(target, minPb);
+        System.err.println(matches.size() + "个设置, 求解" + inverse.solves() + "次（共" + inverse.size() +
+                           "个格子）, 用时 " + (System.nanoTime() - start) / 1e9 + "s");
+        System.out.println("angleType\tbuildUpAirtime\tjumpAirtime\tbuildUpLength\tdistance\tpb\tstrategy\tdelayed\tjloops");
+        for (Match match : matches.subList(0, Math.min(limit, matches.size()))) {
+            System.out.println(match);
+        }
+    }
+}
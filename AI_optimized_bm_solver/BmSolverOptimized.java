@@ -1,4 +1,7 @@
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * 优化后的BM求解器
@@ -40,10 +43,22 @@ public class BmSolverOptimized {
     private final RunJumpHandler runJumpHandler;
     private final SolverState solverState;
     
+    // 连跳次数范围
+    private static final int MIN_JUMP_COUNT = 2;
+    private static final int MAX_JUMP_COUNT = 100000;  // 不包含
+    
+    // Loop最多次数（超过后退出循环）和快进时检测的最长周期
+    private static final int MAX_LOOPS = 100;
+    private static final int MAX_LOOP_PERIOD = 4;
+    
     // 求解状态
     private double targetBM;              // 目标助跑长度
     private int[] airtimeSequence;        // 滞空时间序列
     private double initialBackwardSpeed; // 初始向后速度
+    private boolean boundedJumpCountSearch = true; // 阶段1是否用指数+二分查找代替逐个扫描
+    private boolean acceleratedLoop = false; // 阶段2是否跳过重复计算和快进周期循环
+    private double startCoord = 0.0;      // 起始坐标（coord2）
+    private double startSpeed = 0.0;      // loop开始时的向后速度
     
     // 结果
     public double distance;               // 最终距离
@@ -53,14 +68,25 @@ public class BmSolverOptimized {
     public int deloops;                   // delay起跳的loop极限
     public int jloops;                    // 达成最远距离的loop极限
     public boolean delayedG;              // 是否使用delayed起跳
+    private SolveResult result;           // 完整结果（见result()）
+    private LoopProfile loopProfile;      // 每次loop的速度和距离（见loopProfile()）
+    private List<SolveCandidate> candidates; // 算出的所有跳法（见candidates()）
     
     public BmSolverOptimized() {
-        this.angleConfig = new AngleConfig();
+        this(new AngleConfig());
+    }
+    
+    /**
+     * 使用给定角度配置的副本
+     * 求解过程中不会修改传入的配置，所以同一个配置可以在多个求解器（多个线程）之间共享
+     */
+    public BmSolverOptimized(AngleConfig angleConfig) {
+        this.angleConfig = new AngleConfig(angleConfig);
         this.blockFixContext = new BlockFixContext();
-        this.physicsCalculator = new PhysicsCalculator(angleConfig, blockFixContext);
-        this.blockFixHandler = new BlockFixHandler(physicsCalculator, blockFixContext, angleConfig);
-        this.jumpOptimizer = new JumpOptimizer(physicsCalculator, blockFixContext, blockFixHandler, angleConfig);
-        this.runJumpHandler = new RunJumpHandler(physicsCalculator, blockFixContext, angleConfig, jumpOptimizer);
+        this.physicsCalculator = new PhysicsCalculator(this.angleConfig, blockFixContext);
+        this.blockFixHandler = new BlockFixHandler(physicsCalculator, blockFixContext, this.angleConfig);
+        this.jumpOptimizer = new JumpOptimizer(physicsCalculator, blockFixContext, blockFixHandler, this.angleConfig);
+        this.runJumpHandler = new RunJumpHandler(physicsCalculator, blockFixContext, this.angleConfig, jumpOptimizer);
         this.solverState = new SolverState();
     }
     
@@ -70,6 +96,93 @@ public class BmSolverOptimized {
     public void setAngleType(int type) {
         angleConfig.setAngleType(type);
     }
+
+    /**
+     * 上一次solve的完整结果（跳法、移动阻断方案、各个速度等），还没有求解时为null
+     */
+    public SolveResult result() {
+        return result;
+    }
+    
+    /**
+     * 上一次solve中每次loop的向后速度和能跳出的距离，还没有求解时为null
+     */
+    public LoopProfile loopProfile() {
+        return loopProfile;
+    }
+    
+    /**
+     * 上一次solve中算出的所有跳法，按距离从远到近排序（见SolveCandidate），还没有求解时为null
+     *
+     * 第一个不一定是result()推荐的跳法：calculateFinalResult保留了原版的比较方式，
+     * 连跳满助跑算出来更远时result()的distance和pb为0（容错在jpb），只要有跑跳就会推荐跑跳。
+     * result()推荐的那一种chosen为true（连跳满助跑时它的distance是实际距离，与result()不同）。
+     */
+    public List<SolveCandidate> candidates() {
+        return candidates;
+    }
+    
+    /**
+     * 设置调试事件输出（默认TraceSink.NOOP，不输出）
+     * 例如setTraceSink(new ConsoleTraceSink())可以看到原来的控制台调试信息
+     */
+    public void setTraceSink(TraceSink trace) {
+        blockFixContext.trace = trace;
+    }
+    
+    /**
+     * 设置起始坐标（对应原coord2，默认0，需要高精度时填）
+     */
+    public void setStartCoord(double coord) {
+        this.startCoord = coord;
+    }
+    
+    /**
+     * 设置loop开始时的向后速度（默认0，即从静止开始）
+     */
+    public void setStartSpeed(double speed) {
+        this.startSpeed = speed;
+    }
+    
+    /**
+     * 设置阶段1是否使用指数+二分查找连跳次数
+     * 关闭后从2开始逐个扫描（原版做法），两种方式的结果完全一致
+     */
+    public void setBoundedJumpCountSearch(boolean value) {
+        this.boundedJumpCountSearch = value;
+    }
+    
+    /**
+     * 设置阶段2是否使用加速的Loop（见optimizeWithLoop）
+     * 结果（包括loop次数）与逐次计算完全一致；开启调试事件输出时不加速
+     */
+    public void setAcceleratedLoop(boolean value) {
+        this.acceleratedLoop = value;
+    }
+    
+    /**
+     * 设置是否使用仿射内核（见AffineJumpKernel）
+     * 长助跑扫描时开启可以大幅减少逐tick计算，结果会有最后几位的浮点误差
+     */
+    public void setUseAffineKernel(boolean value) {
+        physicsCalculator.setUseAffineKernel(value);
+    }
+    
+    /**
+     * 设置是否复用连跳前缀状态（见PhysicsCalculator.JumpState）
+     * 默认开启，结果与逐tick计算完全一致
+     */
+    public void setUseJumpPrefix(boolean value) {
+        physicsCalculator.setUseJumpPrefix(value);
+    }
+    
+    /**
+     * 设置是否先判断速度能否进入移动阻断区间（见PhysicsCalculator.blockWindowReachable）
+     * 默认开启，结果与逐tick检测完全一致
+     */
+    public void setUseBlockBound(boolean value) {
+        physicsCalculator.setUseBlockBound(value);
+    }
     
     /**
      * 主求解函数（对应原single）
@@ -77,7 +190,7 @@ public class BmSolverOptimized {
      * 这是求解器的入口函数，负责协调三个阶段的计算。
      * 
      * 逻辑流程：
-     * 1. 初始化所有状态变量
+     * 1. 初始化所有状态变量（包括上一次solve留下的状态，同一个实例可以连续求解多次）
      * 2. 调用阶段1确定最优连跳次数（同时处理移动阻断和跑跳技术）
      * 3. 调用阶段2进行Loop优化（通过反复向后跳积累速度）
      * 4. 调用阶段3计算最终结果并比较所有方案
@@ -89,11 +202,12 @@ public class BmSolverOptimized {
     public void solve(int buildUpAirtime, int jumpAirtime, double buildUpLength) {
         // 初始化：设置目标bm、初始向后速度为0、起始坐标为0
         targetBM = buildUpLength;
-        initialBackwardSpeed = 0.0;
-        physicsCalculator.setStartCoord(0.0);
+        initialBackwardSpeed = startSpeed;
+        physicsCalculator.setStartCoord(startCoord);
         loops = -1;  // -1表示还未确定
         deloops = 0;  // delayed起跳的loop次数
         jpb = MinecraftPhysicsConstants.INVALID_PB;  // 初始化为无效值
+        resetState();
         
         // 阶段1: 确定最优连跳次数
         // 从2次连跳开始，逐步增加，找到能够达到目标bm的最小连跳次数
@@ -109,11 +223,32 @@ public class BmSolverOptimized {
         calculateFinalResult();
     }
     
+    /**
+     * 清除上一次solve留下的中间结果和输出，回到新建求解器时的状态
+     * （设置项、调试事件输出和连跳前缀缓存保留，前缀缓存按滞空时间、角度和起点区分）
+     */
+    private void resetState() {
+        solverState.reset();
+        blockFixContext.reset();
+        physicsCalculator.setDelayedNotEnough(false);
+        jumpOptimizer.forwardJumpPlan = 0;
+        jumpOptimizer.backwardJumpPlan = 0;
+        blockFixHandler.lastPlan = 0;
+        distance = 0;
+        pb = 0;
+        jloops = 0;
+        delayedG = false;
+        result = null;
+        loopProfile = null;
+        candidates = null;
+    }
+    
     /**
      * 阶段1: 确定最优连跳次数（对应原single中的144-339行）
      * 
      * 这个阶段的逻辑是：
      * 1. 从2次连跳开始，逐步增加连跳次数
+     *    （默认先用指数+二分查找跳过不会影响结果的连跳次数，见findReplayStart）
      * 2. 对每个连跳次数，创建滞空时间序列（前面的都是助跑滞空时间，最后一个是跳跃滞空时间）
      * 3. 计算达到目标bm所需的最小向后速度（使用线性插值）
      * 4. 如果向后速度落入移动阻断区间（-0.0091...到0之间），使用Plan 4和Plan 5处理
@@ -124,42 +259,127 @@ public class BmSolverOptimized {
      * @param jumpAirtime 跳跃的滞空时间
      */
     private void findOptimalJumpSequence(int buildUpAirtime, int jumpAirtime) {
-        // 从2次连跳开始，逐步增加连跳次数，直到无法达到目标或达到上限
-        for (int jumpCount = 2; jumpCount < 100000; jumpCount++) {
-            // 创建滞空时间序列：前面的都是助跑滞空时间，最后一个是跳跃滞空时间
-            // 例如：如果jumpCount=3, buildUpAirtime=12, jumpAirtime=22
-            // 则sequence = [12, 12, 22]
-            int[] sequence = new int[jumpCount];
-            Arrays.fill(sequence, buildUpAirtime);
-            sequence[jumpCount - 1] = jumpAirtime;
-            airtimeSequence = sequence;
-            physicsCalculator.setAirtimeSequence(sequence);
-            
-            // 使用线性插值计算达到目标bm所需的最小向后速度
-            // 原理：计算s0=0和s0=-1时的bm，然后线性插值找到使bm=targetBM的s0
-            double backwardSpeedNonDelayed = findRequiredBackwardSpeed(targetBM, false);
-            double backwardSpeedDelayed = findRequiredBackwardSpeed(targetBM, true);
-            
-            // 如果向后速度落入移动阻断区间（-0.0091...到0之间），需要特殊处理
-            // 移动阻断是MC的一个机制：当速度在很小的范围内时，会被重置为0
-            // 这里使用Plan 4和Plan 5两种方案来处理
-            handleBlockFixForSequence(backwardSpeedNonDelayed, backwardSpeedDelayed);
-            
-            // 如果向后速度<=0，说明即使向后速度为0也无法达到目标，退出循环
-            if (backwardSpeedNonDelayed <= 0) {
+        int firstJumpCount = MIN_JUMP_COUNT;
+        if (boundedJumpCountSearch) {
+            firstJumpCount = findReplayStart(buildUpAirtime, jumpAirtime);
+        }
+        
+        // 从firstJumpCount开始，逐步增加连跳次数，直到无法达到目标或达到上限
+        for (int jumpCount = firstJumpCount; jumpCount < MAX_JUMP_COUNT; jumpCount++) {
+            if (scanJumpCount(jumpCount, buildUpAirtime, jumpAirtime)) {
                 break;
             }
-            
-            // 如果delayed的向后速度<=0，标记delayedNotEnough
-            // 这会影响后续计算中是否跳过第一个连跳
-            if (backwardSpeedDelayed <= 0) {
-                physicsCalculator.setDelayedNotEnough(true);
+        }
+    }
+    
+    /**
+     * 处理单个连跳次数（阶段1的循环体）
+     * 
+     * @param jumpCount 连跳次数
+     * @param buildUpAirtime 助跑上的滞空时间
+     * @param jumpAirtime 跳跃的滞空时间
+     * @return 是否应该退出循环（向后速度<=0）
+     */
+    private boolean scanJumpCount(int jumpCount, int buildUpAirtime, int jumpAirtime) {
+        // 创建滞空时间序列：前面的都是助跑滞空时间，最后一个是跳跃滞空时间
+        // 例如：如果jumpCount=3, buildUpAirtime=12, jumpAirtime=22
+        // 则sequence = [12, 12, 22]
+        setJumpCount(jumpCount, buildUpAirtime, jumpAirtime);
+        
+        // 使用线性插值计算达到目标bm所需的最小向后速度
+        // 原理：计算s0=0和s0=-1时的bm，然后线性插值找到使bm=targetBM的s0
+        double backwardSpeedNonDelayed = findRequiredBackwardSpeed(targetBM, false);
+        double backwardSpeedDelayed = findRequiredBackwardSpeed(targetBM, true);
+        
+        // 如果向后速度落入移动阻断区间（-0.0091...到0之间），需要特殊处理
+        // 移动阻断是MC的一个机制：当速度在很小的范围内时，会被重置为0
+        // 这里使用Plan 4和Plan 5两种方案来处理
+        handleBlockFixForSequence(backwardSpeedNonDelayed, backwardSpeedDelayed);
+        
+        // 如果向后速度<=0，说明即使向后速度为0也无法达到目标，退出循环
+        if (backwardSpeedNonDelayed <= 0) {
+            return true;
+        }
+        
+        // 如果delayed的向后速度<=0，标记delayedNotEnough
+        // 这会影响后续计算中是否跳过第一个连跳
+        if (backwardSpeedDelayed <= 0) {
+            physicsCalculator.setDelayedNotEnough(true);
+        }
+        
+        // 尝试跑跳技术：起跳前跑1tick，看是否能获得更优结果
+        // 跑跳技术有三种类型，会根据情况自动选择
+        handleRunJumpTechniques(backwardSpeedNonDelayed, backwardSpeedDelayed);
+        return false;
+    }
+    
+    /**
+     * 设置连跳次数对应的滞空时间序列
+     */
+    private void setJumpCount(int jumpCount, int buildUpAirtime, int jumpAirtime) {
+        int[] sequence = new int[jumpCount];
+        Arrays.fill(sequence, buildUpAirtime);
+        sequence[jumpCount - 1] = jumpAirtime;
+        airtimeSequence = sequence;
+        physicsCalculator.setAirtimeSequence(sequence);
+    }
+    
+    /**
+     * 用指数+二分查找确定逐个扫描的起点
+     * 
+     * 所需向后速度随连跳次数单调递减，所以：
+     * - breakCount：第一个非delayed向后速度<=0的连跳次数（原循环在这里退出）
+     * - delayedCount：第一个delayed向后速度<=0的连跳次数（之后会标记delayedNotEnough）
+     * 都可以用O(log n)次模拟找到。
+     * 
+     * 原循环中每个连跳次数都会覆盖上一次记录的结果，所以只有最后写入的才有效：
+     * - 非delayed阻断处理：只可能在breakCount（向后速度<0）
+     * - delayed阻断处理：只可能在delayedCount之后
+     * - 非delayed跑跳：判断条件随连跳次数单调，最后一次在breakCount-1
+     * - delayed跑跳：要求delayed向后速度>0，最后一次在min(breakCount, delayedCount)-1
+     * 因此从min(breakCount, delayedCount)-1开始逐个扫描，得到的结果与从2开始扫描完全一致。
+     * 
+     * @return 逐个扫描的起始连跳次数
+     */
+    private int findReplayStart(int buildUpAirtime, int jumpAirtime) {
+        int breakCount = findFirstNonPositive(buildUpAirtime, jumpAirtime, false, MAX_JUMP_COUNT - 1);
+        int delayedCount = findFirstNonPositive(buildUpAirtime, jumpAirtime, true, breakCount);
+        return Math.max(MIN_JUMP_COUNT, Math.min(breakCount, delayedCount) - 1);
+    }
+    
+    /**
+     * 找到第一个所需向后速度<=0的连跳次数（先指数增长，再二分）
+     * 
+     * @param limit 查找上限（包含）
+     * @return 第一个向后速度<=0的连跳次数，如果不存在返回limit+1
+     */
+    private int findFirstNonPositive(int buildUpAirtime, int jumpAirtime, boolean delayed, int limit) {
+        int low = MIN_JUMP_COUNT - 1;  // 已知向后速度>0的最大连跳次数
+        int high = MIN_JUMP_COUNT;     // 待检查的连跳次数
+        while (true) {
+            if (high > limit) {
+                high = limit + 1;
+                break;
             }
-            
-            // 尝试跑跳技术：起跳前跑1tick，看是否能获得更优结果
-            // 跑跳技术有三种类型，会根据情况自动选择
-            handleRunJumpTechniques(backwardSpeedNonDelayed, backwardSpeedDelayed);
+            setJumpCount(high, buildUpAirtime, jumpAirtime);
+            if (findRequiredBackwardSpeed(targetBM, delayed) <= 0) {
+                break;
+            }
+            low = high;
+            high = MIN_JUMP_COUNT + 2 * (high - MIN_JUMP_COUNT) + 1;
         }
+        
+        // 二分：low处>0，high处<=0（或超出上限）
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            setJumpCount(middle, buildUpAirtime, jumpAirtime);
+            if (findRequiredBackwardSpeed(targetBM, delayed) <= 0) {
+                high = middle;
+            } else {
+                low = middle;
+            }
+        }
+        return high;
     }
     
     /**
@@ -237,7 +457,9 @@ public class BmSolverOptimized {
             blockFixContext.fixPlan = 5;
             double testBackwardSpeed = Math.min(-MinecraftPhysicsConstants.BLOCK_THRESHOLD_GROUND, backwardSpeedNonDelayed);
             physicsCalculator.calculateJumpBM(testBackwardSpeed, false);
-            System.out.println("p1: " + maxJumpSpeed + " p2: " + physicsCalculator.tempV0);
+            if (blockFixContext.trace.enabled()) {
+                blockFixContext.trace.event(TraceEvent.BLOCK_FIX_PLAN_SPEEDS, maxJumpSpeed, physicsCalculator.tempV0);
+            }
             
             if (physicsCalculator.tempV0 > maxJumpSpeed) {
                 solverState.blockFixPlan = 2;
@@ -363,12 +585,23 @@ public class BmSolverOptimized {
      * 收敛条件：
      * - 当前向后速度和bm与上一次相同
      * - 或loop次数超过100
+     * 
+     * 加速（setAcceleratedLoop）：
+     * loop次数、jloops等都取决于每一次的速度，所以不能用外推直接跳到极限速度，
+     * 只跳过结果已知的计算：
+     * - 循环开头delayed的向前bm就是上一次末尾用同一个速度算过的值
+     * - 满助跑检查的两个起跳速度与上一次相同时，结果也相同，不会更新jloops/jpb
+     * - 速度在最后几位来回跳（周期2~4）时不会收敛，原版要一直算到100次；
+     *   检测到整个状态与一个周期前相同，并且这个周期内没有更新任何结果后，
+     *   直接快进整数个周期（loops按周期内最后一次增加的位置推算），最后不足一个周期的部分照常计算
      */
     private void optimizeWithLoop() {
         // 计算BWMM速度（对应原342-343行）
         double bwSpeed = findRequiredBackwardSpeed(targetBM, false);
         double deBwSpeed = findRequiredBackwardSpeed(targetBM, true);
-        System.out.println("d " + bwSpeed);
+        if (blockFixContext.trace.enabled()) {
+            blockFixContext.trace.event(TraceEvent.LOOP_SPEED_LIMIT, bwSpeed);
+        }
         
         double currentBackwardSpeed = initialBackwardSpeed;
         double previousBackwardSpeed = 0;
@@ -382,15 +615,37 @@ public class BmSolverOptimized {
         boolean useDelayedJump = true;       // 是否使用delayed起跳
         boolean fullBuildUpUseDelayed = true; // 连跳满助跑时是否使用delayed
         double maxFullBuildUpDistance = 0;   // 连跳满助跑时的最大距离
+        double fullBuildUpPB = 0;            // 连跳满助跑时最大距离的容错
+        
+        // 每次loop的速度和距离（见LoopProfile）
+        double[] loopSpeeds = new double[MAX_LOOPS + 2];
+        double[] loopDistances = new double[MAX_LOOPS + 2];
+        double[] loopPBs = new double[MAX_LOOPS + 2];
+        double jumpDistance = 0;             // 这次loop的速度能跳出的最远距离（没有检查时沿用上一次）
+        double jumpPB = 0;
         
         deloops = 0;
         
+        // 加速用的状态（见方法注释）
+        boolean accelerated = acceleratedLoop && !blockFixContext.trace.enabled();
+        double delayedFrontBM = 0;           // 上一次末尾算出的delayed向前bm（速度为currentBackwardSpeed）
+        double testedSpeed = Double.NaN;      // 上一次满助跑检查用的两个向后速度（没有检查时为NaN）
+        double deTestedSpeed = Double.NaN;
+        double[] bmHistory = accelerated ? new double[MAX_LOOPS + 2] : null;
+        double[] forwardHistory = accelerated ? new double[MAX_LOOPS + 2] : null;
+        boolean[] loopsIncreased = accelerated ? new boolean[MAX_LOOPS + 2] : null;
+        int lastUpdate = 0;                   // 最近一次更新jloops/满助跑结果时的loop次数
+        boolean fastForwarded = false;
+        
         // Loop优化循环（对应原357-453行）
         while (true) {
             // 检测loop时的delayed状态下，当前bw速度是否能够做到完整助跑
-            double backToFrontBM = jumpOptimizer.convertBackSpeedToFrontBM(currentBackwardSpeed, true);
+            double backToFrontBM = accelerated && deloops > 0 ? delayedFrontBM :
+                                   jumpOptimizer.convertBackSpeedToFrontBM(currentBackwardSpeed, true);
             if (backToFrontBM >= targetBM) {
-                System.out.println("Delayed时已经用满助跑，已获得最大bwmm速度，无需再loop");
+                if (blockFixContext.trace.enabled()) {
+                    blockFixContext.trace.event(TraceEvent.LOOP_DELAYED_FULL_BUILD_UP);
+                }
                 double bmAtMinSpeed = physicsCalculator.calculateBackToFrontUnit(-1.0, true);
                 double bmAtMaxSpeed = physicsCalculator.calculateBackToFrontUnit(1.0, true);
                 double calculatedLandSpeed = 2 * ((targetBM - bmAtMinSpeed) / (bmAtMaxSpeed - bmAtMinSpeed)) - 1;
@@ -401,39 +656,63 @@ public class BmSolverOptimized {
                 currentBackwardSpeed = -jumpOptimizer.optimizeBackwardJump(targetBM, currentBackwardSpeed);
             }
             
-            System.out.println("s0 " + currentBackwardSpeed);
+            if (blockFixContext.trace.enabled()) {
+                blockFixContext.trace.event(TraceEvent.LOOP_BACKWARD_SPEED, currentBackwardSpeed);
+            }
             currentBM = physicsCalculator.tempBM;
             forwardJumpSpeed = jumpOptimizer.optimizeForwardJump(currentBM, currentBackwardSpeed);
             
             if (previousForwardJumpSpeed < forwardJumpSpeed) {
                 loops = deloops;
+                if (accelerated) {
+                    loopsIncreased[deloops] = true;
+                }
             }
             
             // 检查是否可以用满助跑（对应原385-405行）
-            if (fullBuildUpJumpSpeed == 0) {
-                double testJumpSpeed = currentBackwardSpeed > bwSpeed ? currentBackwardSpeed : bwSpeed;
-                testJumpSpeed = jumpOptimizer.optimizeForwardJump(targetBM, testJumpSpeed);
+            // 加速时，两个起跳速度都与上一次检查相同则结果也相同，跳过
+            double testSpeed = currentBackwardSpeed > bwSpeed ? currentBackwardSpeed : bwSpeed;
+            double deTestSpeed = currentBackwardSpeed > deBwSpeed ? currentBackwardSpeed : deBwSpeed;
+            boolean sameTest = accelerated && sameBits(testSpeed, testedSpeed) && sameBits(deTestSpeed, deTestedSpeed);
+            testedSpeed = Double.NaN;
+            deTestedSpeed = Double.NaN;
+            if (fullBuildUpJumpSpeed == 0 && !sameTest) {
+                testedSpeed = testSpeed;
+                deTestedSpeed = deTestSpeed;
+                double testJumpSpeed = jumpOptimizer.optimizeForwardJump(targetBM, testSpeed);
                 PhysicsCalculator.JumpResult result = physicsCalculator.calculateFinalJump(testJumpSpeed, false);
+                jumpDistance = result.distance;
+                jumpPB = result.pb;
                 if (result.distance - result.pb > maxJumpDistance) {
                     maxJumpDistance = result.distance - result.pb;
                     jloops = deloops;
                     jpb = result.pb;
+                    lastUpdate = deloops;
                 }
                 
-                testJumpSpeed = currentBackwardSpeed > deBwSpeed ? currentBackwardSpeed : deBwSpeed;
-                result = physicsCalculator.calculateFinalJump(-testJumpSpeed, true);
+                result = physicsCalculator.calculateFinalJump(-deTestSpeed, true);
+                if (result.distance > jumpDistance) {
+                    jumpDistance = result.distance;
+                    jumpPB = result.pb;
+                }
                 if (result.distance - result.pb > maxJumpDistance) {
                     maxJumpDistance = result.distance - result.pb;
                     jloops = deloops;
                     jpb = result.pb;
+                    lastUpdate = deloops;
                 }
             }
             
-            System.out.println("s0: " + currentBackwardSpeed + " sbm: " + jumpOptimizer.convertBackSpeedToFrontBM(currentBackwardSpeed, false));
+            if (blockFixContext.trace.enabled()) {
+                blockFixContext.trace.event(TraceEvent.LOOP_FRONT_BM, currentBackwardSpeed,
+                                            jumpOptimizer.convertBackSpeedToFrontBM(currentBackwardSpeed, false));
+            }
             
             // 检查非delayed是否可以用满助跑（对应原409-425行）
             if (jumpOptimizer.convertBackSpeedToFrontBM(currentBackwardSpeed, false) >= targetBM) {
-                System.out.println("连跳已经可以用满助跑，无需再获得更高bwmm速度了");
+                if (blockFixContext.trace.enabled()) {
+                    blockFixContext.trace.event(TraceEvent.LOOP_FULL_BUILD_UP);
+                }
                 double bmAtMinSpeed = physicsCalculator.calculateBackToFrontUnit(-1.0, false);
                 double bmAtMaxSpeed = physicsCalculator.calculateBackToFrontUnit(1.0, false);
                 double calculatedLandSpeed = 2 * ((targetBM - bmAtMinSpeed) / (bmAtMaxSpeed - bmAtMinSpeed)) - 1;
@@ -446,11 +725,14 @@ public class BmSolverOptimized {
                     fullBuildUpJumpSpeed = physicsCalculator.tempV0;
                     fullBuildUpUseDelayed = false;
                     optimalLandSpeed = calculatedLandSpeed;
+                    fullBuildUpPB = result.pb;
+                    lastUpdate = deloops;
                 }
             }
             
             // 检查delayed是否可以用满助跑（对应原427-442行）
-            if (jumpOptimizer.convertBackSpeedToFrontBM(currentBackwardSpeed, true) >= targetBM) {
+            delayedFrontBM = jumpOptimizer.convertBackSpeedToFrontBM(currentBackwardSpeed, true);
+            if (delayedFrontBM >= targetBM) {
                 double bmAtMinSpeed = physicsCalculator.calculateBackToFrontUnit(-1.0, true);
                 double bmAtMaxSpeed = physicsCalculator.calculateBackToFrontUnit(1.0, true);
                 double calculatedLandSpeed = 2 * ((targetBM - bmAtMinSpeed) / (bmAtMaxSpeed - bmAtMinSpeed)) - 1;
@@ -462,14 +744,48 @@ public class BmSolverOptimized {
                     fullBuildUpJumpSpeed = physicsCalculator.tempV0;
                     fullBuildUpUseDelayed = true;
                     optimalLandSpeed = calculatedLandSpeed;
+                    fullBuildUpPB = result.pb;
+                    lastUpdate = deloops;
                 }
             }
             
+            loopSpeeds[deloops] = currentBackwardSpeed;
+            loopDistances[deloops] = jumpDistance;
+            loopPBs[deloops] = jumpPB;
+            if (maxFullBuildUpDistance > jumpDistance) {
+                loopDistances[deloops] = maxFullBuildUpDistance;
+                loopPBs[deloops] = fullBuildUpPB;
+            }
+            
             // 检查收敛条件（对应原445-452行）
-            if ((previousBackwardSpeed == currentBackwardSpeed && previousBM == currentBM) || deloops > 100) {
+            if ((previousBackwardSpeed == currentBackwardSpeed && previousBM == currentBM) || deloops > MAX_LOOPS) {
                 break;
             }
             
+            if (accelerated) {
+                bmHistory[deloops] = currentBM;
+                forwardHistory[deloops] = forwardJumpSpeed;
+                int period = fastForwarded ? 0 : findLoopPeriod(loopSpeeds, bmHistory, forwardHistory,
+                                                                 deloops, lastUpdate);
+                int periods = period > 0 ? (MAX_LOOPS - deloops) / period : 0;
+                if (periods > 0) {
+                    // 之后的每一次都与一个周期前完全相同，快进到最后一个完整周期的末尾
+                    for (int i = deloops; i > deloops - period; i--) {
+                        if (loopsIncreased[i]) {
+                            loops = i + periods * period;
+                            break;
+                        }
+                    }
+                    for (int i = deloops + 1; i <= deloops + periods * period; i++) {
+                        loopSpeeds[i] = loopSpeeds[i - period];
+                        loopDistances[i] = loopDistances[i - period];
+                        loopPBs[i] = loopPBs[i - period];
+                    }
+                    deloops += periods * period;
+                    fastForwarded = true;
+                }
+            }
+            
             deloops++;
             previousBackwardSpeed = currentBackwardSpeed;
             previousBM = currentBM;
@@ -479,6 +795,9 @@ public class BmSolverOptimized {
         if (loops < 0) {
             loops = deloops;
         }
+        loopProfile = new LoopProfile(Arrays.copyOf(loopSpeeds, deloops + 1),
+                                      Arrays.copyOf(loopDistances, deloops + 1),
+                                      Arrays.copyOf(loopPBs, deloops + 1));
         
         // 保存Loop优化结果
         solverState.landSpeed = optimalLandSpeed;
@@ -490,6 +809,26 @@ public class BmSolverOptimized {
         this.currentBackwardSpeed = currentBackwardSpeed;
     }
     
+    /**
+     * Loop的周期：第n次结束时的状态（向后速度、bm、向前跳速度）与第n-period次完全相同，
+     * 并且这之间没有更新过结果（lastUpdate <= n-period）；没有找到时返回0
+     * 周期1就是收敛，由原来的收敛条件处理，这里从2开始找
+     */
+    private static int findLoopPeriod(double[] speeds, double[] bms, double[] forwardSpeeds, int n, int lastUpdate) {
+        for (int period = 2; period <= MAX_LOOP_PERIOD && n - period >= lastUpdate; period++) {
+            int m = n - period;
+            if (sameBits(speeds[n], speeds[m]) && sameBits(bms[n], bms[m]) &&
+                sameBits(forwardSpeeds[n], forwardSpeeds[m])) {
+                return period;
+            }
+        }
+        return 0;
+    }
+    
+    private static boolean sameBits(double a, double b) {
+        return Double.doubleToRawLongBits(a) == Double.doubleToRawLongBits(b);
+    }
+    
     // Loop优化过程中的临时变量
     private double fullBuildUpJumpSpeed = 0;     // 连跳满助跑时的起跳速度
     private boolean fullBuildUpUseDelayed = true; // 连跳满助跑时是否使用delayed
@@ -524,13 +863,21 @@ public class BmSolverOptimized {
      */
     private void calculateFinalResult() {
         blockFixContext.finals = true;
-        System.out.println("fbws " + bwSpeed);
+        if (blockFixContext.trace.enabled()) {
+            blockFixContext.trace.event(TraceEvent.FINAL_SPEED_LIMIT, bwSpeed);
+        }
         
         double finalJumpSpeed = 0;                    // 最终起跳速度
         double nonDelayedJumpDistance = 0;            // 非delayed起跳的距离
         double nonDelayedJumpPB = -1;                  // 非delayed起跳的容错
         double delayedJumpDistance = 0;               // delayed起跳的距离
         double delayedJumpPB = -1;                     // delayed起跳的容错
+        List<SolveCandidate> candidates = new ArrayList<>(5);
+        SolveCandidate nonDelayedCandidate = null;
+        SolveCandidate delayedCandidate = null;
+        SolveCandidate fullBuildUpCandidate = null;
+        SolveCandidate runJumpCandidate = null;
+        SolveCandidate delayedRunJumpCandidate = null;
         
         // 计算非delayed起跳的距离（对应原465-492行）
         if (!solverState.infill) {
@@ -538,15 +885,23 @@ public class BmSolverOptimized {
             currentBackwardSpeed = currentBackwardSpeed > bwSpeed ? currentBackwardSpeed : bwSpeed;
             
             if (currentBackwardSpeed <= bwSpeed) {
-                System.out.println("bwmm/loop已经可以达到极限收益，bwmm/loop有限次数即可");
+                if (blockFixContext.trace.enabled()) {
+                    blockFixContext.trace.event(TraceEvent.FINAL_LOOP_LIMITED);
+                }
+            }
+            if (blockFixContext.trace.enabled()) {
+                blockFixContext.trace.event(TraceEvent.FINAL_BACKWARD_SPEED, targetBM, currentBackwardSpeed);
             }
-            System.out.println("bm " + targetBM + " s0 " + currentBackwardSpeed);
             currentBackwardSpeed = jumpOptimizer.optimizeForwardJump(targetBM, currentBackwardSpeed);
             finalJumpSpeed = currentBackwardSpeed;
-            System.out.println("Jump s0: " + currentBackwardSpeed);
+            if (blockFixContext.trace.enabled()) {
+                blockFixContext.trace.event(TraceEvent.FINAL_JUMP_SPEED, currentBackwardSpeed);
+            }
             PhysicsCalculator.JumpResult result = physicsCalculator.calculateFinalJump(currentBackwardSpeed, false);
             blockFixContext.finals = false;
-            System.out.println("normal D: " + result.distance);
+            if (blockFixContext.trace.enabled()) {
+                blockFixContext.trace.event(TraceEvent.FINAL_NORMAL_DISTANCE, result.distance);
+            }
             
             nonDelayedJumpDistance = result.distance;
             nonDelayedJumpPB = result.pb;
@@ -558,8 +913,16 @@ public class BmSolverOptimized {
                 finalJumpSpeed = solverState.blockFixJumpSpeed;
                 loops = 0;
             }
-            System.out.println(nonDelayedJumpDistance + " instant jump");
+            if (blockFixContext.trace.enabled()) {
+                blockFixContext.trace.event(TraceEvent.INSTANT_JUMP_DISTANCE, nonDelayedJumpDistance);
+            }
             currentBackwardSpeed = savedBackwardSpeed;
+            nonDelayedCandidate = new SolveCandidate(loops > 0 ? SolveResult.Strategy.LOOP : SolveResult.Strategy.BWMM,
+                                              false, nonDelayedJumpDistance, nonDelayedJumpPB, loops,
+                                              jumpOptimizer.forwardJumpPlan, solverState.blockFixPlan,
+                                              currentBackwardSpeed > bwSpeed ? currentBackwardSpeed : bwSpeed,
+                                              0, finalJumpSpeed, false);
+            candidates.add(nonDelayedCandidate);
         } else {
             finalJumpSpeed = solverState.inspeed;
         }
@@ -570,6 +933,7 @@ public class BmSolverOptimized {
             currentBackwardSpeed = currentBackwardSpeed > deBwSpeed ? currentBackwardSpeed : deBwSpeed;
             currentBackwardSpeed = jumpOptimizer.optimizeBackwardJump(targetBM, currentBackwardSpeed);
             PhysicsCalculator.JumpResult result = physicsCalculator.calculateFinalJump(currentBackwardSpeed, true);
+            double delayedJumpSpeed = currentBackwardSpeed;
             
             delayedJumpDistance = result.distance;
             delayedJumpPB = result.pb;
@@ -578,11 +942,20 @@ public class BmSolverOptimized {
             if (solverState.delayedBlockFixPB > -1) {
                 delayedJumpDistance = solverState.delayedBlockFixDistance;
                 delayedJumpPB = solverState.delayedBlockFixPB;
+                delayedJumpSpeed = solverState.delayedBlockFixJumpSpeed;
                 deloops = 0;
             }
             
-            System.out.println(delayedJumpDistance + " delayed jump");
+            if (blockFixContext.trace.enabled()) {
+                blockFixContext.trace.event(TraceEvent.DELAYED_JUMP_DISTANCE, delayedJumpDistance);
+            }
             currentBackwardSpeed = savedBackwardSpeed;
+            delayedCandidate = new SolveCandidate(deloops > 0 ? SolveResult.Strategy.LOOP : SolveResult.Strategy.BWMM,
+                                              true, delayedJumpDistance, delayedJumpPB, deloops,
+                                              jumpOptimizer.backwardJumpPlan, solverState.delayedBlockFixPlan,
+                                              currentBackwardSpeed > deBwSpeed ? currentBackwardSpeed : deBwSpeed,
+                                              0, delayedJumpSpeed, false);
+            candidates.add(delayedCandidate);
         }
         
         // 比较两种起跳方式（对应原511-523行）
@@ -603,6 +976,17 @@ public class BmSolverOptimized {
         // 处理连跳满助跑的情况（对应原524-538行）
         if (fullBuildUpJumpSpeed != 0) {
             PhysicsCalculator.JumpResult result = physicsCalculator.calculateFinalJump(fullBuildUpJumpSpeed, fullBuildUpUseDelayed);
+            double fullBuildUpLimit = fullBuildUpUseDelayed ? deBwSpeed : bwSpeed;
+            fullBuildUpCandidate = new SolveCandidate(SolveResult.Strategy.FULL_BUILD_UP, fullBuildUpUseDelayed,
+                                              result.distance, result.pb, fullBuildUpUseDelayed ? deloops : loops,
+                                              fullBuildUpUseDelayed ? jumpOptimizer.backwardJumpPlan
+                                                                    : jumpOptimizer.forwardJumpPlan,
+                                              fullBuildUpUseDelayed ? solverState.delayedBlockFixPlan
+                                                                    : solverState.blockFixPlan,
+                                              currentBackwardSpeed > fullBuildUpLimit ? currentBackwardSpeed
+                                                                                      : fullBuildUpLimit,
+                                              solverState.landSpeed, fullBuildUpJumpSpeed, false);
+            candidates.add(fullBuildUpCandidate);
             if (nonDelayedJumpDistance < result.distance || delayedG == fullBuildUpUseDelayed) {
                 jpb = result.pb;
             } else {
@@ -615,9 +999,27 @@ public class BmSolverOptimized {
             pb = nonDelayedJumpPB;
         }
         
+        // 跑跳（没有算出时类型为0）
+        if (solverState.runJumpType != 0) {
+            runJumpCandidate = new SolveCandidate(SolveResult.Strategy.runJump(solverState.runJumpType), false,
+                                              solverState.runJumpDistance, solverState.runJumpPB, 0, 0, -1, 0,
+                                              solverState.runJumpSpeed, solverState.runJumpStartSpeed, false);
+            candidates.add(runJumpCandidate);
+        }
+        if (solverState.delayedRunJumpType != 0) {
+            delayedRunJumpCandidate = new SolveCandidate(SolveResult.Strategy.runJump(solverState.delayedRunJumpType),
+                                              true, solverState.delayedRunJumpDistance, solverState.delayedRunJumpPB,
+                                              0, 0, -1, 0, solverState.delayedRunJumpSpeed,
+                                              solverState.delayedRunJumpStartSpeed, false);
+            candidates.add(delayedRunJumpCandidate);
+        }
+        
         // 与跑跳技术比较（对应原539-562行）
+        int runJumpType = 0;
         if (distance < solverState.runJumpDistance || distance < solverState.delayedRunJumpDistance) {
-            System.out.println("跑几t再起跳的跳法比后跳更优");
+            if (blockFixContext.trace.enabled()) {
+                blockFixContext.trace.event(TraceEvent.RUN_JUMP_BETTER);
+            }
             if (solverState.runJumpDistance > solverState.delayedRunJumpDistance) {
                 distance = solverState.runJumpDistance;
                 pb = solverState.runJumpPB;
@@ -626,7 +1028,10 @@ public class BmSolverOptimized {
                 delayedG = false;
                 solverState.landSpeed = solverState.runJumpSpeed;
                 finalJumpSpeed = solverState.runJumpStartSpeed;
-                System.out.println("起跳时不跑的跑nt跳法更优，跳法种类: " + solverState.runJumpType);
+                runJumpType = solverState.runJumpType;
+                if (blockFixContext.trace.enabled()) {
+                    blockFixContext.trace.event(TraceEvent.RUN_JUMP_TYPE, solverState.runJumpType);
+                }
             } else {
                 distance = solverState.delayedRunJumpDistance;
                 pb = solverState.delayedRunJumpPB;
@@ -635,44 +1040,101 @@ public class BmSolverOptimized {
                 delayedG = true;
                 solverState.landSpeed = solverState.delayedRunJumpSpeed;
                 finalJumpSpeed = solverState.delayedRunJumpStartSpeed;
-                System.out.println("起跳时跑的跑nt跳法更优，跳法种类: " + solverState.delayedRunJumpType);
+                runJumpType = solverState.delayedRunJumpType;
+                if (blockFixContext.trace.enabled()) {
+                    blockFixContext.trace.event(TraceEvent.DELAYED_RUN_JUMP_TYPE, solverState.delayedRunJumpType);
+                }
             }
         }
         
         // 输出最终结果（对应原567-582行）
         if (pb != jpb && fullBuildUpJumpSpeed == 0) {
-            System.out.println("BMlooped: " + (delayedG ? deloops : loops) + ", max BWspeed: " + currentBackwardSpeed + 
-                             ", noDelayv0: " + finalJumpSpeed + ", Maxpb: " + pb);
+            if (blockFixContext.trace.enabled()) {
+                blockFixContext.trace.event(TraceEvent.SUMMARY_MAX_SPEED, delayedG ? deloops : loops,
+                                            currentBackwardSpeed, finalJumpSpeed, pb);
+            }
         } else if (fullBuildUpJumpSpeed == 0) {
-            System.out.println("BMloop times: " + (delayedG ? deloops : loops) + ", speed: " + 
-                             (delayedG ? deBwSpeed : bwSpeed) + ", noDelayv0: " + finalJumpSpeed + ", Maxpb: " + pb);
+            if (blockFixContext.trace.enabled()) {
+                blockFixContext.trace.event(TraceEvent.SUMMARY_SPEED, delayedG ? deloops : loops,
+                                            delayedG ? deBwSpeed : bwSpeed, finalJumpSpeed, pb);
+            }
         } else if (!(distance == solverState.runJumpDistance || distance == solverState.delayedRunJumpDistance)) {
-            System.out.println("BMloop times: " + (delayedG ? deloops : loops) + ", landspeed: " + 
-                             solverState.landSpeed + ", noDelayv0: " + finalJumpSpeed + ", Maxpb: " + pb);
+            if (blockFixContext.trace.enabled()) {
+                blockFixContext.trace.event(TraceEvent.SUMMARY_LAND_SPEED, delayedG ? deloops : loops,
+                                            solverState.landSpeed, finalJumpSpeed, pb);
+            }
         } else {
-            System.out.println("runSpeed: " + solverState.landSpeed + ", startv0: " + finalJumpSpeed + ", Maxpb: " + pb);
+            if (blockFixContext.trace.enabled()) {
+                blockFixContext.trace.event(TraceEvent.SUMMARY_RUN_JUMP, solverState.landSpeed, finalJumpSpeed, pb);
+            }
         }
         
-        System.out.println("PB: " + jpb + ", MAXdistance: " + distance + ", loops~" + 
-                         ((delayedG ? deloops : loops) != 0 ? (jloops + (jpb == MinecraftPhysicsConstants.INVALID_PB ? 0 : 1)) : 0) + 
-                         ", delayed?" + delayedG);
+        if (blockFixContext.trace.enabled()) {
+            blockFixContext.trace.event(TraceEvent.SUMMARY, jpb, distance,
+                                        (delayedG ? deloops : loops) != 0 ? (jloops + (jpb == MinecraftPhysicsConstants.INVALID_PB ? 0 : 1)) : 0,
+                                        delayedG);
+        }
         
         if (delayedG && solverState.delayedBlockFixPlan > -1) {
-            System.out.println("bwmm plan: " + solverState.delayedBlockFixPlan);
+            if (blockFixContext.trace.enabled()) {
+                blockFixContext.trace.event(TraceEvent.BLOCK_FIX_PLAN, solverState.delayedBlockFixPlan);
+            }
         } else if (!delayedG && solverState.blockFixPlan > -1) {
-            System.out.println("bwmm plan: " + solverState.blockFixPlan);
+            if (blockFixContext.trace.enabled()) {
+                blockFixContext.trace.event(TraceEvent.BLOCK_FIX_PLAN, solverState.blockFixPlan);
+            }
         }
         
-        System.out.println(physicsCalculator.delayedNotEnough);
+        if (blockFixContext.trace.enabled()) {
+            blockFixContext.trace.event(TraceEvent.DELAYED_NOT_ENOUGH, physicsCalculator.delayedNotEnough);
+        }
+        
+        // 推荐的跳法（对应原single中rOrJ的判断）
+        SolveResult.Strategy strategy;
+        if (runJumpType != 0) {
+            strategy = SolveResult.Strategy.runJump(runJumpType);
+        } else if (fullBuildUpJumpSpeed != 0) {
+            strategy = SolveResult.Strategy.FULL_BUILD_UP;
+        } else if ((delayedG ? deloops : loops) > 0) {
+            strategy = SolveResult.Strategy.LOOP;
+        } else {
+            strategy = SolveResult.Strategy.BWMM;
+        }
+        
+        // 标出result()推荐的那一种（它不一定是最远的，见candidates()）
+        SolveCandidate chosen;
+        if (runJumpType != 0) {
+            chosen = delayedG ? delayedRunJumpCandidate : runJumpCandidate;
+        } else if (fullBuildUpJumpSpeed != 0) {
+            chosen = fullBuildUpCandidate;
+        } else {
+            chosen = delayedG ? delayedCandidate : nonDelayedCandidate;
+        }
+        if (chosen != null) {
+            candidates.set(candidates.indexOf(chosen), chosen.asChosen());
+        }
+        candidates.sort(SolveCandidate.RANKING);
+        this.candidates = Collections.unmodifiableList(candidates);
+        
+        double speedLimit = delayedG ? deBwSpeed : bwSpeed;
+        result = new SolveResult(distance, pb, jpb, loops, deloops, jloops, delayedG, strategy,
+                                 delayedG ? jumpOptimizer.backwardJumpPlan : jumpOptimizer.forwardJumpPlan,
+                                 delayedG ? solverState.delayedBlockFixPlan : solverState.blockFixPlan,
+                                 currentBackwardSpeed > speedLimit ? currentBackwardSpeed : speedLimit,
+                                 solverState.landSpeed, finalJumpSpeed);
     }
     
     public static void main(String[] args) {
         BmSolverOptimized solver = new BmSolverOptimized();
         solver.setAngleType(1);
+        solver.setTraceSink(new ConsoleTraceSink());
         solver.solve(12, 22, 12.3125);
         
         System.out.println("Distance: " + solver.distance);
         System.out.println("PB: " + solver.pb);
+        for (String line : solver.result().lines(SolveResult.Language.ZH)) {
+            System.out.println(line);
+        }
     }
 }
 
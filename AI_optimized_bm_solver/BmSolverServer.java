@@ -0,0 +1,246 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * 常驻的求解服务（JSON lines协议）
+ *
+ * 每次查询都启动一个JVM时，启动和类加载的时间远大于求解本身。
+ * 这个类启动一次后一直运行，所有查询共用同一个预热过的BmSolverEngine，
+ * 重复的查询直接从SolveCache返回。
+ *
+ * 协议：每行一个JSON对象，每个请求对应一行响应（按请求的顺序）
+ *   请求：{"id":1,"angleType":2,"buildUpAirtime":12,"jumpAirtime":12,"buildUpLength":15.4375,"text":"zh"}
+ *   - id可选，原样返回（字符串或数字）
+ *   - angleType可选，默认1（1~5，见AngleConfig.setAngleType）
+ *   - buildUpAirtime、jumpAirtime必须在1~MAX_AIRTIME之间，buildUpLength必须大于0、不超过MAX_BUILD_UP_LENGTH
+ *   - startCoord、startSpeed可选，默认0（见BmSolverOptimized.setStartCoord/setStartSpeed）
+ *   - text可选，"zh"或"en"，返回文字说明（见SolveResult.lines）
+ *   响应：{"id":1,"distance":...,"pb":...,...,"strategy":"LOOP"}
+ *   出错：{"id":1,"error":"..."}，不影响后面的请求
+ *
+ * 命令行用法：
+ *   java BmSolverServer                    读标准输入，写标准输出
+ *   java BmSolverServer --socket <路径>    监听Unix domain socket，每个连接一个线程
+ */
+public final class BmSolverServer {
+    private static final int CACHE_CAPACITY = 100000;
+    // 超出这个范围的请求直接拒绝：求解时间随滞空时间和助跑长度增长，太大的值会长时间占住求解线程
+    static final int MAX_AIRTIME = 1000;
+    static final double MAX_BUILD_UP_LENGTH = 10000;
+
+    private final BmSolverEngine engine;
+    private final SolveCache cache;
+
+    public BmSolverServer() {
+        this(new BmSolverEngine());
+    }
+
+    public BmSolverServer(BmSolverEngine engine) {
+        this.engine = engine;
+        this.cache = new SolveCache(engine, CACHE_CAPACITY);
+    }
+
+    public SolveCache cache() {
+        return cache;
+    }
+
+    /**
+     * 处理一行请求，返回一行响应（不含换行符）
+     */
+    public String handle(String line) {
+        Map<String, Object> request;
+        try {
+            request = Json.parseObject(line);
+        } catch (IllegalArgumentException e) {
+            StringBuilder out = new StringBuilder("{\"error\":");
+            return Json.appendString(out, e.getMessage()).append('}').toString();
+        }
+        return handle(request);
+    }
+
+    /**
+     * 处理已经解析好的请求（字段同上，数字是Double）
+     */
+    String handle(Map<String, Object> request) {
+        Object id = request.get("id");
+        StringBuilder out = new StringBuilder(256).append('{');
+        try {
+            SolveResult result = solve(request);
+            appendId(out, id);
+            Json.appendResultFields(out, result, language(request.get("text")));
+        } catch (RuntimeException e) {
+            out.setLength(1);
+            appendId(out, id);
+            out.append("\"error\":");
+            Json.appendString(out, String.valueOf(e.getMessage()));
+        }
+        return out.append('}').toString();
+    }
+
+    /**
+     * 按请求的字段求解
+     *
+     * @throws IllegalArgumentException 缺少字段、字段类型不对或超出范围
+     */
+    SolveResult solve(Map<String, Object> request) {
+        int angleType = intField(request, "angleType", 1);
+        int buildUpAirtime = intField(request, "buildUpAirtime", null);
+        int jumpAirtime = intField(request, "jumpAirtime", null);
+        double buildUpLength = doubleField(request, "buildUpLength", null);
+        double startCoord = doubleField(request, "startCoord", 0.0);
+        double startSpeed = doubleField(request, "startSpeed", 0.0);
+        checkAngleType("angleType", angleType);
+        checkAirtime("buildUpAirtime", buildUpAirtime);
+        checkAirtime("jumpAirtime", jumpAirtime);
+        if (!(buildUpLength > 0 && buildUpLength <= MAX_BUILD_UP_LENGTH)) {
+            throw new IllegalArgumentException("buildUpLength 必须大于0且不超过" + MAX_BUILD_UP_LENGTH + ": " + buildUpLength);
+        }
+        if (!Double.isFinite(startCoord) || !Double.isFinite(startSpeed)) {
+            throw new IllegalArgumentException("startCoord、startSpeed 必须是有限的数");
+        }
+        return cache.solve(angleType, buildUpAirtime, jumpAirtime, buildUpLength, startCoord, startSpeed);
+    }
+
+    static void checkAngleType(String name, int angleType) {
+        if (angleType < 1 || angleType > 5) {
+            throw new IllegalArgumentException(name + " 必须在1~5之间: " + angleType);
+        }
+    }
+
+    static void checkAirtime(String name, int airtime) {
+        if (airtime < 1 || airtime > MAX_AIRTIME) {
+            throw new IllegalArgumentException(name + " 必须在1~" + MAX_AIRTIME + "之间: " + airtime);
+        }
+    }
+
+    /**
+     * 逐行处理请求，直到输入结束；每个响应写完立即flush
+     */
+    public void serve(Reader in, Writer out) throws IOException {
+        BufferedReader reader = new BufferedReader(in);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            out.write(handle(line));
+            out.write('\n');
+            out.flush();
+        }
+    }
+
+    /**
+     * 监听Unix domain socket，每个连接在自己的线程中处理（引擎是线程安全的）
+     * 如果路径上已有旧的socket文件会先删除
+     */
+    public void serveSocket(Path path) throws IOException {
+        Files.deleteIfExists(path);
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(path));
+            path.toFile().deleteOnExit();
+            while (true) {
+                SocketChannel channel = server.accept();
+                Thread worker = new Thread(() -> serveConnection(channel), "bm-solver-connection");
+                worker.setDaemon(true);
+                worker.start();
+            }
+        }
+    }
+
+    private void serveConnection(SocketChannel channel) {
+        try (SocketChannel c = channel) {
+            serve(Channels.newReader(c, StandardCharsets.UTF_8),
+                  new BufferedWriter(Channels.newWriter(c, StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            // 客户端断开，忽略
+        }
+    }
+
+    /**
+     * 预热：每种角度求解几个典型查询，让JIT在第一个真实请求之前编译热点方法
+     */
+    public void warmUp(int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            for (int angleType = 1; angleType <= 4; angleType++) {
+                engine.solve(angleType, 12, 12, 1.25 + round % 16);
+                engine.solve(angleType, 12, 12, 2.1875);
+                engine.solve(angleType, 11, 6, 4.0625);
+            }
+        }
+    }
+
+    private static void appendId(StringBuilder out, Object id) {
+        if (id != null) {
+            out.append("\"id\":");
+            Json.appendValue(out, id);
+            out.append(',');
+        }
+    }
+
+    private static int intField(Map<String, Object> request, String name, Integer defaultValue) {
+        Object value = request.get(name);
+        if (value == null) {
+            if (defaultValue == null) {
+                throw new IllegalArgumentException("缺少字段: " + name);
+            }
+            return defaultValue;
+        }
+        if (!(value instanceof Double) || (Double) value != Math.rint((Double) value)) {
+            throw new IllegalArgumentException(name + " 必须是整数");
+        }
+        return ((Double) value).intValue();
+    }
+
+    private static double doubleField(Map<String, Object> request, String name, Double defaultValue) {
+        Object value = request.get(name);
+        if (value == null && defaultValue != null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Double)) {
+            throw new IllegalArgumentException(value == null ? "缺少字段: " + name : name + " 必须是数字");
+        }
+        return (Double) value;
+    }
+
+    static SolveResult.Language language(Object text) {
+        if (text == null) {
+            return null;
+        }
+        if ("zh".equals(text)) {
+            return SolveResult.Language.ZH;
+        }
+        if ("en".equals(text)) {
+            return SolveResult.Language.EN;
+        }
+        throw new IllegalArgumentException("text 只能是 \"zh\" 或 \"en\"");
+    }
+
+    public static void main(String[] args) throws IOException {
+        BmSolverServer server = new BmSolverServer();
+        server.warmUp(200);
+        if (args.length >= 2 && args[0].equals("--socket")) {
+            System.err.println("监听 " + args[1]);
+            server.serveSocket(Paths.get(args[1]));
+        } else if (args.length == 0) {
+            server.serve(new InputStreamReader(System.in, StandardCharsets.UTF_8),
+                         new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+        } else {
+            System.err.println("用法: java BmSolverServer [--socket <路径>]");
+        }
+    }
+}
@@ -0,0 +1,245 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 并行参数扫描
+ *
+ * 对角度类型 × 助跑滞空时间 × 跳跃滞空时间 × 助跑长度的整个网格求解，
+ * 用于一次性生成完整的bm表（代替在shell里逐个调用BmSolverOptimized）。
+ *
+ * 实现：
+ * - 网格按下标[0, 总数)拆成区间，交给ForkJoinPool（工作窃取），
+ *   不同bm的求解时间相差很大（loop次数不同），工作窃取可以自动平衡
+ * - 每个格子用BmSolverEngine求解（线程安全，见BmSolverEngine）
+ * - 结果存在按列排列的基本类型数组里（SweepResult），不为每个格子创建对象
+ *
+ * 格子下标：((角度 * 助跑滞空数 + 助跑滞空) * 跳跃滞空数 + 跳跃滞空) * 长度数 + 长度
+ *
+ * 求解器默认不输出调试信息（TraceSink.NOOP），不会和表格混在一起。
+ *
+ * 命令行用法（输出TSV到标准输出）：
+ *   java BmSolverSweep <最大助跑长度> [长度步长=0.0625] [最大滞空时间=12]
+ */
+public final class BmSolverSweep {
+    // 每个子任务至少处理的格子数，小于这个数就不再拆分
+    private static final int SPLIT_THRESHOLD = 16;
+
+    private final int[] angleTypes;
+    private final int[] buildUpAirtimes;
+    private final int[] jumpAirtimes;
+    private final double[] buildUpLengths;
+    private final BmSolverEngine engine = new BmSolverEngine();
+
+    public BmSolverSweep(int[] angleTypes, int[] buildUpAirtimes, int[] jumpAirtimes, double[] buildUpLengths) {
+        this.angleTypes = angleTypes.clone();
+        this.buildUpAirtimes = buildUpAirtimes.clone();
+        this.jumpAirtimes = jumpAirtimes.clone();
+        this.buildUpLengths = buildUpLengths.clone();
+    }
+
+    /**
+     * 整数区间[from, to]
+     */
+    public static int[] range(int from, int to) {
+        int[] values = new int[Math.max(0, to - from + 1)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = from + i;
+        }
+        return values;
+    }
+
+    /**
+     * lengths(step, max)的个数，不分配数组（用来在分配之前检查网格大小）
+     *
+     * @throws IllegalArgumentException step不是正数，或者step、max不是有限的数
+     */
+    public static long lengthCount(double step, double max) {
+        if (!(step > 0) || !Double.isFinite(step) || !Double.isFinite(max)) {
+            throw new IllegalArgumentException("助跑长度步长或范围不对: " + step + ", " + max);
+        }
+        return Math.max(0, (long) Math.floor(max / step + 1e-9));
+    }
+
+    /**
+     * 助跑长度step, 2*step, ...，直到不超过max
+     * 用乘法而不是累加，避免累积误差（例如0.0625的倍数必须是精确值）
+     *
+     * @throws IllegalArgumentException step不是正数，或者个数太多
+     */
+    public static double[] lengths(double step, double max) {
+        long count = lengthCount(step, max);
+        if (count > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("助跑长度个数过多: " + count);
+        }
+        double[] values = new double[(int) count];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = step * (i + 1);
+        }
+        return values;
+    }
+
+    /**
+     * 网格中的格子总数
+     */
+    public int size() {
+        long size = (long) angleTypes.length * buildUpAirtimes.length * jumpAirtimes.length * buildUpLengths.length;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("扫描网格过大: " + size);
+        }
+        return (int) size;
+    }
+
+    /**
+     * 使用公共ForkJoinPool扫描
+     */
+    public SweepResult run() {
+        return run(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 使用指定的ForkJoinPool扫描
+     */
+    public SweepResult run(ForkJoinPool pool) {
+        SweepResult result = new SweepResult(size());
+        pool.invoke(new SweepTask(result, 0, result.size));
+        return result;
+    }
+
+    /**
+     * 求解一个格子，把结果写入各列
+     */
+    private void solveCell(SweepResult result, int index) {
+        SolveResult cell = engine.solve(result.angleType(index), result.buildUpAirtime(index),
+                                        result.jumpAirtime(index), result.buildUpLength(index)).result();
+        result.distance[index] = cell.distance;
+        result.pb[index] = cell.pb;
+        result.jpb[index] = cell.jpb;
+        result.loops[index] = cell.loops;
+        result.deloops[index] = cell.deloops;
+        result.jloops[index] = cell.jloops;
+        result.delayedG[index] = cell.delayed;
+        result.strategy[index] = cell.strategy;
+    }
+
+    /**
+     * 二分拆分下标区间的任务
+     */
+    private final class SweepTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;   // RecursiveAction是Serializable，任务不会被序列化
+
+        private final SweepResult result;
+        private final int from;
+        private final int to;
+
+        SweepTask(SweepResult result, int from, int to) {
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    solveCell(result, i);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SweepTask(result, from, middle), new SweepTask(result, middle, to));
+        }
+    }
+
+    /**
+     * 扫描结果（按列存储）
+     * 第i个格子的参数用angleType(i)等方法从下标还原，结果在各列数组的第i个元素
+     */
+    public final class SweepResult {
+        public final int size;
+        public final double[] distance;
+        public final double[] pb;
+        public final double[] jpb;
+        public final int[] loops;
+        public final int[] deloops;
+        public final int[] jloops;
+        public final boolean[] delayedG;
+        public final SolveResult.Strategy[] strategy;
+
+        SweepResult(int size) {
+            this.size = size;
+            this.distance = new double[size];
+            this.pb = new double[size];
+            this.jpb = new double[size];
+            this.loops = new int[size];
+            this.deloops = new int[size];
+            this.jloops = new int[size];
+            this.delayedG = new boolean[size];
+            this.strategy = new SolveResult.Strategy[size];
+        }
+
+        public int angleType(int index) {
+            return angleTypes[index / (buildUpLengths.length * jumpAirtimes.length * buildUpAirtimes.length)];
+        }
+
+        public int buildUpAirtime(int index) {
+            return buildUpAirtimes[index / (buildUpLengths.length * jumpAirtimes.length) % buildUpAirtimes.length];
+        }
+
+        public int jumpAirtime(int index) {
+            return jumpAirtimes[index / buildUpLengths.length % jumpAirtimes.length];
+        }
+
+        public double buildUpLength(int index) {
+            return buildUpLengths[index % buildUpLengths.length];
+        }
+
+        /**
+         * 以TSV格式输出（第一行是表头）
+         */
+        public void writeTsv(Writer out) throws IOException {
+            out.write("angleType\tbuildUpAirtime\tjumpAirtime\tbuildUpLength\tdistance\tpb\tjpb\tloops\tdeloops\tjloops\tdelayedG\tstrategy\n");
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < size; i++) {
+                line.setLength(0);
+                line.append(angleType(i)).append('\t')
+                    .append(buildUpAirtime(i)).append('\t')
+                    .append(jumpAirtime(i)).append('\t')
+                    .append(buildUpLength(i)).append('\t')
+                    .append(distance[i]).append('\t')
+                    .append(pb[i]).append('\t')
+                    .append(jpb[i]).append('\t')
+                    .append(loops[i]).append('\t')
+                    .append(deloops[i]).append('\t')
+                    .append(jloops[i]).append('\t')
+                    .append(delayedG[i]).append('\t')
+                    .append(strategy[i]).append('\n');
+                out.write(line.toString());
+            }
+            out.flush();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("用法: java BmSolverSweep <最大助跑长度> [长度步长=0.0625] [最大滞空时间=12]");
+            return;
+        }
+        double maxLength = Double.parseDouble(args[0]);
+        double step = args.length > 1 ? Double.parseDouble(args[1]) : MinecraftPhysicsConstants.BLOCK_SIZE;
+        int maxAirtime = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+
+        BmSolverSweep sweep = new BmSolverSweep(range(1, 4), range(1, maxAirtime), range(1, maxAirtime),
+                                                lengths(step, maxLength));
+
+        long start = System.nanoTime();
+        SweepResult result = sweep.run();
+        System.err.println(result.size + "个格子, 用时 " + (System.nanoTime() - start) / 1e9 + "s");
+
+        result.writeTsv(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+    }
+}
@@ -1,3 +1,23 @@
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 /**
  * 测试类：验证优化版本与原版输出的一致性
  * 
@@ -38,7 +58,7 @@ public class BmSolverTest {
     /**
      * 运行测试
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
         System.out.println("=== BmSolver 优化版本测试 ===\n");
         
         for (TestCase testCase : TEST_CASES) {
@@ -67,8 +87,1393 @@ public class BmSolverTest {
             System.out.println("请手动运行原版 BmSolverAngles.java 并对比输出");
             System.out.println("----------------------------------------\n");
         }
+
+        testAffineKernel();
+        testBoundedJumpCountSearch();
+        testJumpPrefix();
+        testConcurrentEngine();
+        testReusedSolver();
+        testSweep();
+        testTraceSink();
+        testSolveResult();
+        testServer();
+        testHttpServer();
+        testSolveCache();
+        testAtlas();
+        testAcceleratedLoop();
+        testLoopProfile();
+        testDelayedJumpJumpsPair();
+        testPhysicsBatch();
+        testMovementProfile();
+        testBlockBound();
+        testJumpKernel();
+        testBmCurve();
+        testInverseQuery();
+        testCandidates();
+        testAngleSearch();
+        testCoordSweep();
+    }
+
+    /**
+     * 对比仿射内核与逐tick计算的结果（只允许最后几位的浮点误差）：
+     * 完整求解的测试用例，以及calculateJumpBM、calculateBackToFrontUnit、calculateRunJump在
+     * 四种角度、各种滞空时间和连跳次数（最多100个）、一组起始速度上的返回值和tempV0（相对误差不超过1e-14）
+     */
+    private static void testAffineKernel() {
+        System.out.println("=== 仿射内核对比 ===\n");
+
+        double maxError = 0;
+        int calls = 0;
+        for (int angleType = 1; angleType <= 4; angleType++) {
+            AngleConfig angle = new AngleConfig();
+            angle.setAngleType(angleType);
+            for (int airtime : new int[] {1, 2, 6, 12, 22}) {
+                for (int count : new int[] {2, 3, 8, 40, 100}) {
+                    int[] sequence = new int[count];
+                    Arrays.fill(sequence, airtime);
+                    sequence[count - 1] = 12;
+                    PhysicsCalculator tick = new PhysicsCalculator(angle, new BlockFixContext());
+                    tick.setUseJumpPrefix(false);
+                    tick.setAirtimeSequence(sequence);
+                    PhysicsCalculator affine = new PhysicsCalculator(angle, new BlockFixContext());
+                    affine.setUseAffineKernel(true);
+                    affine.setAirtimeSequence(sequence);
+                    for (int k = 0; k < 4; k++) {
+                        boolean delayed = (k & 1) != 0;
+                        boolean delayedNotEnough = (k & 2) != 0;
+                        tick.setDelayedNotEnough(delayedNotEnough);
+                        affine.setDelayedNotEnough(delayedNotEnough);
+                        for (double speed = -1; speed <= 1; speed += 0.25) {
+                            double[] values = {
+                                tick.calculateJumpBM(speed, delayed), tick.tempV0,
+                                affine.calculateJumpBM(speed, delayed), affine.tempV0,
+                                tick.calculateBackToFrontUnit(speed, delayed), tick.tempV0,
+                                affine.calculateBackToFrontUnit(speed, delayed), affine.tempV0,
+                                tick.calculateRunJump(speed, delayed), tick.tempV0,
+                                affine.calculateRunJump(speed, delayed), affine.tempV0
+                            };
+                            for (int i = 0; i < values.length; i += 4) {
+                                for (int j = 0; j < 2; j++) {
+                                    double expected = values[i + j];
+                                    double error = Math.abs(expected - values[i + j + 2]) / Math.max(1, Math.abs(expected));
+                                    maxError = Math.max(maxError, error);
+                                }
+                                calls++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        System.out.println(calls + "次调用, 最大相对误差 " + maxError + ": " + (maxError <= 1e-14 ? "一致" : "不一致"));
+
+        for (TestCase testCase : TEST_CASES) {
+            BmSolverOptimized tickSolver = new BmSolverOptimized();
+            tickSolver.setAngleType(testCase.angleType);
+            tickSolver.solve(testCase.buildUpAirtime, testCase.jumpAirtime, testCase.buildUpLength);
+
+            BmSolverOptimized affineSolver = new BmSolverOptimized();
+            affineSolver.setAngleType(testCase.angleType);
+            affineSolver.setUseAffineKernel(true);
+            affineSolver.solve(testCase.buildUpAirtime, testCase.jumpAirtime, testCase.buildUpLength);
+
+            boolean same = compareResults(tickSolver.distance, affineSolver.distance, 1e-9) &&
+                           compareResults(tickSolver.pb, affineSolver.pb, 1e-9);
+            System.out.println(testCase.description + ": " + (same ? "一致" : "不一致") +
+                             " (逐tick " + tickSolver.distance + ", 仿射 " + affineSolver.distance + ")");
+        }
+        System.out.println();
+    }
+    
+    /**
+     * 阶段1用指数+二分查找连跳次数与从2开始逐个扫描（原版做法）的结果必须逐位一致：
+     * BmSolverOptimized.setBoundedJumpCountSearch，以及BmSolverA2.boundedSearch
+     * （BmSolverA2在上一级目录，需要和测试一起编译，没有编译进来算作不正确）
+     */
+    private static void testBoundedJumpCountSearch() throws Exception {
+        System.out.println("=== 连跳次数查找对比 ===\n");
+
+        int[] buildUpAirtimes = {1, 2, 6, 11, 12};
+        int[] jumpAirtimes = {1, 6, 12, 22};
+        double[] lengths = BmSolverSweep.lengths(0.4375, 8);
+        int solves = 0;
+        int mismatches = 0;
+        for (int angleType = 1; angleType <= 4; angleType++) {
+            for (int buildUpAirtime : buildUpAirtimes) {
+                for (int jumpAirtime : jumpAirtimes) {
+                    for (double length : lengths) {
+                        BmSolverOptimized linear = new BmSolverOptimized();
+                        linear.setAngleType(angleType);
+                        linear.setBoundedJumpCountSearch(false);
+                        linear.solve(buildUpAirtime, jumpAirtime, length);
+                        BmSolverOptimized bounded = new BmSolverOptimized();
+                        bounded.setAngleType(angleType);
+                        bounded.solve(buildUpAirtime, jumpAirtime, length);
+                        solves++;
+                        if (!sameResult(linear.result(), bounded.result())) {
+                            mismatches++;
+                        }
+                    }
+                }
+            }
+        }
+        System.out.println("BmSolverOptimized " + solves + "次求解: " + (mismatches == 0 ? "一致" : mismatches + "次不一致"));
+
+        Class<?> original;
+        try {
+            original = Class.forName("BmSolverA2");
+        } catch (ClassNotFoundException e) {
+            System.out.println("BmSolverA2: 找不到类，不正确（编译时要加上../BmSolverA2.java）");
+            System.out.println();
+            return;
+        }
+        solves = 0;
+        mismatches = 0;
+        for (int angleType = 1; angleType <= 4; angleType++) {
+            for (int buildUpAirtime : buildUpAirtimes) {
+                for (int jumpAirtime : jumpAirtimes) {
+                    for (double length : lengths) {
+                        String[][] lines = new String[2][];
+                        for (int k = 0; k < 2; k++) {
+                            Object solver = original.getConstructor().newInstance();
+                            original.getField("boundedSearch").setBoolean(solver, k == 1);
+                            original.getMethod("sinMaker", int.class).invoke(solver, angleType);
+                            lines[k] = (String[]) original.getMethod("single", int.class, int.class, double.class)
+                                .invoke(solver, buildUpAirtime, jumpAirtime, length);
+                        }
+                        solves++;
+                        if (!Arrays.equals(lines[0], lines[1])) {
+                            mismatches++;
+                        }
+                    }
+                }
+            }
+        }
+        System.out.println("BmSolverA2 " + solves + "次求解: " + (mismatches == 0 ? "一致" : mismatches + "次不一致"));
+        System.out.println();
+    }
+
+    /**
+     * 两个结果的所有字段逐位一致
+     */
+    private static boolean sameResult(SolveResult a, SolveResult b) {
+        return Double.doubleToRawLongBits(a.distance) == Double.doubleToRawLongBits(b.distance) &&
+               Double.doubleToRawLongBits(a.pb) == Double.doubleToRawLongBits(b.pb) &&
+               Double.doubleToRawLongBits(a.jpb) == Double.doubleToRawLongBits(b.jpb) &&
+               a.loops == b.loops && a.deloops == b.deloops && a.jloops == b.jloops &&
+               a.delayed == b.delayed && a.strategy == b.strategy &&
+               a.blockFixPlan == b.blockFixPlan && a.bwmmBlockFixPlan == b.bwmmBlockFixPlan &&
+               Double.doubleToRawLongBits(a.backwardSpeed) == Double.doubleToRawLongBits(b.backwardSpeed) &&
+               Double.doubleToRawLongBits(a.landSpeed) == Double.doubleToRawLongBits(b.landSpeed) &&
+               Double.doubleToRawLongBits(a.jumpSpeed) == Double.doubleToRawLongBits(b.jumpSpeed);
+    }
+
+    /**
+     * 对比连跳前缀状态与逐tick计算的结果（必须逐位一致）：
+     * 完整求解的测试用例，以及直接调用PhysicsCalculator的网格——
+     * 40个起始速度轮流使用（超过32个缓存槽，每个状态都会被淘汰后再重建），
+     * 每个速度的连跳次数先逐个增加再往回走两个以上（reset），最后改变角度（清空缓存）
+     */
+    private static void testJumpPrefix() {
+        System.out.println("=== 连跳前缀状态对比 ===\n");
+
+        int[] counts = new int[34];
+        for (int i = 0; i < 29; i++) {
+            counts[i] = i + 2;
+        }
+        System.arraycopy(new int[] {5, 4, 29, 28, 3}, 0, counts, 29, 5);
+        int calls = 0;
+        int mismatches = 0;
+        for (int airtime : new int[] {2, 12}) {
+            AngleConfig angle = new AngleConfig();
+            angle.setAngleType(1);
+            PhysicsCalculator tick = new PhysicsCalculator(angle, new BlockFixContext());
+            tick.setUseJumpPrefix(false);
+            PhysicsCalculator prefix = new PhysicsCalculator(angle, new BlockFixContext());
+            for (int angleType : new int[] {1, 3}) {
+                angle.setAngleType(angleType);
+                for (int pass = 0; pass < 2; pass++) {
+                    for (int s = 0; s < 40; s++) {
+                        double speed = -1 + s * 0.05;
+                        for (int count : counts) {
+                            int[] sequence = new int[count];
+                            Arrays.fill(sequence, airtime);
+                            sequence[count - 1] = 12;
+                            tick.setAirtimeSequence(sequence);
+                            prefix.setAirtimeSequence(sequence);
+                            boolean delayed = (count & 1) != 0;
+                            double[] values = {
+                                tick.calculateJumpBM(speed, delayed), tick.tempV0,
+                                prefix.calculateJumpBM(speed, delayed), prefix.tempV0,
+                                tick.calculateBackToFrontUnit(speed, delayed), tick.tempV0,
+                                prefix.calculateBackToFrontUnit(speed, delayed), prefix.tempV0,
+                                tick.calculateRunJump(speed, delayed), tick.tempV0,
+                                prefix.calculateRunJump(speed, delayed), prefix.tempV0
+                            };
+                            for (int i = 0; i < values.length; i += 4) {
+                                if (Double.doubleToRawLongBits(values[i]) != Double.doubleToRawLongBits(values[i + 2]) ||
+                                    Double.doubleToRawLongBits(values[i + 1]) != Double.doubleToRawLongBits(values[i + 3])) {
+                                    mismatches++;
+                                }
+                                calls++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        System.out.println(calls + "次调用（淘汰、reset、换角度）: " + (mismatches == 0 ? "一致" : mismatches + "次不一致"));
+
+        for (TestCase testCase : TEST_CASES) {
+            BmSolverOptimized tickSolver = new BmSolverOptimized();
+            tickSolver.setAngleType(testCase.angleType);
+            tickSolver.setBoundedJumpCountSearch(false);
+            tickSolver.setUseJumpPrefix(false);
+            tickSolver.solve(testCase.buildUpAirtime, testCase.jumpAirtime, testCase.buildUpLength);
+
+            BmSolverOptimized prefixSolver = new BmSolverOptimized();
+            prefixSolver.setAngleType(testCase.angleType);
+            prefixSolver.setBoundedJumpCountSearch(false);
+            prefixSolver.solve(testCase.buildUpAirtime, testCase.jumpAirtime, testCase.buildUpLength);
+
+            boolean same = tickSolver.distance == prefixSolver.distance &&
+                           tickSolver.pb == prefixSolver.pb &&
+                           tickSolver.loops == prefixSolver.loops;
+            System.out.println(testCase.description + ": " + (same ? "一致" : "不一致") +
+                             " (逐tick " + tickSolver.distance + ", 前缀 " + prefixSolver.distance + ")");
+        }
+        System.out.println();
+    }
+
+    /**
+     * 多线程共享一个BmSolverEngine，结果必须与单线程逐个求解逐位一致
+     */
+    private static void testConcurrentEngine() throws Exception {
+        System.out.println("=== 多线程引擎对比 ===\n");
+
+        final int[] airtimes = {6, 11, 12};
+        final double[] lengths = {1.5, 2.1875, 4.0625, 15.4375};
+        List<double[]> queries = new ArrayList<>();
+        for (int angleType = 1; angleType <= 4; angleType++) {
+            for (int buildUpAirtime : airtimes) {
+                for (int jumpAirtime : airtimes) {
+                    for (double length : lengths) {
+                        queries.add(new double[] {angleType, buildUpAirtime, jumpAirtime, length});
+                    }
+                }
+            }
+        }
+
+        double[][] expected = new double[queries.size()][];
+        List<Future<double[]>> futures = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int i = 0; i < queries.size(); i++) {
+                double[] q = queries.get(i);
+                BmSolverOptimized solver = new BmSolverOptimized();
+                solver.setAngleType((int) q[0]);
+                solver.solve((int) q[1], (int) q[2], q[3]);
+                expected[i] = new double[] {solver.distance, solver.pb, solver.loops};
+            }
+
+            BmSolverEngine engine = new BmSolverEngine();
+            for (double[] q : queries) {
+                futures.add(executor.submit(() -> {
+                    BmSolverOptimized solver = engine.solve((int) q[0], (int) q[1], (int) q[2], q[3]);
+                    return new double[] {solver.distance, solver.pb, solver.loops};
+                }));
+            }
+            int mismatches = 0;
+            for (int i = 0; i < queries.size(); i++) {
+                if (!Arrays.equals(expected[i], futures.get(i).get())) {
+                    mismatches++;
+                }
+            }
+            System.out.println(queries.size() + "个查询: " + (mismatches == 0 ? "一致" : mismatches + "个不一致"));
+        } finally {
+            executor.shutdown();
+        }
+        System.out.println();
+    }
+
+    /**
+     * 同一个求解器连续求解多次（中间换角度和起始坐标），每次的结果、跳法和loop数据必须与新建的求解器逐位一致
+     */
+    private static void testReusedSolver() {
+        System.out.println("=== 重复使用求解器 ===\n");
+
+        int[] airtimes = {1, 2, 6, 12, 22};
+        BmSolverOptimized reused = new BmSolverOptimized();
+        int solves = 0;
+        int mismatches = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            for (int buildUpAirtime : airtimes) {
+                for (int jumpAirtime : airtimes) {
+                    for (int i = 0; i < 12; i++) {
+                        // 第二遍助跑长度从长到短，上一次留下的状态更容易影响下一次
+                        double length = pass == 0 ? 0.0625 + i * 1.375 : 16 - i * 1.25;
+                        double coord = i % 3 == 0 ? 1000.5 : 0;
+                        for (int angleType = 1; angleType <= 4; angleType++) {
+                            BmSolverOptimized fresh = new BmSolverOptimized();
+                            fresh.setAngleType(angleType);
+                            fresh.setStartCoord(coord);
+                            fresh.solve(buildUpAirtime, jumpAirtime, length);
+                            reused.setAngleType(angleType);
+                            reused.setStartCoord(coord);
+                            reused.solve(buildUpAirtime, jumpAirtime, length);
+                            solves++;
+                            if (!sameSolve(fresh, reused)) {
+                                mismatches++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        System.out.println(solves + "次求解: " + (mismatches == 0 ? "一致" : mismatches + "次不一致"));
+        System.out.println();
+    }
+
+    /**
+     * 两个求解器的输出字段、result()、candidates()和loopProfile()逐位一致
+     */
+    private static boolean sameSolve(BmSolverOptimized a, BmSolverOptimized b) {
+        if (Double.doubleToRawLongBits(a.distance) != Double.doubleToRawLongBits(b.distance) ||
+            Double.doubleToRawLongBits(a.pb) != Double.doubleToRawLongBits(b.pb) ||
+            Double.doubleToRawLongBits(a.jpb) != Double.doubleToRawLongBits(b.jpb) ||
+            a.loops != b.loops || a.deloops != b.deloops || a.jloops != b.jloops || a.delayedG != b.delayedG ||
+            !sameResult(a.result(), b.result())) {
+            return false;
+        }
+        List<SolveCandidate> candidatesA = a.candidates();
+        List<SolveCandidate> candidatesB = b.candidates();
+        if (candidatesA.size() != candidatesB.size()) {
+            return false;
+        }
+        for (int i = 0; i < candidatesA.size(); i++) {
+            if (!candidatesA.get(i).toString().equals(candidatesB.get(i).toString())) {
+                return false;
+            }
+        }
+        LoopProfile profileA = a.loopProfile();
+        LoopProfile profileB = b.loopProfile();
+        if (profileA.size() != profileB.size()) {
+            return false;
+        }
+        for (int i = 0; i < profileA.size(); i++) {
+            if (Double.doubleToRawLongBits(profileA.speed(i)) != Double.doubleToRawLongBits(profileB.speed(i)) ||
+                Double.doubleToRawLongBits(profileA.distance(i)) != Double.doubleToRawLongBits(profileB.distance(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 并行扫描的每个格子必须与单独求解逐位一致
+     */
+    private static void testSweep() {
+        System.out.println("=== 并行扫描对比 ===\n");
+
+        int mismatches = 0;
+        BmSolverSweep sweep = new BmSolverSweep(BmSolverSweep.range(1, 4), new int[] {6, 12},
+                                                new int[] {11, 12}, BmSolverSweep.lengths(0.25, 3));
+        BmSolverSweep.SweepResult result = sweep.run();
+        for (int i = 0; i < result.size; i++) {
+            BmSolverOptimized solver = new BmSolverOptimized();
+            solver.setAngleType(result.angleType(i));
+            solver.solve(result.buildUpAirtime(i), result.jumpAirtime(i), result.buildUpLength(i));
+            if (solver.distance != result.distance[i] || solver.pb != result.pb[i] ||
+                solver.loops != result.loops[i] || solver.delayedG != result.delayedG[i]) {
+                mismatches++;
+            }
+        }
+        System.out.println(result.size + "个格子: " + (mismatches == 0 ? "一致" : mismatches + "个不一致"));
+        System.out.println();
+    }
+
+    /**
+     * 开启调试事件不能改变结果；环形缓冲区只保留最后N条
+     */
+    private static void testTraceSink() {
+        System.out.println("=== 调试事件输出 ===\n");
+
+        for (TestCase testCase : TEST_CASES) {
+            BmSolverOptimized quietSolver = new BmSolverOptimized();
+            quietSolver.setAngleType(testCase.angleType);
+            quietSolver.solve(testCase.buildUpAirtime, testCase.jumpAirtime, testCase.buildUpLength);
+
+            RingBufferTraceSink trace = new RingBufferTraceSink(16);
+            BmSolverOptimized tracedSolver = new BmSolverOptimized();
+            tracedSolver.setAngleType(testCase.angleType);
+            tracedSolver.setTraceSink(trace);
+            tracedSolver.solve(testCase.buildUpAirtime, testCase.jumpAirtime, testCase.buildUpLength);
+
+            boolean same = quietSolver.distance == tracedSolver.distance && quietSolver.pb == tracedSolver.pb;
+            List<String> lines = trace.lines();
+            boolean kept = lines.size() == Math.min(16, trace.count()) &&
+                           trace.events().contains(TraceEvent.SUMMARY);
+            System.out.println(testCase.description + ": 结果" + (same ? "一致" : "不一致") +
+                             ", 共" + trace.count() + "条事件, 保留" + lines.size() + "条" + (kept ? "" : "（不正确）"));
+            System.out.println("  最后一条: " + lines.get(lines.size() - 1));
+        }
+        System.out.println();
+    }
+
+    /**
+     * SolveResult与求解器的结果字段一致，跑跳/后跳的分类正确
+     */
+    private static void testSolveResult() {
+        System.out.println("=== 求解结果 ===\n");
+        
+        // 基础测试选择跑跳，再加一个选择后跳loop的查询
+        List<TestCase> cases = new ArrayList<>(Arrays.asList(TEST_CASES));
+        cases.add(new TestCase(1, 12, 22, 12.3125, "后跳loop"));
+        for (TestCase testCase : cases) {
+            BmSolverOptimized solver = new BmSolverOptimized();
+            solver.setAngleType(testCase.angleType);
+            solver.solve(testCase.buildUpAirtime, testCase.jumpAirtime, testCase.buildUpLength);
+            SolveResult result = solver.result();
+            
+            boolean same = result.distance == solver.distance && result.pb == solver.pb &&
+                           result.jpb == solver.jpb && result.loops == solver.loops &&
+                           result.deloops == solver.deloops && result.jloops == solver.jloops &&
+                           result.delayed == solver.delayedG;
+            String[] zh = result.lines(SolveResult.Language.ZH);
+            String[] en = result.lines(SolveResult.Language.EN);
+            boolean runJump = zh[2].startsWith("推荐使用跑跳");
+            System.out.println(testCase.description + ": " + result.strategy + ", 字段" + (same ? "一致" : "不一致") +
+                             (runJump == result.strategy.isRunJump() ? "" : "（跳法分类不正确）"));
+            System.out.println("  " + String.join(" / ", zh));
+            System.out.println("  " + String.join(" / ", en));
+        }
+        System.out.println();
+    }
+    
+    /**
+     * 服务模式：每行请求对应一行响应，出错的请求不影响后面的请求
+     */
+    private static void testServer() throws Exception {
+        System.out.println("=== 服务模式 ===\n");
+        
+        String requests = "{\"id\":1,\"angleType\":1,\"buildUpAirtime\":12,\"jumpAirtime\":22,\"buildUpLength\":12.3125}\n" +
+                          "{\"id\":\"bad\",\"buildUpAirtime\":12}\n" +
+                          "\n" +
+                          "{\"id\":3,\"angleType\":5,\"buildUpAirtime\":12,\"jumpAirtime\":12,\"buildUpLength\":15.4375,\"text\":\"en\"}\n";
+        StringWriter out = new StringWriter();
+        new BmSolverServer().serve(new StringReader(requests), out);
+        String[] responses = out.toString().split("\n");
+        
+        BmSolverOptimized solver = new BmSolverOptimized();
+        solver.setAngleType(1);
+        solver.solve(12, 22, 12.3125);
+        boolean first = responses[0].startsWith("{\"id\":1,\"distance\":" + solver.distance + ",\"pb\":" + solver.pb + ",");
+        boolean error = responses[1].startsWith("{\"id\":\"bad\",\"error\":");
+        boolean text = responses[2].startsWith("{\"id\":3,") && responses[2].contains("\"text\":[\"PB: ");
+        System.out.println(responses.length + "行响应: " + (responses.length == 3 && first && error && text ? "正确" : "不正确"));
+        for (String response : responses) {
+            System.out.println("  " + response);
+        }
+        
+        // 超出范围的参数在求解之前就要拒绝（1e10会变成Integer.MAX_VALUE，1e400是Infinity）
+        String[] outOfRange = {
+            "{\"buildUpAirtime\":1e10,\"jumpAirtime\":12,\"buildUpLength\":5}",
+            "{\"buildUpAirtime\":-3,\"jumpAirtime\":12,\"buildUpLength\":5}",
+            "{\"buildUpAirtime\":12,\"jumpAirtime\":0,\"buildUpLength\":5}",
+            "{\"angleType\":9,\"buildUpAirtime\":12,\"jumpAirtime\":12,\"buildUpLength\":5}",
+            "{\"angleType\":0,\"buildUpAirtime\":12,\"jumpAirtime\":12,\"buildUpLength\":5}",
+            "{\"buildUpAirtime\":12,\"jumpAirtime\":12,\"buildUpLength\":-1}",
+            "{\"buildUpAirtime\":12,\"jumpAirtime\":12,\"buildUpLength\":0}",
+            "{\"buildUpAirtime\":12,\"jumpAirtime\":12,\"buildUpLength\":1e400}",
+            "{\"buildUpAirtime\":12,\"jumpAirtime\":12,\"buildUpLength\":5,\"startCoord\":-1e400}",
+        };
+        BmSolverServer server = new BmSolverServer();
+        int rejected = 0;
+        for (String request : outOfRange) {
+            String response = server.handle(request);
+            if (response.startsWith("{\"error\":")) {
+                rejected++;
+            } else {
+                System.out.println("  " + request + " -> " + response);
+            }
+        }
+        System.out.println("超出范围的请求: " + rejected + "/" + outOfRange.length + "被拒绝, 缓存" +
+                         server.cache().size() + "项: " +
+                         (rejected == outOfRange.length && server.cache().size() == 0 ? "正确" : "不正确"));
+        System.out.println();
+    }
+    
+    /**
+     * HTTP服务：GET/POST求解、sweep、参数错误和延迟直方图
+     */
+    private static void testHttpServer() throws Exception {
+        System.out.println("=== HTTP服务 ===\n");
+        
+        BmSolverHttpServer server = new BmSolverHttpServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            String base = "http://127.0.0.1:" + server.port();
+            
+            BmSolverOptimized solver = new BmSolverOptimized();
+            solver.setAngleType(1);
+            solver.solve(12, 22, 12.3125);
+            String expected = "{\"distance\":" + solver.distance + ",\"pb\":" + solver.pb + ",";
+            
+            HttpResponse<String> get = client.send(HttpRequest.newBuilder(URI.create(
+                base + "/solve?angleType=1&buildUpAirtime=12&jumpAirtime=22&buildUpLength=12.3125")).build(),
+                HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> post = client.send(HttpRequest.newBuilder(URI.create(base + "/solve"))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                    "{\"angleType\":1,\"buildUpAirtime\":12,\"jumpAirtime\":22,\"buildUpLength\":12.3125}")).build(),
+                HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> bad = client.send(HttpRequest.newBuilder(URI.create(
+                base + "/solve?buildUpAirtime=12")).build(), HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> sweep = client.send(HttpRequest.newBuilder(URI.create(
+                base + "/sweep?angleTypes=1-2&buildUpAirtimes=12&jumpAirtimes=11,12&maxLength=1&step=0.25")).build(),
+                HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> latency = client.send(HttpRequest.newBuilder(URI.create(base + "/latency")).build(),
+                HttpResponse.BodyHandlers.ofString());
+            
+            boolean solveOk = get.statusCode() == 200 && get.body().startsWith(expected) &&
+                              post.statusCode() == 200 && post.body().startsWith(expected);
+            boolean badOk = bad.statusCode() == 400 && bad.body().startsWith("{\"error\":");
+            boolean sweepOk = sweep.statusCode() == 200 && sweep.body().split("\n").length == 1 + 2 * 2 * 4;
+            boolean latencyOk = latency.body().startsWith("{\"solve\":{\"count\":3,");
+            System.out.println("solve: " + (solveOk ? "正确" : "不正确") + ", 参数错误: " + (badOk ? "正确" : "不正确") +
+                             ", sweep: " + (sweepOk ? "正确" : "不正确") + ", 延迟直方图: " + (latencyOk ? "正确" : "不正确"));
+            System.out.println("  " + latency.body());
+            
+            // 这些请求都要在分配和求解之前返回400（step=0或很小时助跑长度个数会饱和成几十亿）
+            String[] badRequests = {
+                "/sweep?angleTypes=1&buildUpAirtimes=12&jumpAirtimes=12&maxLength=5&step=0",
+                "/sweep?angleTypes=1&buildUpAirtimes=12&jumpAirtimes=12&maxLength=5&step=1e-9",
+                "/sweep?angleTypes=1&buildUpAirtimes=12&jumpAirtimes=12&maxLength=5&step=-1",
+                "/sweep?angleTypes=1&buildUpAirtimes=12&jumpAirtimes=12&maxLength=Infinity",
+                "/sweep?angleTypes=1-2000000000&buildUpAirtimes=12&jumpAirtimes=12&maxLength=5",
+                "/sweep?angleTypes=9&buildUpAirtimes=12&jumpAirtimes=12&maxLength=5",
+                "/sweep?angleTypes=1&buildUpAirtimes=0&jumpAirtimes=12&maxLength=5",
+                "/solve?buildUpAirtime=1e10&jumpAirtime=12&buildUpLength=5",
+            };
+            int rejected = 0;
+            for (String path : badRequests) {
+                HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + path)).build(),
+                                                            HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 400 && response.body().startsWith("{\"error\":")) {
+                    rejected++;
+                } else {
+                    System.out.println("  " + path + " -> " + response.statusCode() + " " + response.body());
+                }
+            }
+            boolean lengthsRejected = false;
+            try {
+                BmSolverSweep.lengths(0, 5);
+            } catch (IllegalArgumentException e) {
+                lengthsRejected = true;
+            }
+            System.out.println("超出范围的请求: " + rejected + "/" + badRequests.length + "返回400, lengths(0, 5): " +
+                             (rejected == badRequests.length && lengthsRejected ? "正确" : "不正确"));
+        } finally {
+            server.stop(0);
+        }
+        System.out.println();
+    }
+    
+    /**
+     * 结果缓存：并发的相同查询只求解一次，超过容量时淘汰，结果与直接求解一致
+     */
+    private static void testSolveCache() throws Exception {
+        System.out.println("=== 结果缓存 ===\n");
+        
+        BmSolverEngine engine = new BmSolverEngine();
+        SolveCache cache = new SolveCache(engine, 2);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<SolveResult>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return cache.solve(1, 12, 22, 12.3125);
+                }));
+            }
+            start.countDown();
+            SolveResult first = futures.get(0).get();
+            boolean shared = true;
+            for (Future<SolveResult> future : futures) {
+                shared &= future.get() == first;
+            }
+            System.out.println(threads + "个并发的相同查询: 求解" + cache.misses() + "次" +
+                             (cache.misses() == 1 && shared ? "（正确）" : "（不正确）"));
+        } finally {
+            executor.shutdown();
+        }
+        
+        // 角度类型5和0都使用默认角度，sin/cos相同，共用一个条目
+        cache.solve(5, 12, 12, 15.4375);
+        long misses = cache.misses();
+        cache.solve(0, 12, 12, 15.4375);
+        boolean sameAngle = cache.misses() == misses;
+        SolveResult shifted = cache.solve(1, 12, 22, 12.3125, 1024.0, 0.0);
+        BmSolverOptimized solver = new BmSolverOptimized();
+        solver.setAngleType(1);
+        solver.setStartCoord(1024.0);
+        solver.solve(12, 22, 12.3125);
+        System.out.println("相同sin/cos共用条目: " + (sameAngle ? "正确" : "不正确") +
+                         ", 起始坐标1024: " + (shifted.distance == solver.distance ? "一致" : "不一致") +
+                         ", 淘汰: " + (cache.size() == 2 && cache.evictions() == 1 ? "正确" : "不正确"));
+        System.out.println("  " + cache);
+        System.out.println();
+    }
+    
+    /**
+     * bm表：网格上的查询从文件读取，与实时求解完全一致；网格外的查询实时求解
+     */
+    private static void testAtlas() throws Exception {
+        System.out.println("=== bm表 ===\n");
+        
+        Path file = Files.createTempFile("bm-atlas", ".bin");
+        try {
+            BmAtlas.generate(file, 2, 3, 0.25);
+            BmAtlas atlas = BmAtlas.open(file);
+            BmSolverEngine engine = new BmSolverEngine();
+            int cells = 0;
+            int mismatches = 0;
+            for (int angleType = 1; angleType <= 4; angleType++) {
+                for (int buildUpAirtime = 1; buildUpAirtime <= 3; buildUpAirtime++) {
+                    for (int jumpAirtime = 1; jumpAirtime <= 3; jumpAirtime++) {
+                        for (double length : BmSolverSweep.lengths(0.25, 2)) {
+                            SolveResult expected = engine.solve(angleType, buildUpAirtime, jumpAirtime, length).result();
+                            SolveResult actual = atlas.solve(angleType, buildUpAirtime, jumpAirtime, length);
+                            int index = atlas.index(angleType, buildUpAirtime, jumpAirtime, length);
+                            cells++;
+                            if (index < 0 || atlas.distance(index) != expected.distance ||
+                                !Arrays.equals(actual.lines(SolveResult.Language.ZH), expected.lines(SolveResult.Language.ZH)) ||
+                                !actual.toString().equals(expected.toString())) {
+                                mismatches++;
+                            }
+                        }
+                    }
+                }
+            }
+            boolean offGrid = atlas.index(1, 3, 3, 1.3) < 0 && atlas.index(5, 3, 3, 1.25) < 0 &&
+                              atlas.index(1, 4, 3, 1.25) < 0 &&
+                              atlas.solve(1, 3, 3, 1.3).distance == engine.solve(1, 3, 3, 1.3).distance;
+            // 下标超出范围时不能读到文件头或文件末尾之后
+            int outOfRange = 0;
+            for (int index : new int[] {-1, Integer.MIN_VALUE, atlas.size(), Integer.MAX_VALUE}) {
+                try {
+                    atlas.distance(index);
+                } catch (IndexOutOfBoundsException e) {
+                    outOfRange++;
+                }
+            }
+            System.out.println(cells + "个格子: " + (mismatches == 0 && atlas.size() == cells ? "一致" : mismatches + "个不一致") +
+                             ", 网格外: " + (offGrid ? "正确" : "不正确") +
+                             ", 下标越界: " + (outOfRange == 4 ? "正确" : "不正确") + ", 文件大小: " + Files.size(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        System.out.println();
+    }
+    
+    /**
+     * 加速的Loop必须与逐次计算逐位一致（包括loop次数），其中包括速度在最后几位来回跳、算满100次的情况
+     */
+    private static void testAcceleratedLoop() {
+        System.out.println("=== 加速Loop对比 ===\n");
+
+        final int[] buildUpAirtimes = {1, 5, 12};
+        final int[] jumpAirtimes = {1, 6, 12};
+        int cases = 0;
+        int mismatches = 0;
+        int capped = 0;
+        for (int angleType = 1; angleType <= 4; angleType++) {
+            for (int buildUpAirtime : buildUpAirtimes) {
+                for (int jumpAirtime : jumpAirtimes) {
+                    for (double length : BmSolverSweep.lengths(MinecraftPhysicsConstants.BLOCK_SIZE, 4)) {
+                        BmSolverOptimized plainSolver = new BmSolverOptimized();
+                        plainSolver.setAngleType(angleType);
+                        plainSolver.solve(buildUpAirtime, jumpAirtime, length);
+
+                        BmSolverOptimized acceleratedSolver = new BmSolverOptimized();
+                        acceleratedSolver.setAngleType(angleType);
+                        acceleratedSolver.setAcceleratedLoop(true);
+                        acceleratedSolver.solve(buildUpAirtime, jumpAirtime, length);
+
+                        cases++;
+                        if (plainSolver.deloops > 100) {
+                            capped++;
+                        }
+                        if (!plainSolver.result().toString().equals(acceleratedSolver.result().toString())) {
+                            mismatches++;
+                        }
+                    }
+                }
+            }
+        }
+        System.out.println(cases + "个查询（其中" + capped + "个算满100次）: " +
+                         (mismatches == 0 ? "一致" : mismatches + "个不一致"));
+        System.out.println();
+    }
+    
+    /**
+     * loop速度曲线：项数与deloops对应，最后一项是最终速度，第一次跳过最远一格的位置就是jloops
+     */
+    private static void testLoopProfile() {
+        System.out.println("=== Loop速度曲线 ===\n");
+
+        BmSolverOptimized solver = new BmSolverOptimized();
+        solver.solve(12, 22, 12.3125);
+        LoopProfile profile = solver.loopProfile();
+
+        boolean shape = profile.size() == solver.deloops + 1 &&
+                        profile.minLoopsForSpeed(profile.finalSpeed()) <= solver.deloops &&
+                        profile.minLoopsForSpeed(0) == 0 && profile.minLoopsForSpeed(-1) == -1 &&
+                        profile.minLoopsWithin(0) <= solver.deloops;
+        boolean jloops = profile.minLoopsForPb(0) == solver.jloops && profile.minLoopsForPb(1) == -1;
+        System.out.println(solver.result().strategy + ", " + profile.size() + "项: " +
+                         (shape ? "正确" : "不正确") + ", jloops: " + (jloops ? "一致" : "不一致"));
+        for (double tolerance : new double[] {1e-3, 1e-6, 1e-9}) {
+            System.out.println("  与最终速度相差不超过" + tolerance + ": " + profile.minLoopsWithin(tolerance) + "次");
+        }
+        System.out.println();
+    }
+    
+    /**
+     * 两点计算与依次计算-1和1的结果、inPlace必须逐位一致（包括Plan 1/3的早期返回）
+     */
+    private static void testDelayedJumpJumpsPair() {
+        System.out.println("=== 两点计算对比 ===\n");
+
+        final int[][] sequences = {{12, 12, 12, 11}, {3, 3, 6}, {1, 1, 1}, {5, 2}, {20, 20, 20, 20, 20, 12}};
+        final int[] fixPlans = {0, 1, 3, 4};
+        int cases = 0;
+        int mismatches = 0;
+        for (int angleType = 1; angleType <= 4; angleType++) {
+            AngleConfig angle = new AngleConfig();
+            angle.setAngleType(angleType);
+            BlockFixContext sequentialContext = new BlockFixContext();
+            BlockFixContext pairContext = new BlockFixContext();
+            PhysicsCalculator sequential = new PhysicsCalculator(angle, sequentialContext);
+            PhysicsCalculator pair = new PhysicsCalculator(angle, pairContext);
+            for (int[] sequence : sequences) {
+                sequential.setAirtimeSequence(sequence);
+                pair.setAirtimeSequence(sequence);
+                for (int state = 0; state < fixPlans.length * 6 * 2 * 2 * 2; state++) {
+                    int fixPlan = fixPlans[state % fixPlans.length];
+                    int inFix = state / fixPlans.length % 6;
+                    int inPlace = state / (fixPlans.length * 6) % 2 * 3;
+                    boolean delayedNotEnough = state / (fixPlans.length * 12) % 2 == 1;
+                    boolean finalDelayed = state / (fixPlans.length * 24) % 2 == 1;
+                    for (BlockFixContext context : new BlockFixContext[] {sequentialContext, pairContext}) {
+                        context.fixPlan = fixPlan;
+                        context.inFix = inFix;
+                        context.inPlace = inPlace;
+                    }
+                    sequential.setDelayedNotEnough(delayedNotEnough);
+                    pair.setDelayedNotEnough(delayedNotEnough);
+
+                    double initialSpeed = -0.1 * (state % 5);
+                    double low = sequential.calculateDelayedJumpJumps(initialSpeed, -1, finalDelayed);
+                    double high = sequential.calculateDelayedJumpJumps(initialSpeed, 1, finalDelayed);
+                    double pairHigh = pair.calculateDelayedJumpJumpsPair(initialSpeed, finalDelayed);
+                    cases++;
+                    if (low != pair.tempLow || high != pairHigh || sequential.tempBM != pair.tempBM ||
+                        sequential.tempV0 != pair.tempV0 || sequentialContext.inPlace != pairContext.inPlace) {
+                        mismatches++;
+                    }
+                }
+            }
+        }
+        System.out.println(cases + "种状态: " + (mismatches == 0 ? "一致" : mismatches + "个不一致"));
+        System.out.println();
+    }
+
+    /**
+     * 批量计算与PhysicsCalculator逐个计算对比（必须逐位一致）
+     * 有向量实现时同时对比向量实现和标量实现
+     */
+    private static void testPhysicsBatch() {
+        System.out.println("=== 批量计算对比 ===\n");
+
+        final int[][] sequences = {{12, 12, 12, 11}, {3, 3, 6}, {1, 1, 1}, {5, 2}, {20, 20, 20, 20, 20, 12}};
+        final double[] startCoords = {0.0, 0.3125};
+        double[] speeds = new double[1003];  // 不是向量长度的整数倍，末尾部分走标量
+        for (int k = 0; k < speeds.length; k++) {
+            speeds[k] = -0.0007 * k;
+        }
+        double[] bms = new double[speeds.length];
+        double[] velocities = new double[speeds.length];
+        double[] distances = new double[speeds.length];
+        double[] pbs = new double[speeds.length];
+
+        boolean vectorized = false;
+        int cases = 0;
+        int mismatches = 0;
+        for (int angleType = 1; angleType <= 4; angleType++) {
+            AngleConfig angle = new AngleConfig();
+            angle.setAngleType(angleType);
+            PhysicsCalculator calculator = new PhysicsCalculator(angle, new BlockFixContext());
+            calculator.setUseJumpPrefix(false);
+            for (int[] sequence : sequences) {
+                calculator.setAirtimeSequence(sequence);
+                for (double startCoord : startCoords) {
+                    calculator.setStartCoord(startCoord);
+                    PhysicsBatch[] batches = {PhysicsBatch.create(angle, sequence, startCoord),
+                                              PhysicsBatch.scalar(angle, sequence, startCoord)};
+                    vectorized |= batches[0].vectorized();
+                    for (int flags = 0; flags < 4; flags++) {
+                        boolean delayed = (flags & 1) != 0;
+                        boolean delayedNotEnough = (flags & 2) != 0;
+                        calculator.setDelayedNotEnough(delayedNotEnough);
+                        for (PhysicsBatch batch : batches) {
+                            batch.jumpBM(speeds, delayed, delayedNotEnough, bms, velocities);
+                            batch.finalJump(speeds, delayed, distances, pbs);
+                            for (int k = 0; k < speeds.length; k++) {
+                                double bm = calculator.calculateJumpBM(speeds[k], delayed);
+                                PhysicsCalculator.JumpResult jump = calculator.calculateFinalJump(speeds[k], delayed);
+                                cases++;
+                                if (bm != bms[k] || calculator.tempV0 != velocities[k] ||
+                                    jump.distance != distances[k] || jump.pb != pbs[k]) {
+                                    mismatches++;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        System.out.println("向量实现: " + (vectorized ? "已启用" : "未启用（使用标量实现）"));
+        System.out.println(cases + "个速度: " + (mismatches == 0 ? "一致" : mismatches + "个不一致"));
+        System.out.println();
+    }
+
+    /**
+     * 预先算好的移动参数与按原版的写法（BmSolverA2.sinMaker）现算的舍入对比（必须逐位一致）
+     */
+    private static void testMovementProfile() {
+        System.out.println("=== 移动参数对比 ===\n");
+
+        Random random = new Random(18);
+        int cases = 0;
+        int mismatches = 0;
+        for (int k = 0; k < 100005; k++) {
+            AngleConfig angle = new AngleConfig();
+            if (k < 5) {
+                angle.setAngleType(k);
+            } else {
+                angle.sin = 0.69f + 0.03f * random.nextFloat();
+                angle.cos = 0.69f + 0.03f * random.nextFloat();
+                angle.updateMovement();
+            }
+            AngleConfig.MovementProfile movement = angle.movement;
+            float sin = angle.sin;
+            float cos = angle.cos;
+            // BmSolverA2.sinMaker的写法：float常数乘float的sin/cos，按float相加
+            float airConstant = (float) 0.018384775;
+            float landingConstant = (float) 0.09192386;
+            double air = airConstant * sin + airConstant * cos;
+            double landing = landingConstant * sin + landingConstant * cos;
+            double velocity = random.nextDouble() * 2 - 1;
+            cases++;
+            if (movement.air != air || movement.landing != landing ||
+                velocity * (float)(0.91) + movement.air != velocity * (float)(0.91) + air ||
+                velocity * (float)(0.54600006) + movement.landing != velocity * (float)(0.54600006) + landing ||
+                movement.runEqualV0 != angle.runEqualV0 || movement.awRun != angle.awRun ||
+                (k > 0 && k < 5 && movement.awRun != landing)) {
+                mismatches++;
+            }
+        }
+        System.out.println(cases + "组sin/cos: " + (mismatches == 0 ? "一致" : mismatches + "个不一致"));
+        System.out.println();
+    }
+
+    /**
+     * 先判断能否进入阻断区间的计算与逐tick检测对比（返回值、tempV0/tempBM/tempLow、inPlace必须逐位一致）
+     */
+    private static void testBlockBound() {
+        System.out.println("=== 阻断区间判断对比 ===\n");
+
+        final int[] fixPlans = {0, 1, 2, 3, 4};
+        Random random = new Random(19);
+        int cases = 0;
+        int detected = 0;
+        int mismatches = 0;
+        for (int sequenceIndex = 0; sequenceIndex < 200; sequenceIndex++) {
+            int[] sequence = new int[2 + random.nextInt(6)];
+            int airtime = 1 + random.nextInt(25);
+            for (int i = 0; i < sequence.length; i++) {
+                sequence[i] = random.nextInt(4) == 0 ? 1 + random.nextInt(25) : airtime;
+            }
+            for (int angleType = 1; angleType <= 4; angleType++) {
+                AngleConfig angle = new AngleConfig();
+                angle.setAngleType(angleType);
+                BlockFixContext tickContext = new BlockFixContext();
+                BlockFixContext boundContext = new BlockFixContext();
+                PhysicsCalculator tick = new PhysicsCalculator(angle, tickContext);
+                PhysicsCalculator bound = new PhysicsCalculator(angle, boundContext);
+                tick.setUseBlockBound(false);
+                tick.setAirtimeSequence(sequence);
+                bound.setAirtimeSequence(sequence);
+                for (int state = 0; state < 200; state++) {
+                    int fixPlan = fixPlans[random.nextInt(fixPlans.length)];
+                    int inFix = random.nextInt(3) == 0 ? random.nextInt(6) : 0;
+                    int inPlace = random.nextInt(3) == 0 ? random.nextInt(5) : 0;
+                    int planSteps = random.nextInt(3);
+                    for (BlockFixContext context : new BlockFixContext[] {tickContext, boundContext}) {
+                        context.fixPlan = fixPlan;
+                        context.inFix = inFix;
+                        context.inPlace = inPlace;
+                        context.planSteps = planSteps;
+                        context.fixSpeed = 0.125;
+                    }
+                    boolean delayedNotEnough = random.nextBoolean();
+                    boolean finalDelayed = random.nextBoolean();
+                    tick.setDelayedNotEnough(delayedNotEnough);
+                    bound.setDelayedNotEnough(delayedNotEnough);
+
+                    // 起跳速度有一部分在阻断区间附近
+                    double jumpSpeed = (random.nextDouble() * 2.2 - 1.1) * (random.nextInt(3) == 0 ? 0.02 : 1);
+                    double initialSpeed = -random.nextDouble();
+                    double tickResult;
+                    double boundResult;
+                    switch (state % 3) {
+                        case 0:
+                            tickResult = tick.calculateDelayedJumpJumps(initialSpeed, jumpSpeed, finalDelayed);
+                            boundResult = bound.calculateDelayedJumpJumps(initialSpeed, jumpSpeed, finalDelayed);
+                            break;
+                        case 1:
+                            tickResult = tick.calculateDelayedJumpJumpsPair(initialSpeed, finalDelayed);
+                            boundResult = bound.calculateDelayedJumpJumpsPair(initialSpeed, finalDelayed);
+                            break;
+                        default:
+                            tickResult = tick.calculateEndToStart(initialSpeed, jumpSpeed);
+                            boundResult = bound.calculateEndToStart(initialSpeed, jumpSpeed);
+                            break;
+                    }
+                    cases++;
+                    if (tickContext.inPlace != 0 && inPlace == 0) {
+                        detected++;
+                    }
+                    if (Double.doubleToLongBits(tickResult) != Double.doubleToLongBits(boundResult) ||
+                        tick.tempV0 != bound.tempV0 || tick.tempBM != bound.tempBM ||
+                        (state % 3 == 1 && tick.tempLow != bound.tempLow) ||
+                        tickContext.inPlace != boundContext.inPlace) {
+                        mismatches++;
+                    }
+                }
+            }
+        }
+        System.out.println(cases + "种状态（其中" + detected + "种检测到阻断）: " +
+                           (mismatches == 0 ? "一致" : mismatches + "个不一致"));
+        System.out.println();
     }
     
+    /**
+     * 统一的连跳tick循环与原来各个方法中逐tick计算的写法对比（没有修复方案，返回值和tempV0必须逐位一致）
+     */
+    private static void testJumpKernel() {
+        System.out.println("=== 连跳tick循环对比 ===\n");
+
+        Random random = new Random(20);
+        int cases = 0;
+        int mismatches = 0;
+        for (int sequenceIndex = 0; sequenceIndex < 300; sequenceIndex++) {
+            int[] sequence = new int[2 + random.nextInt(6)];
+            int airtime = 1 + random.nextInt(25);
+            for (int i = 0; i < sequence.length; i++) {
+                sequence[i] = random.nextInt(3) == 0 ? 1 + random.nextInt(25) : airtime;
+            }
+            for (int angleType = 1; angleType <= 4; angleType++) {
+                AngleConfig angle = new AngleConfig();
+                angle.setAngleType(angleType);
+                double air = angle.movement.air;
+                double landing = angle.movement.landing;
+                PhysicsCalculator calculator = new PhysicsCalculator(angle, new BlockFixContext());
+                calculator.setUseJumpPrefix(false);
+                calculator.setAirtimeSequence(sequence);
+                double coord = random.nextBoolean() ? 0 : random.nextDouble() * 4;
+                calculator.setStartCoord(coord);
+                for (int state = 0; state < 40; state++) {
+                    boolean delayed = random.nextBoolean();
+                    boolean delayedNotEnough = random.nextBoolean();
+                    calculator.setDelayedNotEnough(delayedNotEnough);
+                    double speed = random.nextDouble() * 2 - 1;
+                    double jumpSpeed = random.nextInt(4) == 0 ? (random.nextBoolean() ? 1 : -1) : random.nextDouble() * 2 - 1;
+                    int start = delayed && delayedNotEnough ? 1 : 0;
+
+                    double[] expected = new double[10];
+                    referenceJumps(sequence, air, landing, coord + speed,
+                                   speed * MinecraftPhysicsConstants.FRICTION_GROUND + MinecraftPhysicsConstants.JUMP_BOOST +
+                                   MinecraftPhysicsConstants.GROUND_MOVEMENT, start, false, false, delayed, expected, 0);
+                    referenceJumps(sequence, air, landing, coord,
+                                   speed * MinecraftPhysicsConstants.FRICTION_GROUND + MinecraftPhysicsConstants.JUMP_BOOST +
+                                   MinecraftPhysicsConstants.GROUND_MOVEMENT, 0, false, false, delayed, expected, 2);
+                    referenceJumps(sequence, air, landing, coord + speed, jumpSpeed, start, true, false, delayed, expected, 4);
+                    referenceJumps(new int[] {sequence[0], 1}, air, landing, coord + speed, jumpSpeed, 0, true, false, false,
+                                   expected, 6);
+                    int backStart = delayedNotEnough && delayed ? 2 : 1;
+                    referenceJumps(sequence, air, landing, speed, speed, backStart, false, true, delayed, expected, 8);
+                    for (int k = 0; k < 10; k += 2) {
+                        if (k != 6) {
+                            expected[k] = expected[k] - coord - MinecraftPhysicsConstants.PLAYER_WIDTH_HALF;
+                        }
+                    }
+
+                    double[] actual = new double[10];
+                    actual[0] = calculator.calculateJumpBM(speed, delayed);
+                    actual[1] = calculator.tempV0;
+                    actual[2] = calculator.calculateRunJump(speed, delayed);
+                    actual[3] = calculator.tempV0;
+                    double result = calculator.calculateDelayedJumpJumps(speed, jumpSpeed, delayed);
+                    actual[4] = calculator.tempBM;
+                    actual[5] = calculator.tempV0;
+                    boolean delayedResult = result == (jumpSpeed == 1 || jumpSpeed == -1 ? calculator.tempBM : calculator.tempV0);
+                    actual[6] = calculator.calculateEndToStart(speed, jumpSpeed);
+                    actual[7] = calculator.tempV0;
+                    boolean backValid = backStart < sequence.length - 1;
+                    actual[8] = calculator.calculateBackToFrontUnit(speed, delayed);
+                    actual[9] = calculator.tempV0;
+
+                    cases++;
+                    boolean same = delayedResult;
+                    for (int k = 0; k < (backValid ? 10 : 8); k++) {
+                        same &= Double.doubleToLongBits(actual[k]) == Double.doubleToLongBits(expected[k]);
+                    }
+                    if (!backValid) {
+                        same &= actual[8] == MinecraftPhysicsConstants.INVALID_BM;
+                    }
+                    if (!same) {
+                        mismatches++;
+                    }
+                }
+            }
+        }
+        System.out.println(cases + "种状态: " + (mismatches == 0 ? "一致" : mismatches + "个不一致"));
+        System.out.println();
+    }
+
+    /**
+     * 分段模型与求解对比（分段点上逐位一致，其他位置误差在1e-8以内，超出范围时实时求解）
+     */
+    private static void testBmCurve() {
+        System.out.println("=== bm分段模型对比 ===\n");
+
+        BmSolverEngine engine = new BmSolverEngine();
+        int[][] setups = {{2, 12, 12}, {1, 4, 3}, {3, 2, 12}};
+        Random random = new Random(21);
+        for (int[] setup : setups) {
+            BmCurve curve = BmCurve.compile(engine, setup[0], setup[1], setup[2], 0.0625, 4);
+            int cases = 0;
+            int mismatches = 0;
+            for (int piece = 0; piece < curve.pieces(); piece++) {
+                double length = curve.start(piece);
+                SolveResult result = engine.solve(setup[0], setup[1], setup[2], length).result();
+                cases++;
+                if (curve.distance(length) != result.distance || curve.pb(length) != result.pb) {
+                    mismatches++;
+                }
+            }
+            for (int k = 0; k < 500; k++) {
+                double length = k % 5 == 0 ? MinecraftPhysicsConstants.BLOCK_SIZE * (1 + random.nextInt(64)) :
+                                0.0625 + random.nextDouble() * (4 - 0.0625);
+                double distance = engine.solve(setup[0], setup[1], setup[2], length).result().distance;
+                cases++;
+                if (!(Math.abs(curve.distance(length) - distance) <= 1e-8)) {
+                    mismatches++;
+                }
+            }
+            cases++;
+            if (curve.piece(5) != -1 ||
+                curve.distance(5) != engine.solve(setup[0], setup[1], setup[2], 5).result().distance) {
+                mismatches++;
+            }
+            System.out.println(setup[0] + ":" + setup[1] + ":" + setup[2] + " " + curve.pieces() + "段（求解" +
+                               curve.solves() + "次），" + cases + "个助跑长度: " +
+                               (mismatches == 0 ? "一致" : mismatches + "个不一致"));
+        }
+        System.out.println();
+    }
+
+    /**
+     * 反向查询与逐个求解整个网格对比（结果和排序必须相同，求解次数更少）
+     */
+    private static void testInverseQuery() {
+        System.out.println("=== 反向查询对比 ===\n");
+
+        BmSolverEngine engine = new BmSolverEngine();
+        int[] angleTypes = BmSolverSweep.range(1, 4);
+        int[] buildUpAirtimes = BmSolverSweep.range(1, 8);
+        int[] jumpAirtimes = BmSolverSweep.range(1, 12);
+        double[] lengths = BmSolverSweep.lengths(MinecraftPhysicsConstants.BLOCK_SIZE, 2);
+        SolveResult[][][][] grid = new SolveResult[angleTypes.length][buildUpAirtimes.length][jumpAirtimes.length][lengths.length];
+        for (int a = 0; a < angleTypes.length; a++) {
+            for (int b = 0; b < buildUpAirtimes.length; b++) {
+                for (int j = 0; j < jumpAirtimes.length; j++) {
+                    for (int l = 0; l < lengths.length; l++) {
+                        grid[a][b][j][l] = engine.solve(angleTypes[a], buildUpAirtimes[b], jumpAirtimes[j], lengths[l]).result();
+                    }
+                }
+            }
+        }
+
+        double[][] queries = {{4.375, 4.4375, 0}, {3.0, 3.0625, 0.03}, {2.5, 5.0, 0.5}, {100, 101, 0}};
+        for (double[] query : queries) {
+            BmSolverInverse inverse = new BmSolverInverse(engine, angleTypes, buildUpAirtimes, jumpAirtimes, lengths);
+            List<BmSolverInverse.Match> matches = inverse.find(query[0], query[1], query[2]);
+
+            List<String> expected = new ArrayList<>();
+            for (int a = 0; a < angleTypes.length; a++) {
+                for (int b = 0; b < buildUpAirtimes.length; b++) {
+                    for (int j = 0; j < jumpAirtimes.length; j++) {
+                        for (int l = 0; l < lengths.length; l++) {
+                            double distance = grid[a][b][j][l].distance;
+                            if (distance >= query[0] && distance < query[1] && distance - query[0] >= query[2]) {
+                                expected.add(angleTypes[a] + ":" + buildUpAirtimes[b] + ":" + jumpAirtimes[j] + ":" + lengths[l]);
+                            }
+                        }
+                    }
+                }
+            }
+            List<String> actual = new ArrayList<>();
+            boolean sorted = true;
+            for (int i = 0; i < matches.size(); i++) {
+                BmSolverInverse.Match match = matches.get(i);
+                actual.add(match.angleType + ":" + match.buildUpAirtime + ":" + match.jumpAirtime + ":" + match.buildUpLength);
+                if (i > 0 && matches.get(i - 1).pb < match.pb) {
+                    sorted = false;
+                }
+            }
+            boolean same = sorted && actual.size() == expected.size() && new HashSet<>(actual).equals(new HashSet<>(expected));
+            System.out.println("[" + query[0] + ", " + query[1] + ") 容错>=" + query[2] + ": " + matches.size() +
+                               "个设置, 求解" + inverse.solves() + "/" + inverse.size() + "次: " +
+                               (same ? "一致" : "不一致（应为" + expected.size() + "个）"));
+        }
+        System.out.println();
+    }
+
+    /**
+     * 所有跳法：按距离排序，最远的不比结果近，恰好有一种标为chosen并且与结果一致
+     * （连跳满助跑的结果只记录了jpb，用它对比容错）；
+     * 最远的不是chosen时，只能是连跳满助跑（结果的distance为0，或者推荐了跑跳）
+     */
+    private static void testCandidates() {
+        System.out.println("=== 所有跳法 ===\n");
+
+        BmSolverEngine engine = new BmSolverEngine();
+        int solves = 0;
+        int total = 0;
+        int morePb = 0;
+        int diverged = 0;
+        int wrong = 0;
+        for (int angleType = 1; angleType <= 4; angleType++) {
+            for (int buildUpAirtime : new int[] {1, 6, 12}) {
+                for (int jumpAirtime : new int[] {1, 6, 12}) {
+                    for (double length = 0.0625; length <= 6; length += 0.25) {
+                        BmSolverOptimized solver = engine.solve(angleType, buildUpAirtime, jumpAirtime, length);
+                        SolveResult result = solver.result();
+                        List<SolveCandidate> candidates = solver.candidates();
+                        int chosen = 0;
+                        boolean matches = false;
+                        boolean sorted = true;
+                        for (int i = 0; i < candidates.size(); i++) {
+                            SolveCandidate candidate = candidates.get(i);
+                            if (i > 0 && SolveCandidate.RANKING.compare(candidates.get(i - 1), candidate) > 0) {
+                                sorted = false;
+                            }
+                            if (candidate.chosen) {
+                                chosen++;
+                                if (result.strategy == SolveResult.Strategy.FULL_BUILD_UP) {
+                                    matches = candidate.strategy == result.strategy && candidate.pb == result.jpb &&
+                                              result.distance == 0;
+                                } else {
+                                    matches = candidate.strategy == result.strategy &&
+                                              candidate.delayed == result.delayed &&
+                                              candidate.distance == result.distance && candidate.pb == result.pb &&
+                                              candidate.loops == result.loopCount();
+                                }
+                            }
+                            if (candidate.pb > result.pb) {
+                                morePb++;
+                            }
+                        }
+                        SolveCandidate first = candidates.get(0);
+                        boolean divergenceOk = true;
+                        if (!first.chosen && first.distance > result.distance) {
+                            diverged++;
+                            divergenceOk = first.strategy == SolveResult.Strategy.FULL_BUILD_UP &&
+                                           (result.distance == 0 || result.strategy.isRunJump());
+                        }
+                        if (chosen != 1 || !matches || !sorted || first.distance < result.distance || !divergenceOk) {
+                            wrong++;
+                        }
+                        solves++;
+                        total += candidates.size();
+                    }
+                }
+            }
+        }
+        System.out.println(solves + "次求解, " + total + "种跳法, " + morePb + "种比结果容错大, " +
+                           diverged + "次最远的不是推荐的: " +
+                           (wrong == 0 ? "正确" : wrong + "次不正确"));
+        System.out.println();
+    }
+
+    /**
+     * sin表与AngleConfig的四种角度一致；搜索结果与45度附近逐个求解的最优值一致
+     * （窗口边上的组合都达不到最小距离，说明窗口外不会有更好的），也与不剪枝的搜索一致
+     */
+    private static void testAngleSearch() {
+        System.out.println("=== sin表角度搜索 ===\n");
+
+        float radians = 45 * (float) Math.PI / 180;
+        boolean table = BmAngleSearch.sin(radians) == 0.70710677f && BmAngleSearch.cos(radians) == 0.70710677f &&
+                        BmAngleSearch.table(8193) == 0.7071746f && BmAngleSearch.table(8193 + 16384) == 0.707039f &&
+                        BmAngleSearch.table(8192 + 16384 - 1) == 0.7071746f &&
+                        BmAngleSearch.table(8192 + 16384 - 64) == 0.7114322f;
+        System.out.println("sin表: " + (table ? "一致" : "不一致"));
+
+        final int window = 1200;
+        BmAngleSearch search = new BmAngleSearch(1);
+        BmSolverEngine engine = new BmSolverEngine();
+        int[][] setups = {{12, 12}, {6, 6}, {1, 12}};
+        double[] lengths = {1.8125, 0.5625, 2.0625};
+        for (int s = 0; s < setups.length; s++) {
+            int buildUpAirtime = setups[s][0];
+            int jumpAirtime = setups[s][1];
+            long before = search.solves();
+            BmAngleSearch.Angle farthest = search.farthest(buildUpAirtime, jumpAirtime, lengths[s]);
+            double minDistance = farthest.distance - 0.004;
+            BmAngleSearch.Angle maxPb = search.maxPb(buildUpAirtime, jumpAirtime, lengths[s], minDistance);
+            long solves = search.solves() - before;
+
+            double bestDistance = 0;
+            double bestPb = -1;
+            boolean edge = false;
+            for (int index = 8192 - window; index <= 8192 + window; index++) {
+                for (int offset = -1; offset <= 1; offset++) {
+                    AngleConfig config = new AngleConfig();
+                    config.sin = BmAngleSearch.table(index);
+                    config.cos = BmAngleSearch.table(index + 16384 + offset);
+                    config.setAngleType(0);
+                    BmSolverOptimized solver = new BmSolverOptimized(config);
+                    solver.solve(buildUpAirtime, jumpAirtime, lengths[s]);
+                    SolveResult result = solver.result();
+                    bestDistance = Math.max(bestDistance, result.distance);
+                    if (result.distance >= minDistance) {
+                        bestPb = Math.max(bestPb, result.pb);
+                        edge |= Math.abs(index - 8192) == window;
+                    }
+                }
+            }
+            boolean types = true;
+            for (int type = 1; type <= 3; type++) {
+                types &= engine.solve(type, buildUpAirtime, jumpAirtime, lengths[s]).result().distance <=
+                         farthest.distance;
+            }
+            boolean same = !edge && types && farthest.distance == bestDistance && maxPb != null && maxPb.pb == bestPb;
+            System.out.println(buildUpAirtime + "/" + jumpAirtime + "/" + lengths[s] + ": 最远 " + farthest.distance +
+                               "（" + farthest.sinIndex + ", 偏移" + farthest.offset() + "）, 容错最大 " +
+                               (maxPb == null ? "无" : maxPb.pb) + ", 求解" + solves + "次: " +
+                               (same ? "一致" : "不一致"));
+        }
+        
+        // 剪枝只是经验规律，对一种设置不剪枝求解所有组合来验证
+        BmAngleSearch.Angle pruned = search.farthest(12, 12, 1.8125);
+        search.setExhaustive(true);
+        long before = search.solves();
+        BmAngleSearch.Angle exhaustive = search.farthest(12, 12, 1.8125);
+        System.out.println("不剪枝（求解" + (search.solves() - before) + "次）: 最远 " + exhaustive.distance + ": " +
+                           (exhaustive.distance == pruned.distance ? "一致" : "不一致"));
+        System.out.println();
+    }
+
+    /**
+     * 起始坐标扫描：坐标的生成、每个坐标与单独求解一致、距离取值的统计
+     */
+    private static void testCoordSweep() {
+        System.out.println("=== 起始坐标扫描 ===\n");
+
+        double[] grid = BmCoordSweep.grid(0, 1, MinecraftPhysicsConstants.BLOCK_SIZE);
+        double[] ulps = BmCoordSweep.ulps(1.0, 3);
+        boolean coords = grid.length == 17 && grid[16] == 1.0 && grid[3] == 0.1875 &&
+                         ulps.length == 7 && ulps[3] == 1.0;
+        for (int i = 1; i < ulps.length; i++) {
+            coords &= Math.nextUp(ulps[i - 1]) == ulps[i];
+        }
+        System.out.println("坐标: " + (coords ? "正确" : "不正确"));
+
+        BmSolverEngine engine = new BmSolverEngine();
+        double[][] ranges = {BmCoordSweep.grid(0, 64, 0.25), BmCoordSweep.ulps(1e6, 200)};
+        for (double[] range : ranges) {
+            BmCoordSweep.Result result = BmCoordSweep.run(engine, 2, 12, 12, 1.8125, range);
+            boolean same = true;
+            for (int i = 0; i < result.size(); i += 37) {
+                SolveResult expected = engine.solve(2, 12, 12, 1.8125, range[i], 0).result();
+                same &= expected.distance == result.distance[i] && expected.pb == result.pb[i] &&
+                        expected.strategy == result.strategy[i];
+            }
+            int count = 0;
+            double previous = Double.POSITIVE_INFINITY;
+            for (BmCoordSweep.Level level : result.levels()) {
+                same &= level.distance < previous;
+                previous = level.distance;
+                count += level.count();
+            }
+            int best = result.best();
+            same &= count == result.size() && result.levels().get(0).distance == result.distance[best] &&
+                    result.origin.distance == engine.solve(2, 12, 12, 1.8125).result().distance;
+            System.out.println("[" + range[0] + ", " + range[range.length - 1] + "] " + result.size() + "个坐标, " +
+                               result.levels().size() + "种距离, 最远 " + result.distance[best] + "（坐标" +
+                               result.coord[best] + "）: " + (same ? "一致" : "不一致"));
+        }
+        System.out.println();
+    }
+
+    /**
+     * 原来各个方法中的逐tick写法：起跳tick之后的速度和bm，连跳[start, length - 1)，
+     * result[offset]是bm（没有减去起始坐标），result[offset + 1]是最后的速度
+     *
+     * @param addShortAirtime 滞空时间小于2时也把速度加到bm（原delayedJumpJumps/endMStart）
+     * @param jumpTick 第一个连跳前也是普通跳跃tick（原backToFrontUnit）
+     */
+    private static void referenceJumps(int[] sequence, double air, double landing, double bm, double velocity, int start,
+                                       boolean addShortAirtime, boolean jumpTick, boolean delayed,
+                                       double[] result, int offset) {
+        if (!jumpTick) {
+            bm += velocity;
+        }
+        for (int i = start; i < sequence.length - 1; i++) {
+            if (i > start || jumpTick) {
+                velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + MinecraftPhysicsConstants.JUMP_BOOST +
+                           MinecraftPhysicsConstants.GROUND_MOVEMENT;
+                bm += velocity;
+            }
+            if (sequence[i] >= 2) {
+                velocity = velocity * MinecraftPhysicsConstants.FRICTION_GROUND + air;
+                if (!addShortAirtime) {
+                    bm += velocity;
+                }
+            }
+            if (addShortAirtime) {
+                bm += velocity;
+            }
+            for (int l = 0; l < sequence[i] - 2; l++) {
+                velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + air;
+                bm += velocity;
+            }
+        }
+        if (delayed) {
+            velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + landing;
+        } else {
+            bm -= velocity;
+        }
+        result[offset] = bm;
+        result[offset + 1] = velocity;
+    }
+
     /**
      * 对比两个结果是否一致
      */
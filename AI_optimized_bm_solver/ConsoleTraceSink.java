@@ -0,0 +1,29 @@
+import java.io.PrintStream;
+
+/**
+ * 把调试事件输出到控制台（输出内容与原来的System.out.println相同）
+ */
+public class ConsoleTraceSink implements TraceSink {
+    private final PrintStream out;
+    
+    /**
+     * 输出到当前的System.out
+     */
+    public ConsoleTraceSink() {
+        this(null);
+    }
+    
+    public ConsoleTraceSink(PrintStream out) {
+        this.out = out;
+    }
+    
+    @Override
+    public boolean enabled() {
+        return true;
+    }
+    
+    @Override
+    public void event(TraceEvent event, Object... values) {
+        (out != null ? out : System.out).println(event.format(values));
+    }
+}
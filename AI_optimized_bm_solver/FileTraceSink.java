@@ -0,0 +1,39 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 把调试事件写入文件（每条事件一行，内容与控制台输出相同）
+ * 用完需要close()
+ */
+public class FileTraceSink implements TraceSink, Closeable {
+    private final BufferedWriter writer;
+    
+    public FileTraceSink(Path path) throws IOException {
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+    }
+    
+    @Override
+    public boolean enabled() {
+        return true;
+    }
+    
+    @Override
+    public synchronized void event(TraceEvent event, Object... values) {
+        try {
+            writer.write(event.format(values));
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,278 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 简单的JSON读写（服务模式用）
+ *
+ * 只支持服务协议需要的部分：
+ * - 读：一层的对象，值是字符串、数字、true/false/null（数字统一读成Double）
+ * - 写：字符串转义、数字（NaN/无穷输出null）、SolveResult
+ *
+ * 不依赖第三方库，保持整个目录可以直接javac编译。
+ */
+final class Json {
+    private Json() {
+    }
+
+    /**
+     * 解析一个JSON对象
+     *
+     * @throws IllegalArgumentException 格式错误或包含嵌套的对象/数组
+     */
+    static Map<String, Object> parseObject(String text) {
+        Parser parser = new Parser(text);
+        Map<String, Object> object = parser.object();
+        parser.skipWhitespace();
+        if (parser.position < text.length()) {
+            throw parser.error("对象之后还有多余的内容");
+        }
+        return object;
+    }
+
+    /**
+     * 追加带引号的字符串
+     */
+    static StringBuilder appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+
+    /**
+     * 追加数字，Double.toString保证读回来是同一个double
+     */
+    static StringBuilder appendNumber(StringBuilder out, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return out.append("null");
+        }
+        return out.append(value);
+    }
+
+    /**
+     * 追加任意值（字符串、数字、布尔、null）
+     * 读进来的整数（例如请求的id）是Double，原样写回时不带小数点
+     */
+    static StringBuilder appendValue(StringBuilder out, Object value) {
+        if (value == null) {
+            return out.append("null");
+        }
+        if (value instanceof String) {
+            return appendString(out, (String) value);
+        }
+        if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            if (number == Math.rint(number) && Math.abs(number) < 1e15) {
+                return out.append((long) number);
+            }
+            return appendNumber(out, number);
+        }
+        return out.append(value);
+    }
+
+    /**
+     * 追加求解结果的字段（不含外层的大括号），text不为null时附带文字说明
+     */
+    static StringBuilder appendResultFields(StringBuilder out, SolveResult result, SolveResult.Language text) {
+        out.append("\"distance\":");
+        appendNumber(out, result.distance);
+        out.append(",\"pb\":");
+        appendNumber(out, result.pb);
+        out.append(",\"jpb\":");
+        appendNumber(out, result.jpb);
+        out.append(",\"loops\":").append(result.loops)
+           .append(",\"deloops\":").append(result.deloops)
+           .append(",\"jloops\":").append(result.jloops)
+           .append(",\"delayed\":").append(result.delayed)
+           .append(",\"strategy\":\"").append(result.strategy).append('"')
+           .append(",\"blockFixPlan\":").append(result.blockFixPlan)
+           .append(",\"bwmmBlockFixPlan\":").append(result.bwmmBlockFixPlan)
+           .append(",\"backwardSpeed\":");
+        appendNumber(out, result.backwardSpeed);
+        out.append(",\"landSpeed\":");
+        appendNumber(out, result.landSpeed);
+        out.append(",\"jumpSpeed\":");
+        appendNumber(out, result.jumpSpeed);
+        if (text != null) {
+            out.append(",\"text\":[");
+            String[] lines = result.lines(text);
+            for (int i = 0; i < lines.length; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                appendString(out, lines[i]);
+            }
+            out.append(']');
+        }
+        return out;
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int position;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Map<String, Object> object() {
+            Map<String, Object> object = new LinkedHashMap<>();
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                position++;
+                return object;
+            }
+            while (true) {
+                skipWhitespace();
+                String key = string();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                object.put(key, value());
+                skipWhitespace();
+                char c = next();
+                if (c == '}') {
+                    return object;
+                }
+                if (c != ',') {
+                    throw error("需要 ',' 或 '}'");
+                }
+            }
+        }
+
+        private Object value() {
+            char c = peek();
+            if (c == '"') {
+                return string();
+            }
+            if (c == '{' || c == '[') {
+                throw error("不支持嵌套的对象或数组");
+            }
+            if (text.startsWith("true", position)) {
+                position += 4;
+                return Boolean.TRUE;
+            }
+            if (text.startsWith("false", position)) {
+                position += 5;
+                return Boolean.FALSE;
+            }
+            if (text.startsWith("null", position)) {
+                position += 4;
+                return null;
+            }
+            int start = position;
+            while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+                position++;
+            }
+            if (start == position) {
+                throw error("无法识别的值");
+            }
+            try {
+                return Double.valueOf(text.substring(start, position));
+            } catch (NumberFormatException e) {
+                throw error("数字格式错误");
+            }
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw error("\\u转义不完整");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("\\u转义格式错误");
+                        }
+                        position += 4;
+                        break;
+                    default:
+                        value.append(escaped);
+                }
+            }
+        }
+
+        void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private char peek() {
+            if (position >= text.length()) {
+                throw error("意外的结尾");
+            }
+            return text.charAt(position);
+        }
+
+        private char next() {
+            char c = peek();
+            position++;
+            return c;
+        }
+
+        private void expect(char expected) {
+            if (next() != expected) {
+                position--;
+                throw error("需要 '" + expected + "'");
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("JSON格式错误（位置" + position + "）: " + message);
+        }
+    }
+}
@@ -26,6 +26,10 @@ public class JumpOptimizer {
     private final BlockFixHandler blockFixHandler;
     private final AngleConfig angleConfig;
     
+    // 最近一次向前跳/向后跳使用的移动阻断方案（对应原jsplan/djsplan，0=没有阻断）
+    public int forwardJumpPlan = 0;
+    public int backwardJumpPlan = 0;
+    
     public JumpOptimizer(PhysicsCalculator physicsCalculator, BlockFixContext blockFixContext, 
                         BlockFixHandler blockFixHandler, AngleConfig angleConfig) {
         this.physicsCalculator = physicsCalculator;
@@ -57,22 +61,29 @@ public class JumpOptimizer {
         blockFixContext.jFinals = false;
         
         // 使用二分法找到使calculateDelayedJumpJumps返回目标bm的起跳速度
-        double fbm = physicsCalculator.calculateDelayedJumpJumps(initialSpeed, -1, false);
-        double sbm = physicsCalculator.calculateDelayedJumpJumps(initialSpeed, 1, false);
+        double sbm = physicsCalculator.calculateDelayedJumpJumpsPair(initialSpeed, false);
+        double fbm = physicsCalculator.tempLow;
         double optimalJumpSpeed = 2 * ((targetBM - fbm) / (sbm - fbm)) - 1;
         
-        System.out.println("finJS: " + optimalJumpSpeed);
+        if (blockFixContext.trace.enabled()) {
+            blockFixContext.trace.event(TraceEvent.FORWARD_JUMP_SPEED, optimalJumpSpeed);
+        }
         
         blockFixContext.jFinals = true;
         physicsCalculator.calculateDelayedJumpJumps(initialSpeed, optimalJumpSpeed, false);
         
         // 如果遇到移动阻断，尝试三种方案
         if (blockFixContext.inPlace > 0) {
-            return blockFixHandler.handleBlockFix(targetBM, initialSpeed, false);
+            double speed = blockFixHandler.handleBlockFix(targetBM, initialSpeed, false);
+            forwardJumpPlan = blockFixHandler.lastPlan;
+            return speed;
         }
+        forwardJumpPlan = 0;
         
-        System.out.println(physicsCalculator.tempBM + " finbm  " + physicsCalculator.tempV0 + 
-                          " tempv0 " + optimalJumpSpeed + " js plan: 0");
+        if (blockFixContext.trace.enabled()) {
+            blockFixContext.trace.event(TraceEvent.FORWARD_JUMP_RESULT, physicsCalculator.tempBM,
+                                        physicsCalculator.tempV0, optimalJumpSpeed);
+        }
         return physicsCalculator.tempV0;
     }
     
@@ -85,22 +96,33 @@ public class JumpOptimizer {
      * @return 最终的向后速度
      */
     public double optimizeBackwardJump(double targetBM, double initialSpeed) {
-        double fbm = physicsCalculator.calculateDelayedJumpJumps(initialSpeed, -1, true);
-        double sbm = physicsCalculator.calculateDelayedJumpJumps(initialSpeed, 1, true);
-        System.out.println("fbm: " + fbm + " sbm: " + sbm);
+        double sbm = physicsCalculator.calculateDelayedJumpJumpsPair(initialSpeed, true);
+        double fbm = physicsCalculator.tempLow;
+        if (blockFixContext.trace.enabled()) {
+            blockFixContext.trace.event(TraceEvent.BACKWARD_JUMP_PROBE, fbm, sbm);
+        }
         
         double optimalJumpSpeed = 2 * ((targetBM - fbm) / (sbm - fbm)) - 1;
         physicsCalculator.calculateDelayedJumpJumps(initialSpeed, optimalJumpSpeed, true);
-        System.out.println("run: " + physicsCalculator.tempBM + " finbm  " + optimalJumpSpeed);
+        if (blockFixContext.trace.enabled()) {
+            blockFixContext.trace.event(TraceEvent.BACKWARD_JUMP_SPEED, physicsCalculator.tempBM, optimalJumpSpeed);
+        }
         
         // 如果遇到移动阻断，尝试三种方案
         if (blockFixContext.inPlace > 0) {
-            return blockFixHandler.handleBlockFix(targetBM, initialSpeed, true);
+            double speed = blockFixHandler.handleBlockFix(targetBM, initialSpeed, true);
+            backwardJumpPlan = blockFixHandler.lastPlan;
+            return speed;
         }
+        backwardJumpPlan = 0;
         
-        System.out.println("now s0: " + initialSpeed);
-        System.out.println("run: " + physicsCalculator.tempBM + " finbm  " + physicsCalculator.tempV0 + 
-                          " tempv0 " + optimalJumpSpeed + " js plan: 0");
+        if (blockFixContext.trace.enabled()) {
+            blockFixContext.trace.event(TraceEvent.BACKWARD_JUMP_START, initialSpeed);
+        }
+        if (blockFixContext.trace.enabled()) {
+            blockFixContext.trace.event(TraceEvent.BACKWARD_JUMP_RESULT, physicsCalculator.tempBM,
+                                        physicsCalculator.tempV0, optimalJumpSpeed);
+        }
         return physicsCalculator.tempV0;
     }
     
@@ -0,0 +1,112 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 延迟直方图（线程安全，记录时不加锁）
+ *
+ * 桶按纳秒值的对数划分，每个2的幂再分成8份（相对误差不超过12.5%）：
+ * - 0~7ns：每ns一个桶
+ * - 之后：最高位的位置 + 接下来的3位决定桶
+ * 全部范围只需要不到500个桶，百分位数取所在桶的上界。
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一次耗时（纳秒）
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(index(nanos));
+        total.incrementAndGet();
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long count() {
+        return total.get();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * 百分位数（纳秒，所在桶的上界），还没有记录时返回0
+     *
+     * @param percentile 0~100
+     */
+    public long percentile(double percentile) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * 以JSON对象输出：数量、常用百分位数和非空的桶（单位微秒）
+     */
+    public StringBuilder appendJson(StringBuilder out) {
+        out.append("{\"count\":").append(count());
+        appendMicros(out.append(",\"p50\":"), percentile(50));
+        appendMicros(out.append(",\"p90\":"), percentile(90));
+        appendMicros(out.append(",\"p99\":"), percentile(99));
+        appendMicros(out.append(",\"p999\":"), percentile(99.9));
+        appendMicros(out.append(",\"max\":"), max());
+        out.append(",\"buckets\":[");
+        boolean first = true;
+        for (int i = 0; i < BUCKETS; i++) {
+            long bucketCount = counts.get(i);
+            if (bucketCount == 0) {
+                continue;
+            }
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            appendMicros(out.append('['), upperBound(i)).append(',').append(bucketCount).append(']');
+        }
+        return out.append("]}");
+    }
+
+    private static StringBuilder appendMicros(StringBuilder out, long nanos) {
+        return out.append(nanos / 1000.0);
+    }
+
+    private static int index(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * 桶内的最大值
+     */
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BITS);
+        return lower + (1L << (exponent - SUB_BITS)) - 1;
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Loop过程的速度和距离（每次loop一项，下标与loops/deloops/jloops相同）
+ *
+ * 在optimizeWithLoop中顺带记录，求解结束后不可变，查询只扫描记录下来的数组，不需要重新求解：
+ * - speed(n)：第n次loop后的向后速度（负数，与SolveResult.backwardSpeed相同）
+ * - distance(n)/pb(n)：用这个速度起跳能跳出的最远距离和容错
+ *   （与loop中计算jloops/jpb的方式相同；已经可以满助跑时取满助跑的距离）
+ *
+ * 例如"loop几次就能让速度与最终速度相差不到0.001"用minLoopsWithin(0.001)，
+ * "loop几次就能以至少0.01的容错跳过最终那一格"用minLoopsForPb(0.01)。
+ */
+public final class LoopProfile {
+    private final double[] speeds;
+    private final double[] distances;
+    private final double[] pbs;
+
+    LoopProfile(double[] speeds, double[] distances, double[] pbs) {
+        this.speeds = speeds;
+        this.distances = distances;
+        this.pbs = pbs;
+    }
+
+    /**
+     * 记录的项数（deloops + 1）
+     */
+    public int size() {
+        return speeds.length;
+    }
+
+    public double speed(int loops) {
+        return speeds[loops];
+    }
+
+    public double distance(int loops) {
+        return distances[loops];
+    }
+
+    public double pb(int loops) {
+        return pbs[loops];
+    }
+
+    /**
+     * 最后一次loop后的向后速度
+     */
+    public double finalSpeed() {
+        return speeds[speeds.length - 1];
+    }
+
+    /**
+     * 向后速度达到speed（speed(n) <= speed）所需的最少loop次数，达不到时返回-1
+     */
+    public int minLoopsForSpeed(double speed) {
+        for (int n = 0; n < speeds.length; n++) {
+            if (speeds[n] <= speed) {
+                return n;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 向后速度与最终速度相差不超过tolerance所需的最少loop次数
+     */
+    public int minLoopsWithin(double tolerance) {
+        double last = finalSpeed();
+        for (int n = 0; n < speeds.length; n++) {
+            if (Math.abs(speeds[n] - last) <= tolerance) {
+                return n;
+            }
+        }
+        return speeds.length - 1;
+    }
+
+    /**
+     * 跳过能达到的最远一格（最远距离减去容错）并且容错不小于pb所需的最少loop次数，达不到时返回-1
+     * minLoopsForPb(0)就是第一次跳过这一格的loop次数
+     */
+    public int minLoopsForPb(double pb) {
+        double mark = 0;
+        for (int n = 0; n < distances.length; n++) {
+            mark = Math.max(mark, distances[n] - pbs[n]);
+        }
+        for (int n = 0; n < distances.length; n++) {
+            if (distances[n] - pbs[n] == mark && pbs[n] >= pb) {
+                return n;
+            }
+        }
+        return -1;
+    }
+}
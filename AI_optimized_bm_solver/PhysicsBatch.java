@@ -0,0 +1,167 @@
+/**
+ * 批量物理计算（同一个滞空时间序列和角度，很多个互不相关的速度）
+ *
+ * 扫描起始速度时需要对成千上万个速度计算calculateJumpBM/calculateFinalJump，
+ * 这里一次处理整个数组，每个元素的运算顺序与PhysicsCalculator完全相同，结果逐位一致
+ * （对应默认的逐tick计算，没有移动阻断修复方案，不是仿射内核）。
+ *
+ * create()优先使用vector/VectorPhysicsBatch：用jdk.incubator.vector的DoubleVector把
+ * 一整组速度和bm逐tick一起推进（只用逐元素的乘法和加法，不用fma，舍入与标量相同）。
+ * 这个类需要单独编译，运行时也要加 --add-modules jdk.incubator.vector；
+ * 没有编译它或者没有这个模块时，自动使用本类的标量实现。
+ *
+ * 求解器本身和BmSolverSweep、BmCoordSweep、BmCurve都不使用这个类：它们每个格子都是一次完整的求解，
+ * loop中的速度一次依赖上一次，没有"同一个序列、很多个独立速度"的计算可以批量做。
+ * 这个类是给直接扫描起跳速度的调用者用的（例如对一组速度画出距离曲线），结果与逐个调用PhysicsCalculator相同。
+ */
+public class PhysicsBatch {
+    private static final String VECTOR_IMPLEMENTATION = "VectorPhysicsBatch";
+
+    protected final int[] airtimeSequence;
+    protected final double startCoord;
+    protected final float airMovement;      // 空中45度加速
+    protected final float landingMovement;  // 落地时45度加速
+
+    protected PhysicsBatch(AngleConfig angleConfig, int[] airtimeSequence, double startCoord) {
+        if (airtimeSequence.length < 1) {
+            throw new IllegalArgumentException("滞空时间序列不能为空");
+        }
+        this.airtimeSequence = airtimeSequence.clone();
+        this.startCoord = startCoord;
+        this.airMovement = angleConfig.movement.air;
+        this.landingMovement = angleConfig.movement.landing;
+    }
+
+    /**
+     * 有向量实现时使用向量实现，否则使用标量实现
+     */
+    public static PhysicsBatch create(AngleConfig angleConfig, int[] airtimeSequence, double startCoord) {
+        try {
+            return (PhysicsBatch) Class.forName(VECTOR_IMPLEMENTATION)
+                .getConstructor(AngleConfig.class, int[].class, double.class)
+                .newInstance(angleConfig, airtimeSequence, startCoord);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // 没有编译向量实现，或者运行时没有jdk.incubator.vector模块
+            return scalar(angleConfig, airtimeSequence, startCoord);
+        }
+    }
+
+    /**
+     * 标量实现
+     */
+    public static PhysicsBatch scalar(AngleConfig angleConfig, int[] airtimeSequence, double startCoord) {
+        return new PhysicsBatch(angleConfig, airtimeSequence, startCoord);
+    }
+
+    /**
+     * 是否是向量实现
+     */
+    public boolean vectorized() {
+        return false;
+    }
+
+    /**
+     * 批量calculateJumpBM：bms[k]是返回值，velocities[k]是tempV0
+     *
+     * @param delayedNotEnough 对应PhysicsCalculator.delayedNotEnough（delayed时跳过第一个连跳）
+     */
+    public void jumpBM(double[] initialBackwardSpeeds, boolean delayed, boolean delayedNotEnough,
+                       double[] bms, double[] velocities) {
+        jumpBM(initialBackwardSpeeds, delayed, delayedNotEnough, bms, velocities, 0, initialBackwardSpeeds.length);
+    }
+
+    /**
+     * 批量calculateFinalJump：distances[k]、pbs[k]对应JumpResult.distance、JumpResult.pb
+     */
+    public void finalJump(double[] jumpVelocities, boolean delayed, double[] distances, double[] pbs) {
+        finalJump(jumpVelocities, delayed, distances, pbs, 0, jumpVelocities.length);
+    }
+
+    /**
+     * 标量计算[from, to)（向量实现用它处理数组末尾不足一组的部分）
+     */
+    protected void jumpBM(double[] initialBackwardSpeeds, boolean delayed, boolean delayedNotEnough,
+                          double[] bms, double[] velocities, int from, int to) {
+        int startIndex = delayed && delayedNotEnough ? 1 : 0;
+        for (int k = from; k < to; k++) {
+            double velocity = initialBackwardSpeeds[k];
+            double bm = startCoord + velocity;
+
+            // 起跳tick
+            velocity = velocity * MinecraftPhysicsConstants.FRICTION_GROUND +
+                      MinecraftPhysicsConstants.JUMP_BOOST +
+                      MinecraftPhysicsConstants.GROUND_MOVEMENT;
+            bm += velocity;
+
+            for (int i = startIndex; i < airtimeSequence.length - 1; i++) {
+                if (i > startIndex) {
+                    velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR +
+                              MinecraftPhysicsConstants.JUMP_BOOST +
+                              MinecraftPhysicsConstants.GROUND_MOVEMENT;
+                    bm += velocity;
+                }
+                if (airtimeSequence[i] >= 2) {
+                    velocity = velocity * MinecraftPhysicsConstants.FRICTION_GROUND + airMovement;
+                    bm += velocity;
+                }
+                for (int l = 0; l < airtimeSequence[i] - 2; l++) {
+                    velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + airMovement;
+                    bm += velocity;
+                }
+            }
+
+            if (!delayed) {
+                bm -= velocity;
+            } else {
+                velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + landingMovement;
+            }
+            velocities[k] = velocity;
+            bms[k] = bm - startCoord - MinecraftPhysicsConstants.PLAYER_WIDTH_HALF;
+        }
+    }
+
+    /**
+     * 标量计算[from, to)
+     */
+    protected void finalJump(double[] jumpVelocities, boolean delayed, double[] distances, double[] pbs,
+                             int from, int to) {
+        int airtime = airtimeSequence[airtimeSequence.length - 1];
+        double jumpFriction = delayed ? MinecraftPhysicsConstants.FRICTION_GROUND : MinecraftPhysicsConstants.FRICTION_AIR;
+        for (int k = from; k < to; k++) {
+            double distance = startCoord + MinecraftPhysicsConstants.PLAYER_CENTER_OFFSET;
+            double velocity = jumpVelocities[k];
+            distance += velocity;
+
+            // 起跳tick
+            velocity = velocity * jumpFriction +
+                      MinecraftPhysicsConstants.JUMP_BOOST +
+                      MinecraftPhysicsConstants.GROUND_MOVEMENT;
+            distance += velocity;
+
+            if (airtime > 2) {
+                velocity = velocity * MinecraftPhysicsConstants.FRICTION_GROUND + airMovement;
+                distance += velocity;
+            }
+            for (int l = 0; l < airtime - 3; l++) {
+                velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + airMovement;
+                distance += velocity;
+            }
+            distances[k] = distance;
+        }
+        finishFinalJump(distances, pbs, from, to);
+    }
+
+    /**
+     * 把累加的距离换算成最终距离和pb（与calculateFinalJump末尾相同）
+     */
+    protected void finishFinalJump(double[] distances, double[] pbs, int from, int to) {
+        for (int k = from; k < to; k++) {
+            double distance = distances[k];
+            double finalDistance = distance - (startCoord - MinecraftPhysicsConstants.PLAYER_CENTER_OFFSET) -
+                                  Math.ulp(distance);
+            distances[k] = finalDistance;
+            pbs[k] = finalDistance - MinecraftPhysicsConstants.BLOCK_SIZE *
+                     ((int)(finalDistance / MinecraftPhysicsConstants.BLOCK_SIZE));
+        }
+    }
+}
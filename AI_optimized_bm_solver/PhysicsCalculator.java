@@ -1,3 +1,5 @@
+import java.util.Arrays;
+
 /**
  * 物理计算核心类
  * 
@@ -20,19 +22,47 @@
 public class PhysicsCalculator {
     private final AngleConfig angleConfig;
     private final BlockFixContext blockFixContext;
+    private final AffineJumpKernel affineKernel;
     
     // 计算状态
     private double coord2 = 0.0;           // 起始坐标
     public int[] airtimeSequence;          // 滞空时间序列（对应原ti）- 需要public供其他类访问
     public boolean delayedNotEnough = false; // 对应原dne - 需要public供其他类访问
+    private boolean uniformBuildUp = false;   // 助跑部分的滞空时间是否全部相同
+    private boolean useAffineKernel = false;  // 是否使用仿射内核（见AffineJumpKernel）
+    private boolean useJumpPrefix = true;     // 是否复用连跳前缀状态（见JumpState）
+    private boolean useBlockBound = true;     // 是否先判断能否进入移动阻断区间（见blockWindowReachable）
+    
+    // 空中阻断阈值（与逐tick检测相同，先转成float）和空中速度衰减AIR_DECAY[n] = 0.91^n
+    private static final double AIR_BLOCK_THRESHOLD = (float)(MinecraftPhysicsConstants.BLOCK_THRESHOLD_AIR);
+    private static final double BOUND_SLACK = 1e-9;
+    private static final double[] AIR_DECAY = new double[128];
+    static {
+        AIR_DECAY[0] = 1;
+        for (int n = 1; n < AIR_DECAY.length; n++) {
+            AIR_DECAY[n] = AIR_DECAY[n - 1] * MinecraftPhysicsConstants.FRICTION_AIR;
+        }
+    }
+    
+    // 连跳前缀状态缓存（按起跳tick后的速度和bm区分）
+    private static final int PREFIX_SLOTS = 32;
+    private final JumpState[] prefixes = new JumpState[PREFIX_SLOTS];
+    private int prefixAirtime = -1;        // 缓存对应的助跑滞空时间
+    private float prefixSin;               // 缓存对应的角度
+    private float prefixCos;
+    private long prefixClock = 0;
     
     // 临时计算结果
     public double tempBM = 0.0;            // 临时计算的bm
     public double tempV0 = 0.0;            // 临时计算的速度
+    public double tempLow = 0.0;           // 两点计算中起跳速度为-1的结果（见calculateDelayedJumpJumpsPair）
+    private double kernelVelocity;         // runJumps计算后的速度
+    private double kernelBM;               // runJumps计算后的bm（没有减去起始坐标）
     
     public PhysicsCalculator(AngleConfig angleConfig, BlockFixContext blockFixContext) {
         this.angleConfig = angleConfig;
         this.blockFixContext = blockFixContext;
+        this.affineKernel = new AffineJumpKernel(angleConfig);
     }
     
     /**
@@ -40,6 +70,40 @@ public class PhysicsCalculator {
      */
     public void setAirtimeSequence(int[] sequence) {
         this.airtimeSequence = sequence;
+        
+        // 仿射内核只处理助跑部分滞空时间全部相同的序列
+        uniformBuildUp = true;
+        for (int i = 1; i < sequence.length - 1; i++) {
+            if (sequence[i] != sequence[0]) {
+                uniformBuildUp = false;
+                break;
+            }
+        }
+    }
+    
+    /**
+     * 设置是否使用仿射内核
+     * 开启后calculateJumpBM、calculateBackToFrontUnit、calculateRunJump的连跳部分
+     * 由逐tick计算改为O(log 连跳次数)的仿射组合，结果会有最后几位的浮点误差
+     */
+    public void setUseAffineKernel(boolean value) {
+        this.useAffineKernel = value;
+    }
+    
+    /**
+     * 设置是否复用连跳前缀状态
+     * 连跳次数+1时只追加一个连跳，而不是从头计算，结果与逐tick计算完全一致
+     */
+    public void setUseJumpPrefix(boolean value) {
+        this.useJumpPrefix = value;
+    }
+    
+    /**
+     * 设置是否在calculateDelayedJumpJumps/calculateEndToStart之前先判断速度能否进入移动阻断区间
+     * 不能进入（并且没有进行中的修复方案、不输出tick调试事件）时使用不做阻断判断的循环，结果完全一致
+     */
+    public void setUseBlockBound(boolean value) {
+        this.useBlockBound = value;
     }
     
     /**
@@ -80,64 +144,16 @@ public class PhysicsCalculator {
      * @return 能够达到的向前bm（相对于起始坐标）
      */
     public double calculateJumpBM(double initialBackwardSpeed, boolean delayed) {
-        double velocity = initialBackwardSpeed;
-        double bm = coord2 + initialBackwardSpeed;
-        
-        // 起跳tick
-        if (blockFixContext.fixPlan == 4) {
-            velocity = blockFixContext.fixSpeed;
-        } else {
-            velocity = velocity * MinecraftPhysicsConstants.FRICTION_GROUND + 
-                      MinecraftPhysicsConstants.JUMP_BOOST + 
-                      MinecraftPhysicsConstants.GROUND_MOVEMENT;
-        }
-        bm += velocity;
-        
         // 确定起始索引（如果delayed且dne，跳过第一个）
         int startIndex = 0;
         if (delayed && delayedNotEnough) {
             startIndex = 1;
         }
         
-        // 遍历每个连跳
-        for (int i = startIndex; i < airtimeSequence.length - 1; i++) {
-            if (i > startIndex) {
-                // 普通跳跃tick（落地后起跳）
-                velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + 
-                          MinecraftPhysicsConstants.JUMP_BOOST + 
-                          MinecraftPhysicsConstants.GROUND_MOVEMENT;
-                bm += velocity;
-            }
-            
-            // 第一个airtime使用45度加速（如果airtime >= 2）
-            if (airtimeSequence[i] >= 2) {
-                velocity = velocity * MinecraftPhysicsConstants.FRICTION_GROUND + 
-                          (MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.sin + 
-                           MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.cos);
-                bm += velocity;
-            }
-            
-            // 后续airtime ticks使用45度加速
-            for (int l = 0; l < airtimeSequence[i] - 2; l++) {
-                velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + 
-                          (MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.sin + 
-                           MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.cos);
-                bm += velocity;
-            }
-        }
-        
-        // 最后处理
-        if (!delayed) {
-            bm -= velocity;  // 还没落地，减去最后一tick的速度
-        } else {
-            // delayed起跳，落地时使用45度加速
-            velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + 
-                      (MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.sin + 
-                       MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.cos);
-        }
-        
-        tempV0 = velocity;
-        return bm - coord2 - MinecraftPhysicsConstants.PLAYER_WIDTH_HALF;
+        runJumps(JumpPhase.JUMP_BM, initialBackwardSpeed, coord2 + initialBackwardSpeed,
+                 startIndex, airtimeSequence.length - 1, delayed);
+        tempV0 = kernelVelocity;
+        return kernelBM - coord2 - MinecraftPhysicsConstants.PLAYER_WIDTH_HALF;
     }
     
     /**
@@ -169,137 +185,224 @@ public class PhysicsCalculator {
             blockFixContext.inPlace = 0;
         }
         
-        double velocity = initialSpeed;
-        double bm = coord2 + initialSpeed;
-        velocity = jumpSpeed;  // 设置起跳速度
-        bm += velocity;
-        
-        // 检测地面移动阻断（起跳瞬间）
-        if (jumpSpeed > -MinecraftPhysicsConstants.BLOCK_THRESHOLD_GROUND && 
-            jumpSpeed < MinecraftPhysicsConstants.BLOCK_THRESHOLD_GROUND && 
-            blockFixContext.inPlace == 0) {
-            blockFixContext.inPlace = 1;  // 标记为地面阻断
+        // 确定起始索引
+        int startIndex = 0;
+        if (finalDelayed && delayedNotEnough) {
+            startIndex = 1;
         }
         
-        // Plan 2处理：在阻断位置设置速度为0
-        if (blockFixContext.inFix == 1 && blockFixContext.fixPlan == 2) {
-            velocity = 0;
+        int count = airtimeSequence.length - 1;
+        if (blockKernelNeeded(jumpSpeed, startIndex, count, angleConfig.movement.air)) {
+            if (!runJumps(JumpPhase.DELAYED_JUMPS, jumpSpeed, coord2 + initialSpeed, startIndex, count, finalDelayed)) {
+                return kernelVelocity;  // 修复方案的早期返回
+            }
+        } else {
+            tickLoop(jumpSpeed, coord2 + initialSpeed + jumpSpeed, startIndex, count, false, true, finalDelayed);
         }
         
-        // Plan 1和Plan 3的早期返回
-        if (blockFixContext.fixPlan == 1 && blockFixContext.inFix == 1) {
-            return velocity;
+        tempV0 = kernelVelocity;
+        tempBM = kernelBM - coord2 - MinecraftPhysicsConstants.PLAYER_WIDTH_HALF;
+        
+        // 如果jSpeed是1或-1，返回bm
+        if (jumpSpeed == 1 || jumpSpeed == -1) {
+            return tempBM;
         }
-        if (blockFixContext.fixPlan == 3 && blockFixContext.planSteps == 0 && blockFixContext.inFix == 1) {
-            return velocity;
+        return kernelVelocity;
+    }
+    
+    /**
+     * 两点插值的两个端点：同时计算起跳速度为-1和1的calculateDelayedJumpJumps
+     * 
+     * 优化向前跳/向后跳、移动阻断Plan 1/3时，都是先算-1和1两次，再插值出起跳速度算第三次。
+     * 这里两个速度共用一个tick循环（循环控制和移动阻断判断只做一次，两条依赖链可以并行执行），
+     * 每个速度的运算顺序与单独计算完全相同，结果逐位一致。
+     * 
+     * 调用后的状态（inPlace、tempV0、tempBM）与依次调用(-1)、(1)之后相同：
+     * - fixPlan==0时每次调用都会重置inPlace，所以只保留起跳速度1检测到的阻断
+     * - 否则不重置，先检测到的（-1）优先
+     * - Plan 1/3的早期返回只取决于阻断位置，两个速度在同一个tick返回
+     * Plan 2（会修改速度）和需要输出tick调试事件时依次调用原方法。
+     * 
+     * @return 起跳速度为1的结果，起跳速度为-1的结果在tempLow中
+     */
+    public double calculateDelayedJumpJumpsPair(double initialSpeed, boolean finalDelayed) {
+        AngleConfig.MovementProfile movement = angleConfig.movement;
+        if (blockFixContext.fixPlan == 2 ||
+            (blockFixContext.jFinals && blockFixContext.finals && blockFixContext.trace.enabled())) {
+            tempLow = calculateDelayedJumpJumps(initialSpeed, -1, finalDelayed);
+            return calculateDelayedJumpJumps(initialSpeed, 1, finalDelayed);
+        }
+        
+        // -1和1都不在地面阻断区间内，不需要检测地面阻断
+        double lowVelocity = -1;
+        double highVelocity = 1;
+        double lowBM = coord2 + initialSpeed;
+        double highBM = coord2 + initialSpeed;
+        lowBM += lowVelocity;
+        highBM += highVelocity;
+        int lowPlace = 0;
+        int highPlace = 0;
+        
+        // Plan 1和Plan 3的早期返回位置（1=地面，2+l=第一个连跳空中第l个tick）
+        int returnPlace = 0;
+        if (blockFixContext.fixPlan == 1 || (blockFixContext.fixPlan == 3 && blockFixContext.planSteps == 0)) {
+            returnPlace = blockFixContext.inFix;
+        }
+        if (returnPlace == 1) {
+            tempLow = lowVelocity;
+            return highVelocity;
         }
         
-        // 确定起始索引
         int startIndex = 0;
         if (finalDelayed && delayedNotEnough) {
             startIndex = 1;
         }
         
-        // 遍历每个连跳
+        float air = movement.air;
+        // 两个速度都不会检测到阻断时（也就不会在阻断位置提前返回）跳过逐tick的阻断判断
+        boolean checkBlock = returnPlace != 0 ||
+                             blockKernelNeeded(-1, startIndex, airtimeSequence.length - 1, air) ||
+                             blockKernelNeeded(1, startIndex, airtimeSequence.length - 1, air);
+        float blockThreshold = (float)(MinecraftPhysicsConstants.BLOCK_THRESHOLD_AIR);
         for (int i = startIndex; i < airtimeSequence.length - 1; i++) {
             if (i > startIndex) {
                 // 普通跳跃tick
-                velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + 
-                          MinecraftPhysicsConstants.JUMP_BOOST + 
-                          MinecraftPhysicsConstants.GROUND_MOVEMENT;
-                bm += velocity;
-                if (blockFixContext.jFinals && blockFixContext.finals) {
-                    System.out.println(velocity);
-                }
+                lowVelocity = lowVelocity * MinecraftPhysicsConstants.FRICTION_AIR + 
+                             MinecraftPhysicsConstants.JUMP_BOOST + 
+                             MinecraftPhysicsConstants.GROUND_MOVEMENT;
+                highVelocity = highVelocity * MinecraftPhysicsConstants.FRICTION_AIR + 
+                              MinecraftPhysicsConstants.JUMP_BOOST + 
+                              MinecraftPhysicsConstants.GROUND_MOVEMENT;
+                lowBM += lowVelocity;
+                highBM += highVelocity;
             }
             
             // 第一个airtime使用45度加速
-            if (blockFixContext.fixPlan == 2 && blockFixContext.planSteps == 2 && 
-                blockFixContext.inFix == 1 && i == 0) {
-                velocity = blockFixContext.fixSpeed;
-            } else {
-                if (airtimeSequence[i] >= 2) {
-                    velocity = velocity * MinecraftPhysicsConstants.FRICTION_GROUND + 
-                              (MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.sin + 
-                               MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.cos);
-                    if (blockFixContext.jFinals && blockFixContext.finals) {
-                        System.out.println(velocity);
-                    }
-                }
-            }
-            
-            // Plan 2的早期返回
-            if (blockFixContext.fixPlan == 2 && blockFixContext.planSteps == 0 && 
-                blockFixContext.inFix == 1 && i == 0) {
-                return velocity;
+            if (airtimeSequence[i] >= 2) {
+                lowVelocity = lowVelocity * MinecraftPhysicsConstants.FRICTION_GROUND + air;
+                highVelocity = highVelocity * MinecraftPhysicsConstants.FRICTION_GROUND + air;
             }
-            
-            bm += velocity;
+            lowBM += lowVelocity;
+            highBM += highVelocity;
             
             // 后续airtime ticks
             for (int l = 0; l < airtimeSequence[i] - 2; l++) {
-                // 检测空中移动阻断
-                if (velocity > -(float)(MinecraftPhysicsConstants.BLOCK_THRESHOLD_AIR) && 
-                    velocity < (float)(MinecraftPhysicsConstants.BLOCK_THRESHOLD_AIR) && 
-                    blockFixContext.inPlace == 0) {
-                    blockFixContext.inPlace = 2 + l;  // 标记为空中第l个tick的阻断
-                }
-                
-                // Plan 2处理：在阻断位置设置速度为0
-                if (blockFixContext.inFix == 2 + l && blockFixContext.fixPlan == 2 && i == 0) {
-                    velocity = 0;
-                }
-                
-                // Plan 1和Plan 3的早期返回
-                if (blockFixContext.fixPlan == 1 && blockFixContext.inFix == 2 + l && i == 0) {
-                    return velocity;
-                }
-                if (blockFixContext.fixPlan == 3 && blockFixContext.planSteps == 0 && 
-                    blockFixContext.inFix == 2 + l && i == 0) {
-                    return velocity;
-                }
-                if (blockFixContext.fixPlan == 2 && blockFixContext.planSteps == 0 && 
-                    blockFixContext.inFix == l + 1 && i == 0) {
-                    return velocity;
-                }
-                
-                // Plan 2处理：在阻断后设置修复速度
-                if (blockFixContext.fixPlan == 2 && blockFixContext.planSteps == 2 && 
-                    blockFixContext.inFix == l + 2 && i == 0) {
-                    velocity = blockFixContext.fixSpeed;
-                } else {
-                    velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + 
-                              (MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.sin + 
-                               MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.cos);
-                    if (blockFixContext.jFinals && blockFixContext.finals) {
-                        System.out.println(velocity);
+                if (checkBlock) {
+                    // 检测空中移动阻断
+                    if (lowVelocity > -blockThreshold && lowVelocity < blockThreshold && lowPlace == 0) {
+                        lowPlace = 2 + l;
+                    }
+                    if (highVelocity > -blockThreshold && highVelocity < blockThreshold && highPlace == 0) {
+                        highPlace = 2 + l;
+                    }
+                    
+                    if (returnPlace == 2 + l && i == 0) {
+                        updateBlockPlace(lowPlace, highPlace);
+                        tempLow = lowVelocity;
+                        return highVelocity;
                     }
                 }
                 
-                bm += velocity;
+                lowVelocity = lowVelocity * MinecraftPhysicsConstants.FRICTION_AIR + air;
+                highVelocity = highVelocity * MinecraftPhysicsConstants.FRICTION_AIR + air;
+                lowBM += lowVelocity;
+                highBM += highVelocity;
             }
         }
+        updateBlockPlace(lowPlace, highPlace);
         
         // 最后处理
         if (finalDelayed) {
-            velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + 
-                      (MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.sin + 
-                       MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.cos);
-            if (blockFixContext.jFinals && blockFixContext.finals) {
-                System.out.println(velocity);
-            }
+            float landing = movement.landing;
+            lowVelocity = lowVelocity * MinecraftPhysicsConstants.FRICTION_AIR + landing;
+            highVelocity = highVelocity * MinecraftPhysicsConstants.FRICTION_AIR + landing;
         } else {
-            bm -= velocity;  // 还没落地
+            lowBM -= lowVelocity;  // 还没落地
+            highBM -= highVelocity;
         }
         
-        tempV0 = velocity;
-        tempBM = bm - coord2 - MinecraftPhysicsConstants.PLAYER_WIDTH_HALF;
+        tempV0 = highVelocity;
+        tempBM = highBM - coord2 - MinecraftPhysicsConstants.PLAYER_WIDTH_HALF;
+        tempLow = lowBM - coord2 - MinecraftPhysicsConstants.PLAYER_WIDTH_HALF;
+        return tempBM;
+    }
+    
+    /**
+     * 是否需要带移动阻断判断的逐tick循环
+     * 
+     * 不需要的条件：没有关闭这个判断、不输出tick调试事件、没有进行中的修复方案（fixPlan为0或inFix为0），
+     * 并且不会检测到新的阻断（已经记录了阻断位置且不会重置，或者速度不会进入阻断区间）
+     */
+    private boolean blockKernelNeeded(double jumpSpeed, int from, int to, float air) {
+        if (!useBlockBound ||
+            (blockFixContext.jFinals && blockFixContext.finals && blockFixContext.trace.enabled()) ||
+            (blockFixContext.fixPlan != 0 && blockFixContext.inFix != 0)) {
+            return true;
+        }
+        if (blockFixContext.fixPlan != 0 && blockFixContext.inPlace != 0) {
+            return false;
+        }
+        return blockWindowReachable(jumpSpeed, from, to, air);
+    }
+    
+    /**
+     * 从起跳速度jumpSpeed开始的连跳[from, to)中，是否有tick可能进入移动阻断区间
+     * 
+     * 地面阻断只检测起跳速度。空中速度 v -> v * 0.91 + air 单调地趋向不动点 p = air / 0.09（约0.29）：
+     * - 某个连跳第一次检测时速度已经不小于空中阈值，之后的tick（包括后面的连跳）都不会进入区间
+     * - 否则这个连跳中检测的速度单调增加，最大的是最后一次检测，用 p + (v - p) * 0.91^n 估计；
+     *   仍然小于负的阈值时整个连跳都不会进入区间，继续估计下一个连跳
+     * 每个连跳只需要几次运算。估计值与逐tick计算只差舍入误差，留出BOUND_SLACK的余量，
+     * 所以返回false时逐tick计算一定不会检测到阻断。
+     */
+    private boolean blockWindowReachable(double jumpSpeed, int from, int to, float air) {
+        if (jumpSpeed > -MinecraftPhysicsConstants.BLOCK_THRESHOLD_GROUND &&
+            jumpSpeed < MinecraftPhysicsConstants.BLOCK_THRESHOLD_GROUND) {
+            return true;
+        }
+        double fixedPoint = air / (1 - (double)MinecraftPhysicsConstants.FRICTION_AIR);
+        if (!(fixedPoint > AIR_BLOCK_THRESHOLD + BOUND_SLACK)) {
+            return true;
+        }
         
-        // 如果jSpeed是1或-1，返回bm
-        if (jumpSpeed == 1 || jumpSpeed == -1) {
-            return tempBM;
+        double velocity = jumpSpeed;
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + 
+                          MinecraftPhysicsConstants.JUMP_BOOST + 
+                          MinecraftPhysicsConstants.GROUND_MOVEMENT;
+            }
+            if (airtimeSequence[i] >= 2) {
+                velocity = velocity * MinecraftPhysicsConstants.FRICTION_GROUND + air;
+            }
+            int checks = airtimeSequence[i] - 2;
+            if (checks <= 0) {
+                continue;
+            }
+            if (velocity >= AIR_BLOCK_THRESHOLD + BOUND_SLACK) {
+                return false;
+            }
+            if (checks >= AIR_DECAY.length) {
+                return true;
+            }
+            double last = fixedPoint + (velocity - fixedPoint) * AIR_DECAY[checks - 1];
+            if (last > -AIR_BLOCK_THRESHOLD - BOUND_SLACK) {
+                return true;
+            }
+            velocity = fixedPoint + (velocity - fixedPoint) * AIR_DECAY[checks];  // 这个连跳最后的速度
+        }
+        return false;
+    }
+    
+    /**
+     * 两点计算后的inPlace（见calculateDelayedJumpJumpsPair）
+     */
+    private void updateBlockPlace(int lowPlace, int highPlace) {
+        if (blockFixContext.fixPlan == 0) {
+            blockFixContext.inPlace = highPlace;
+        } else if (blockFixContext.inPlace == 0) {
+            blockFixContext.inPlace = lowPlace != 0 ? lowPlace : highPlace;
         }
-        return velocity;
     }
     
     /**
@@ -324,6 +427,7 @@ public class PhysicsCalculator {
      * @return 包含distance（最终距离）、pb（容错）、finalV0（最终速度）的结果
      */
     public JumpResult calculateFinalJump(double jumpVelocity, boolean delayed) {
+        AngleConfig.MovementProfile movement = angleConfig.movement;
         double distance = coord2 + MinecraftPhysicsConstants.PLAYER_CENTER_OFFSET;
         distance += jumpVelocity;
         
@@ -345,17 +449,13 @@ public class PhysicsCalculator {
         
         // 第一个airtime使用45度加速（如果airtime > 2）
         if (airtimeSequence[lastIndex] > 2) {
-            velocity = velocity * MinecraftPhysicsConstants.FRICTION_GROUND + 
-                      (MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.sin + 
-                       MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.cos);
+            velocity = velocity * MinecraftPhysicsConstants.FRICTION_GROUND + movement.air;
             distance += velocity;
         }
         
         // 后续airtime ticks
         for (int l = 0; l < airtimeSequence[lastIndex] - 3; l++) {
-            velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + 
-                      (MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.sin + 
-                       MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.cos);
+            velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + movement.air;
             distance += velocity;
         }
         
@@ -384,98 +484,163 @@ public class PhysicsCalculator {
     }
     
     /**
-     * 结束到开始的计算（对应原endMStart）
-     * 计算从向后速度v0开始，使用起跳速度js，经过第一个连跳后的bm
+     * 连跳前缀状态
+     * 
+     * 从起跳tick之后的(速度, bm)开始，经过前count个连跳后的(速度, bm)。
+     * 阶段1中连跳次数每+1，滞空时间序列只是多了一个助跑跳跃，
+     * 所以只需要在后面追加一个连跳（O(滞空时间)个tick），整个阶段1是线性的。
+     * 
+     * 同时保留count-1个连跳后的状态：delayedNotEnough时会跳过第一个连跳，
+     * 需要的连跳次数比非delayed少1。
+     * 
+     * 追加的每个tick与calculateJumpBM中的循环运算顺序完全相同，结果逐位一致。
      */
-    public double calculateEndToStart(double backwardSpeed, double jumpSpeed) {
-        // 重置阻断检测（如果fixPlan==0）
-        if (blockFixContext.fixPlan == 0) {
-            blockFixContext.inPlace = 0;
-        }
+    public static class JumpState {
+        public final double startVelocity;
+        public final double startBM;
         
-        double bm = coord2 + backwardSpeed;
-        double velocity = jumpSpeed;
-        bm += velocity;
+        public int count;               // 已经计算的连跳次数
+        public double velocity;         // count个连跳后的速度
+        public double bm;               // count个连跳后的bm
+        private double previousVelocity; // count-1个连跳后的速度
+        private double previousBM;       // count-1个连跳后的bm
+        private long lastUse;
         
-        // 检测地面移动阻断
-        if (jumpSpeed > -MinecraftPhysicsConstants.BLOCK_THRESHOLD_GROUND && 
-            jumpSpeed < MinecraftPhysicsConstants.BLOCK_THRESHOLD_GROUND && 
-            blockFixContext.inPlace == 0) {
-            blockFixContext.inPlace = 1;
+        public JumpState(double startVelocity, double startBM) {
+            this.startVelocity = startVelocity;
+            this.startBM = startBM;
+            reset();
         }
         
-        // Plan 2处理
-        if (blockFixContext.inFix == 1 && blockFixContext.fixPlan == 2) {
-            velocity = 0;
+        /**
+         * 回到0个连跳
+         */
+        public void reset() {
+            count = 0;
+            velocity = startVelocity;
+            bm = startBM;
+            previousVelocity = startVelocity;
+            previousBM = startBM;
         }
         
-        // Plan 1和Plan 3的早期返回
-        if (blockFixContext.fixPlan == 1 && blockFixContext.inFix == 1) {
-            return velocity;
+        public boolean matches(double startVelocity, double startBM) {
+            return Double.doubleToRawLongBits(this.startVelocity) == Double.doubleToRawLongBits(startVelocity) &&
+                   Double.doubleToRawLongBits(this.startBM) == Double.doubleToRawLongBits(startBM);
         }
-        if (blockFixContext.fixPlan == 3 && blockFixContext.planSteps == 0 && blockFixContext.inFix == 1) {
-            return velocity;
+        
+        public double velocityAt(int count) {
+            return count == this.count ? velocity : previousVelocity;
         }
         
-        // 第一个airtime使用45度加速
-        if (blockFixContext.fixPlan == 2 && blockFixContext.planSteps == 2 && blockFixContext.inFix == 1) {
-            velocity = blockFixContext.fixSpeed;
-        } else {
-            if (airtimeSequence[0] >= 2) {
-                velocity = velocity * MinecraftPhysicsConstants.FRICTION_GROUND + 
-                          (MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.sin + 
-                           MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.cos);
-            }
+        public double bmAt(int count) {
+            return count == this.count ? bm : previousBM;
         }
+    }
+    
+    /**
+     * 在前缀状态后追加一个连跳（对应calculateJumpBM循环中的一次迭代）
+     */
+    public void appendJump(JumpState state, int airtime) {
+        AngleConfig.MovementProfile movement = angleConfig.movement;
+        double velocity = state.velocity;
+        double bm = state.bm;
         
-        // Plan 2的早期返回
-        if (blockFixContext.fixPlan == 2 && blockFixContext.planSteps == 0 && blockFixContext.inFix == 1) {
-            return velocity;
+        if (state.count > 0) {
+            // 普通跳跃tick（落地后起跳）
+            velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + 
+                      MinecraftPhysicsConstants.JUMP_BOOST + 
+                      MinecraftPhysicsConstants.GROUND_MOVEMENT;
+            bm += velocity;
         }
         
-        bm += velocity;
+        // 第一个airtime使用45度加速（如果airtime >= 2）
+        if (airtime >= 2) {
+            velocity = velocity * MinecraftPhysicsConstants.FRICTION_GROUND + movement.air;
+            bm += velocity;
+        }
         
-        // 后续airtime ticks
-        for (int l = 0; l < airtimeSequence[0] - 2; l++) {
-            // 检测空中移动阻断
-            if (velocity > -(float)(MinecraftPhysicsConstants.BLOCK_THRESHOLD_AIR) && 
-                velocity < (float)(MinecraftPhysicsConstants.BLOCK_THRESHOLD_AIR) && 
-                blockFixContext.inPlace == 0) {
-                blockFixContext.inPlace = 2 + l;
-            }
-            
-            // Plan 2处理
-            if (blockFixContext.inFix == 2 + l && blockFixContext.fixPlan == 2) {
-                velocity = 0;
-            }
-            
-            // Plan 1和Plan 3的早期返回
-            if (blockFixContext.fixPlan == 1 && blockFixContext.inFix == 2 + l) {
-                return velocity;
-            }
-            if (blockFixContext.fixPlan == 3 && blockFixContext.planSteps == 0 && blockFixContext.inFix == 2 + l) {
-                return velocity;
+        // 后续airtime ticks使用45度加速
+        for (int l = 0; l < airtime - 2; l++) {
+            velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + movement.air;
+            bm += velocity;
+        }
+        
+        state.previousVelocity = state.velocity;
+        state.previousBM = state.bm;
+        state.velocity = velocity;
+        state.bm = bm;
+        state.count++;
+    }
+    
+    /**
+     * 找到（或新建）起跳tick后为(velocity, bm)的前缀状态，并推进到count个连跳
+     * 
+     * 返回的状态满足count == state.count 或 count == state.count - 1，
+     * 用velocityAt(count)/bmAt(count)读取。
+     * 缓存满时替换最久没有使用的状态；助跑滞空时间或角度改变时清空。
+     */
+    private JumpState jumpPrefix(double velocity, double bm, int count) {
+        int airtime = airtimeSequence[0];
+        if (prefixAirtime != airtime || prefixSin != angleConfig.sin || prefixCos != angleConfig.cos) {
+            Arrays.fill(prefixes, null);
+            prefixAirtime = airtime;
+            prefixSin = angleConfig.sin;
+            prefixCos = angleConfig.cos;
+        }
+        
+        JumpState state = null;
+        int oldest = 0;
+        for (int i = 0; i < PREFIX_SLOTS; i++) {
+            JumpState slot = prefixes[i];
+            if (slot == null) {
+                oldest = i;
+                break;
             }
-            if (blockFixContext.fixPlan == 2 && blockFixContext.planSteps == 0 && blockFixContext.inFix == l + 1) {
-                return velocity;
+            if (slot.matches(velocity, bm)) {
+                state = slot;
+                break;
             }
-            
-            // Plan 2处理：在阻断后设置修复速度
-            if (blockFixContext.fixPlan == 2 && blockFixContext.planSteps == 2 && blockFixContext.inFix == l + 2) {
-                velocity = blockFixContext.fixSpeed;
-            } else {
-                velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + 
-                          (MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.sin + 
-                           MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.cos);
+            if (slot.lastUse < prefixes[oldest].lastUse) {
+                oldest = i;
             }
-            
-            bm += velocity;
+        }
+        if (state == null) {
+            state = new JumpState(velocity, bm);
+            prefixes[oldest] = state;
+        }
+        state.lastUse = ++prefixClock;
+        
+        // 比需要的多两个以上时只能从头计算（例如二分查找往回走）
+        if (state.count > count + 1) {
+            state.reset();
+        }
+        while (state.count < count) {
+            appendJump(state, airtime);
+        }
+        return state;
+    }
+    
+    /**
+     * 结束到开始的计算（对应原endMStart）
+     * 计算从向后速度v0开始，使用起跳速度js，经过第一个连跳后的bm
+     */
+    public double calculateEndToStart(double backwardSpeed, double jumpSpeed) {
+        // 重置阻断检测（如果fixPlan==0）
+        if (blockFixContext.fixPlan == 0) {
+            blockFixContext.inPlace = 0;
         }
         
-        bm -= velocity;  // 还没落地，减去最后一tick的速度
-        tempV0 = velocity;
-        tempBM = bm;
-        return bm;
+        if (blockKernelNeeded(jumpSpeed, 0, 1, angleConfig.movement.air)) {
+            if (!runJumps(JumpPhase.END_TO_START, jumpSpeed, coord2 + backwardSpeed, 0, 1, false)) {
+                return kernelVelocity;  // 修复方案的早期返回
+            }
+        } else {
+            // 不会检测到阻断：直接执行没有分支的循环（这个方法调用很频繁）
+            tickLoop(jumpSpeed, coord2 + backwardSpeed + jumpSpeed, 0, 1, false, true, false);
+        }
+        tempV0 = kernelVelocity;
+        tempBM = kernelBM;
+        return kernelBM;
     }
     
     /**
@@ -483,7 +648,6 @@ public class PhysicsCalculator {
      * 计算从向后速度v0开始，经过后续连跳后能够达到的向前bm
      */
     public double calculateBackToFrontUnit(double backwardSpeed, boolean delayed) {
-        double bm = backwardSpeed;
         int startIndex = 1;
         if (delayedNotEnough && delayed) {
             startIndex = 2;
@@ -492,97 +656,304 @@ public class PhysicsCalculator {
             return MinecraftPhysicsConstants.INVALID_BM;
         }
         
-        double velocity = backwardSpeed;
-        for (int i = startIndex; i < airtimeSequence.length - 1; i++) {
-            velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + 
-                      MinecraftPhysicsConstants.JUMP_BOOST + 
-                      MinecraftPhysicsConstants.GROUND_MOVEMENT;
+        runJumps(JumpPhase.BACK_TO_FRONT, backwardSpeed, backwardSpeed, startIndex, airtimeSequence.length - 1, delayed);
+        tempV0 = kernelVelocity;
+        return kernelBM - coord2 - MinecraftPhysicsConstants.PLAYER_WIDTH_HALF;
+    }
+    
+    /**
+     * 跑跳计算（对应原awRunJump）
+     * 计算从跑1t的速度v0开始，经过连跳后能够达到的bm（不包括跑1t的距离）
+     */
+    public double calculateRunJump(double run1tSpeed, boolean delayed) {
+        runJumps(JumpPhase.JUMP_BM, run1tSpeed, coord2, 0, airtimeSequence.length - 1, delayed);
+        tempV0 = kernelVelocity;
+        return kernelBM - coord2 - MinecraftPhysicsConstants.PLAYER_WIDTH_HALF;
+    }
+    
+    /**
+     * 连跳tick循环的阶段描述（见runJumps）
+     * 
+     * 各个计算方法的连跳部分只有这几处不同：
+     * - 起跳tick：地面起跳（速度 * 0.546 + 0.2 + 0.1274，fixPlan==4时用fixSpeed）、
+     *   直接使用给定的起跳速度（可以检测地面阻断）、或者没有（第一个连跳前也是普通跳跃tick）
+     * - 滞空时间小于2时是否也把速度加到bm（calculateDelayedJumpJumps/calculateEndToStart原有的写法）
+     * - 是否检测移动阻断并执行修复方案（Plan 1/2/3的速度修改和早期返回）
+     * - 是否输出tick调试事件
+     * - 助跑滞空时间全部相同时能否使用仿射内核/连跳前缀状态
+     */
+    private static final class JumpPhase {
+        static final int GROUND_JUMP = 0;
+        static final int GIVEN_SPEED = 1;
+        static final int NONE = 2;
+        
+        // calculateJumpBM、calculateRunJump
+        static final JumpPhase JUMP_BM = new JumpPhase(GROUND_JUMP, false, false, false, true);
+        // calculateBackToFrontUnit
+        static final JumpPhase BACK_TO_FRONT = new JumpPhase(NONE, false, false, false, true);
+        // calculateDelayedJumpJumps
+        static final JumpPhase DELAYED_JUMPS = new JumpPhase(GIVEN_SPEED, true, true, true, false);
+        // calculateEndToStart
+        static final JumpPhase END_TO_START = new JumpPhase(GIVEN_SPEED, true, true, false, false);
+        // 上面两个不会检测到阻断时（见blockKernelNeeded）直接调用tickLoop
+        
+        final int firstTick;
+        final boolean addShortAirtime;
+        final boolean blockAware;
+        final boolean traceTicks;
+        final boolean shortcuts;
+        
+        private JumpPhase(int firstTick, boolean addShortAirtime, boolean blockAware, boolean traceTicks,
+                          boolean shortcuts) {
+            this.firstTick = firstTick;
+            this.addShortAirtime = addShortAirtime;
+            this.blockAware = blockAware;
+            this.traceTicks = traceTicks;
+            this.shortcuts = shortcuts;
+        }
+    }
+    
+    /**
+     * 统一的连跳tick循环
+     * 
+     * 从(velocity, bm)开始：起跳tick（按phase.firstTick），连跳[from, to)，最后按delayed处理落地
+     * （delayed：落地时45度加速；否则减去最后一tick的速度），结果在kernelVelocity/kernelBM中。
+     * 每个tick的运算顺序与原来各个方法中的循环完全相同。
+     * 不检测阻断、不输出调试事件时（绝大多数调用）只执行tickLoop中没有分支的循环；
+     * 否则执行blockTickLoop，移动阻断的判断和修复方案放在
+     * groundBlockAction/firstAirBlockAction/airBlockAction中。
+     * 
+     * @param velocity 起跳tick之前的速度（GIVEN_SPEED时就是起跳速度）
+     * @return false表示修复方案要求在阻断位置提前返回，此时kernelVelocity是当时的速度
+     */
+    private boolean runJumps(JumpPhase phase, double velocity, double bm, int from, int to, boolean delayed) {
+        BlockFixContext fix = blockFixContext;
+        boolean jumpTick = phase.firstTick == JumpPhase.NONE;  // 第一个连跳前是否有普通跳跃tick
+        
+        // 起跳tick
+        if (phase.firstTick == JumpPhase.GROUND_JUMP) {
+            if (fix.fixPlan == 4) {
+                velocity = fix.fixSpeed;
+            } else {
+                velocity = velocity * MinecraftPhysicsConstants.FRICTION_GROUND + 
+                          MinecraftPhysicsConstants.JUMP_BOOST + 
+                          MinecraftPhysicsConstants.GROUND_MOVEMENT;
+            }
             bm += velocity;
-            
-            // 第一个airtime使用45度加速
+        } else if (phase.firstTick == JumpPhase.GIVEN_SPEED) {
+            bm += velocity;
+            int action = phase.blockAware ? groundBlockAction(velocity) : STEP;
+            if (action == RETURN) {
+                kernelVelocity = velocity;
+                return false;
+            }
+            if (action == ZERO) {
+                velocity = 0;
+            }
+        }
+        
+        if (phase.shortcuts && uniformBuildUp && (useAffineKernel || (useJumpPrefix && !jumpTick))) {
+            return runShortcut(velocity, bm, to - from, jumpTick, delayed);
+        }
+        if (phase.blockAware || (phase.traceTicks && fix.jFinals && fix.finals && fix.trace.enabled())) {
+            return blockTickLoop(phase, velocity, bm, from, to, delayed);
+        }
+        return tickLoop(velocity, bm, from, to, jumpTick, phase.addShortAirtime, delayed);
+    }
+    
+    /**
+     * runJumps的连跳循环（不检测阻断，不输出调试事件）
+     */
+    private boolean tickLoop(double velocity, double bm, int from, int to, boolean jumpTick,
+                             boolean addShortAirtime, boolean delayed) {
+        float air = angleConfig.movement.air;
+        for (int i = from; i < to; i++) {
+            if (i > from || jumpTick) {
+                velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + 
+                          MinecraftPhysicsConstants.JUMP_BOOST + 
+                          MinecraftPhysicsConstants.GROUND_MOVEMENT;
+                bm += velocity;
+            }
             if (airtimeSequence[i] >= 2) {
-                velocity = velocity * MinecraftPhysicsConstants.FRICTION_GROUND + 
-                          (MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.sin + 
-                           MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.cos);
+                velocity = velocity * MinecraftPhysicsConstants.FRICTION_GROUND + air;
+                if (!addShortAirtime) {
+                    bm += velocity;
+                }
+            }
+            if (addShortAirtime) {
                 bm += velocity;
             }
-            
-            // 后续airtime ticks
             for (int l = 0; l < airtimeSequence[i] - 2; l++) {
-                velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + 
-                          (MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.sin + 
-                           MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.cos);
+                velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + air;
                 bm += velocity;
             }
         }
-        
-        if (delayed) {
-            velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + 
-                      (MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.sin + 
-                       MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.cos);
-        } else {
-            bm -= velocity;  // 还没落地
-        }
-        
-        tempV0 = velocity;
-        return bm - coord2 - MinecraftPhysicsConstants.PLAYER_WIDTH_HALF;
+        return land(velocity, bm, delayed, false);
     }
     
     /**
-     * 跑跳计算（对应原awRunJump）
-     * 计算从跑1t的速度v0开始，经过连跳后能够达到的bm（不包括跑1t的距离）
+     * runJumps的连跳循环（检测阻断并执行修复方案，输出tick调试事件）
      */
-    public double calculateRunJump(double run1tSpeed, boolean delayed) {
-        double bm = coord2;
-        double velocity = run1tSpeed;
-        
-        // 起跳tick
-        if (blockFixContext.fixPlan == 4) {
-            velocity = blockFixContext.fixSpeed;
-        } else {
-            velocity = velocity * MinecraftPhysicsConstants.FRICTION_GROUND + 
-                      MinecraftPhysicsConstants.JUMP_BOOST + 
-                      MinecraftPhysicsConstants.GROUND_MOVEMENT;
-        }
-        bm += velocity;
-        
-        // 遍历每个连跳
-        for (int i = 0; i < airtimeSequence.length - 1; i++) {
-            if (i > 0) {
-                // 普通跳跃tick
+    private boolean blockTickLoop(JumpPhase phase, double velocity, double bm, int from, int to, boolean delayed) {
+        BlockFixContext fix = blockFixContext;
+        boolean block = phase.blockAware;
+        boolean trace = phase.traceTicks && fix.jFinals && fix.finals && fix.trace.enabled();
+        boolean jumpTick = phase.firstTick == JumpPhase.NONE;
+        float air = angleConfig.movement.air;
+        for (int i = from; i < to; i++) {
+            if (i > from || jumpTick) {
+                // 普通跳跃tick（落地后起跳）
                 velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + 
                           MinecraftPhysicsConstants.JUMP_BOOST + 
                           MinecraftPhysicsConstants.GROUND_MOVEMENT;
                 bm += velocity;
+                if (trace) {
+                    fix.trace.event(TraceEvent.TICK_VELOCITY, velocity);
+                }
             }
             
-            // 第一个airtime使用45度加速
-            if (airtimeSequence[i] >= 2) {
-                velocity = velocity * MinecraftPhysicsConstants.FRICTION_GROUND + 
-                          (MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.sin + 
-                           MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.cos);
+            // 第一个airtime使用45度加速（如果airtime >= 2）
+            int action = block && i == 0 ? firstAirBlockAction() : STEP;
+            if (action == FIX) {
+                velocity = fix.fixSpeed;
+            } else if (airtimeSequence[i] >= 2) {
+                velocity = velocity * MinecraftPhysicsConstants.FRICTION_GROUND + air;
+                if (!phase.addShortAirtime) {
+                    bm += velocity;
+                }
+                if (trace) {
+                    fix.trace.event(TraceEvent.TICK_VELOCITY, velocity);
+                }
+            }
+            if (action == RETURN) {
+                kernelVelocity = velocity;
+                return false;
+            }
+            if (phase.addShortAirtime) {
                 bm += velocity;
             }
             
-            // 后续airtime ticks
+            // 后续airtime ticks使用45度加速
             for (int l = 0; l < airtimeSequence[i] - 2; l++) {
-                velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + 
-                          (MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.sin + 
-                           MinecraftPhysicsConstants.AIR_MOVEMENT_45 * angleConfig.cos);
+                action = block ? airBlockAction(velocity, i, l) : STEP;
+                if (action == RETURN) {
+                    kernelVelocity = velocity;
+                    return false;
+                }
+                if (action == FIX) {
+                    velocity = fix.fixSpeed;
+                } else {
+                    if (action == ZERO) {
+                        velocity = 0;
+                    }
+                    velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + air;
+                    if (trace) {
+                        fix.trace.event(TraceEvent.TICK_VELOCITY, velocity);
+                    }
+                }
                 bm += velocity;
             }
         }
         
-        if (!delayed) {
-            bm -= velocity;  // 还没落地
+        return land(velocity, bm, delayed, trace);
+    }
+    
+    // 移动阻断判断的结果：正常计算、速度先设为0、提前返回、这个tick使用fixSpeed
+    private static final int STEP = 0;
+    private static final int ZERO = 1;
+    private static final int RETURN = 2;
+    private static final int FIX = 3;
+    
+    /**
+     * 起跳瞬间：检测地面阻断，Plan 2在阻断位置把速度设为0，Plan 1/3在地面阻断时提前返回
+     */
+    private int groundBlockAction(double velocity) {
+        BlockFixContext fix = blockFixContext;
+        if (velocity > -MinecraftPhysicsConstants.BLOCK_THRESHOLD_GROUND && 
+            velocity < MinecraftPhysicsConstants.BLOCK_THRESHOLD_GROUND && 
+            fix.inPlace == 0) {
+            fix.inPlace = 1;  // 标记为地面阻断
+        }
+        if ((fix.fixPlan == 1 && fix.inFix == 1) ||
+            (fix.fixPlan == 3 && fix.planSteps == 0 && fix.inFix == 1)) {
+            return RETURN;
+        }
+        if (fix.inFix == 1 && fix.fixPlan == 2) {
+            return ZERO;
+        }
+        return STEP;
+    }
+    
+    /**
+     * 第一个连跳的第一个空中tick：Plan 2（planSteps==2）使用fixSpeed，Plan 2（planSteps==0）在这个tick后提前返回
+     */
+    private int firstAirBlockAction() {
+        BlockFixContext fix = blockFixContext;
+        if (fix.fixPlan == 2 && fix.inFix == 1) {
+            if (fix.planSteps == 2) {
+                return FIX;
+            }
+            if (fix.planSteps == 0) {
+                return RETURN;
+            }
+        }
+        return STEP;
+    }
+    
+    /**
+     * 空中第l个tick之前：检测空中阻断；第一个连跳中执行修复方案
+     * （Plan 2在阻断位置把速度设为0、阻断后使用fixSpeed，Plan 1/2/3在对应位置提前返回）
+     */
+    private int airBlockAction(double velocity, int i, int l) {
+        BlockFixContext fix = blockFixContext;
+        if (velocity > -(float)(MinecraftPhysicsConstants.BLOCK_THRESHOLD_AIR) && 
+            velocity < (float)(MinecraftPhysicsConstants.BLOCK_THRESHOLD_AIR) && 
+            fix.inPlace == 0) {
+            fix.inPlace = 2 + l;  // 标记为空中第l个tick的阻断
+        }
+        if (i != 0) {
+            return STEP;
+        }
+        if ((fix.fixPlan == 1 && fix.inFix == 2 + l) ||
+            (fix.fixPlan == 3 && fix.planSteps == 0 && fix.inFix == 2 + l) ||
+            (fix.fixPlan == 2 && fix.planSteps == 0 && fix.inFix == l + 1)) {
+            return RETURN;
+        }
+        if (fix.fixPlan == 2 && fix.inFix == 2 + l) {
+            return fix.planSteps == 2 ? FIX : ZERO;
+        }
+        return STEP;
+    }
+    
+    /**
+     * 助跑滞空时间全部相同时用仿射内核或连跳前缀状态计算连跳
+     */
+    private boolean runShortcut(double velocity, double bm, int count, boolean jumpTick, boolean delayed) {
+        if (useAffineKernel) {
+            AffineJumpKernel.Affine jumps = jumpTick ? affineKernel.jumps(airtimeSequence[0], count) :
+                                                       affineKernel.buildUp(airtimeSequence[0], count);
+            return land(jumps.applyVelocity(velocity), jumps.applyBM(velocity, bm), delayed, false);
+        }
+        JumpState state = jumpPrefix(velocity, bm, count);
+        return land(state.velocityAt(count), state.bmAt(count), delayed, false);
+    }
+    
+    /**
+     * runJumps的最后处理
+     */
+    private boolean land(double velocity, double bm, boolean delayed, boolean trace) {
+        if (delayed) {
+            // delayed起跳，落地时使用45度加速
+            velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + angleConfig.movement.landing;
+            if (trace) {
+                blockFixContext.trace.event(TraceEvent.TICK_VELOCITY, velocity);
+            }
         } else {
-            velocity = velocity * MinecraftPhysicsConstants.FRICTION_AIR + 
-                      (MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.sin + 
-                       MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.cos);
+            bm -= velocity;  // 还没落地，减去最后一tick的速度
         }
-        
-        tempV0 = velocity;
-        return bm - coord2 - MinecraftPhysicsConstants.PLAYER_WIDTH_HALF;
+        kernelVelocity = velocity;
+        kernelBM = bm;
+        return true;
     }
 }
 
@@ -0,0 +1,76 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 在内存中保存最近的N条调试事件
+ * 
+ * 只保存事件类型和数值，需要时再用lines()格式化，
+ * 适合出问题时查看某次求解最后做了什么。
+ */
+public class RingBufferTraceSink implements TraceSink {
+    private final TraceEvent[] events;
+    private final Object[][] values;
+    private long count = 0;  // 总共收到的事件数
+    
+    public RingBufferTraceSink(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("容量必须大于0: " + capacity);
+        }
+        this.events = new TraceEvent[capacity];
+        this.values = new Object[capacity][];
+    }
+    
+    @Override
+    public boolean enabled() {
+        return true;
+    }
+    
+    @Override
+    public synchronized void event(TraceEvent event, Object... values) {
+        int index = (int) (count % events.length);
+        this.events[index] = event;
+        this.values[index] = values;
+        count++;
+    }
+    
+    /**
+     * 总共收到的事件数（包括已经被覆盖的）
+     */
+    public synchronized long count() {
+        return count;
+    }
+    
+    /**
+     * 保存的事件类型（从旧到新）
+     */
+    public synchronized List<TraceEvent> events() {
+        List<TraceEvent> result = new ArrayList<>();
+        for (long i = firstIndex(); i < count; i++) {
+            result.add(events[(int) (i % events.length)]);
+        }
+        return result;
+    }
+    
+    /**
+     * 格式化保存的事件（从旧到新）
+     */
+    public synchronized List<String> lines() {
+        List<String> result = new ArrayList<>();
+        for (long i = firstIndex(); i < count; i++) {
+            int index = (int) (i % events.length);
+            result.add(events[index].format(values[index]));
+        }
+        return result;
+    }
+    
+    public synchronized void clear() {
+        count = 0;
+        Arrays.fill(events, null);
+        Arrays.fill(values, null);
+    }
+    
+    private long firstIndex() {
+        return Math.max(0, count - events.length);
+    }
+}
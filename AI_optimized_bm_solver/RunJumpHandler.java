@@ -56,6 +56,7 @@ public class RunJumpHandler {
      * @return 是否成功找到跑跳方案
      */
     public boolean handleRunJump(double targetBM, boolean delayed) {
+        AngleConfig.MovementProfile movement = angleConfig.movement;
         // 检查是否可以使用跑跳
         double testBM = 0.1759 + physicsCalculator.calculateRunJump(0.1759, delayed);
         if (testBM <= targetBM) {
@@ -63,13 +64,13 @@ public class RunJumpHandler {
         }
         
         // Type 1: 使用负速度跑1t
-        if (physicsCalculator.calculateRunJump(-angleConfig.runEqualV0, delayed) >= targetBM) {
+        if (physicsCalculator.calculateRunJump(-movement.runEqualV0, delayed) >= targetBM) {
             handleRunJumpType1(targetBM, delayed);
             return true;
         }
         
         // Type 2: 使用正速度跑1t，但需要处理移动阻断
-        if (angleConfig.awRun + physicsCalculator.calculateRunJump(angleConfig.awRun, delayed) >= targetBM) {
+        if (movement.awRun + physicsCalculator.calculateRunJump(movement.awRun, delayed) >= targetBM) {
             handleRunJumpType2(targetBM, delayed);
             return true;
         }
@@ -83,27 +84,22 @@ public class RunJumpHandler {
      * Type 1: 使用负速度跑1t
      */
     private void handleRunJumpType1(double targetBM, boolean delayed) {
+        AngleConfig.MovementProfile movement = angleConfig.movement;
         // 计算跑1t后的速度（从0开始）
         double runSpeedAfterZero = 0;
-        runSpeedAfterZero = runSpeedAfterZero * MinecraftPhysicsConstants.FRICTION_GROUND + 
-              (MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.sin + 
-               MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.cos);
+        runSpeedAfterZero = runSpeedAfterZero * MinecraftPhysicsConstants.FRICTION_GROUND + movement.landing;
         double bmAtZeroRunSpeed = physicsCalculator.calculateRunJump(runSpeedAfterZero, delayed);
         
         // 计算跑1t后的速度（从-1开始）
         double runSpeedAfterMinusOne = -1;
-        runSpeedAfterMinusOne = runSpeedAfterMinusOne * MinecraftPhysicsConstants.FRICTION_GROUND + 
-              (MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.sin + 
-               MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.cos);
+        runSpeedAfterMinusOne = runSpeedAfterMinusOne * MinecraftPhysicsConstants.FRICTION_GROUND + movement.landing;
         double bmAtMinusOneRunSpeed = physicsCalculator.calculateRunJump(runSpeedAfterMinusOne, delayed);
         
         // 计算最优跑1t速度
         runSpeed = ((targetBM - bmAtMinusOneRunSpeed) / (bmAtZeroRunSpeed - bmAtMinusOneRunSpeed)) - 1;
         
         // 计算实际跑1t后的速度
-        double actualRunSpeed = runSpeed * MinecraftPhysicsConstants.FRICTION_GROUND + 
-                               (MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.sin + 
-                                MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.cos);
+        double actualRunSpeed = runSpeed * MinecraftPhysicsConstants.FRICTION_GROUND + movement.landing;
         physicsCalculator.calculateRunJump(actualRunSpeed, delayed);
         jumpStartSpeed = physicsCalculator.tempV0;
         
@@ -113,35 +109,32 @@ public class RunJumpHandler {
         pb = result.pb;
         runType = 1;
         
-        System.out.println("run type1: " + distance + " pb " + pb + " s0 " + runSpeed);
+        if (blockFixContext.trace.enabled()) {
+            blockFixContext.trace.event(TraceEvent.RUN_JUMP_TYPE1, distance, pb, runSpeed);
+        }
     }
     
     /**
      * Type 2: 使用正速度跑1t，但需要处理移动阻断
      */
     private void handleRunJumpType2(double targetBM, boolean delayed) {
+        AngleConfig.MovementProfile movement = angleConfig.movement;
         // 计算跑1t后的速度（从0开始）
         double runSpeedAfterZero = 0;
-        runSpeedAfterZero = runSpeedAfterZero * MinecraftPhysicsConstants.FRICTION_GROUND + 
-              (MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.sin + 
-               MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.cos);
+        runSpeedAfterZero = runSpeedAfterZero * MinecraftPhysicsConstants.FRICTION_GROUND + movement.landing;
         double bmAtZeroRunSpeed = runSpeedAfterZero + physicsCalculator.calculateRunJump(runSpeedAfterZero, delayed);
         
         // 计算跑1t后的速度（从RunEqualv0开始）
-        double runSpeedAfterRunEqual = angleConfig.runEqualV0;
-        runSpeedAfterRunEqual = runSpeedAfterRunEqual * MinecraftPhysicsConstants.FRICTION_GROUND + 
-              (MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.sin + 
-               MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.cos);
+        double runSpeedAfterRunEqual = movement.runEqualV0;
+        runSpeedAfterRunEqual = runSpeedAfterRunEqual * MinecraftPhysicsConstants.FRICTION_GROUND + movement.landing;
         double bmAtRunEqualSpeed = physicsCalculator.calculateRunJump(runSpeedAfterRunEqual, delayed);
         
         // 计算最优跑1t速度
-        runSpeed = -angleConfig.runEqualV0 * ((targetBM - bmAtRunEqualSpeed) / (bmAtZeroRunSpeed - bmAtRunEqualSpeed)) + angleConfig.runEqualV0;
+        runSpeed = -movement.runEqualV0 * ((targetBM - bmAtRunEqualSpeed) / (bmAtZeroRunSpeed - bmAtRunEqualSpeed)) + movement.runEqualV0;
         
         if (runSpeed < -MinecraftPhysicsConstants.BLOCK_THRESHOLD_GROUND) {
             // 需要处理移动阻断
-            double actualRunSpeed = runSpeed * MinecraftPhysicsConstants.FRICTION_GROUND + 
-                                   (MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.sin + 
-                                    MinecraftPhysicsConstants.LANDING_MOVEMENT_45 * angleConfig.cos);
+            double actualRunSpeed = runSpeed * MinecraftPhysicsConstants.FRICTION_GROUND + movement.landing;
             physicsCalculator.calculateRunJump(actualRunSpeed, delayed);
             jumpStartSpeed = physicsCalculator.tempV0;
         } else {
@@ -151,7 +144,9 @@ public class RunJumpHandler {
             double calculatedRunSpeed = (targetBM - bmAtZeroWithBlockFix) / (bmAtOneWithBlockFix - bmAtZeroWithBlockFix);
             physicsCalculator.calculateRunJump(calculatedRunSpeed, delayed);
             jumpStartSpeed = physicsCalculator.tempV0;
-            System.out.println(calculatedRunSpeed);
+            if (blockFixContext.trace.enabled()) {
+                blockFixContext.trace.event(TraceEvent.RUN_SPEED, calculatedRunSpeed);
+            }
         }
         
         // 计算最终跳跃
@@ -160,7 +155,9 @@ public class RunJumpHandler {
         pb = result.pb;
         runType = 2;
         
-        System.out.println("run type2: " + distance + " pb " + pb + " s0 " + runSpeed);
+        if (blockFixContext.trace.enabled()) {
+            blockFixContext.trace.event(TraceEvent.RUN_JUMP_TYPE2, distance, pb, runSpeed);
+        }
     }
     
     /**
@@ -180,7 +177,9 @@ public class RunJumpHandler {
         pb = result.pb;
         runType = 3;
         
-        System.out.println("run type3: " + distance + " pb " + pb + " s0 " + runSpeed + " rjs0: " + jumpStartSpeed);
+        if (blockFixContext.trace.enabled()) {
+            blockFixContext.trace.event(TraceEvent.RUN_JUMP_TYPE3, distance, pb, runSpeed, jumpStartSpeed);
+        }
     }
 }
 
@@ -0,0 +1,208 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 求解结果缓存（线程安全，有容量上限）
+ *
+ * 放在BmSolverEngine前面，相同的查询只求解一次：
+ * - 键：角度的sin/cos位模式、助跑滞空时间、跳跃滞空时间、助跑长度/起始坐标/起始速度的位模式
+ *   （用位模式比较，只有完全相同的输入才会命中；角度类型不同但sin/cos相同的查询共用结果）
+ * - 淘汰：LRU（按访问顺序的LinkedHashMap，超过容量时移除最久没用过的）
+ * - 合并：同一个键正在求解时，其他线程等待这次求解的结果，而不是重复求解
+ *
+ * SolveResult是不可变的，可以直接返回给多个调用者。
+ */
+public final class SolveCache {
+    private final BmSolverEngine engine;
+    private final int capacity;
+    private final LinkedHashMap<Key, SolveResult> entries;
+    private final ConcurrentHashMap<Key, CompletableFuture<SolveResult>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public SolveCache(BmSolverEngine engine, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("缓存容量必须大于0: " + capacity);
+        }
+        this.engine = engine;
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Key, SolveResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, SolveResult> eldest) {
+                if (size() > SolveCache.this.capacity) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 求解（起始坐标和起始速度为0），结果与engine.solve(...).result()相同
+     */
+    public SolveResult solve(int angleType, int buildUpAirtime, int jumpAirtime, double buildUpLength) {
+        return solve(angleType, buildUpAirtime, jumpAirtime, buildUpLength, 0.0, 0.0);
+    }
+
+    /**
+     * 求解，结果与engine.solve(..., startCoord, startSpeed).result()相同
+     */
+    public SolveResult solve(int angleType, int buildUpAirtime, int jumpAirtime, double buildUpLength,
+                             double startCoord, double startSpeed) {
+        AngleConfig angle = engine.angleConfig(angleType);
+        Key key = new Key(angle.sin, angle.cos, buildUpAirtime, jumpAirtime, buildUpLength, startCoord, startSpeed);
+
+        SolveResult cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        CompletableFuture<SolveResult> pending = new CompletableFuture<>();
+        CompletableFuture<SolveResult> running = inFlight.putIfAbsent(key, pending);
+        if (running != null) {
+            // 其他线程正在求解同一个键
+            coalesced.incrementAndGet();
+            return running.join();
+        }
+
+        try {
+            // 刚好在上面的查找之后，另一个线程完成了同一个键的求解
+            synchronized (entries) {
+                cached = entries.get(key);
+            }
+            if (cached != null) {
+                hits.incrementAndGet();
+                pending.complete(cached);
+                return cached;
+            }
+            misses.incrementAndGet();
+
+            SolveResult result = engine.solve(angleType, buildUpAirtime, jumpAirtime, buildUpLength,
+                                              startCoord, startSpeed).result();
+            synchronized (entries) {
+                entries.put(key, result);
+            }
+            pending.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * 命中次数
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * 实际求解的次数
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * 等待其他线程正在进行的相同求解的次数
+     */
+    public long coalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * 因为超过容量被淘汰的条目数
+     */
+    public long evictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "SolveCache[size=" + size() + "/" + capacity + ", hits=" + hits() + ", misses=" + misses() +
+               ", coalesced=" + coalesced() + ", evictions=" + evictions() + "]";
+    }
+
+    /**
+     * 缓存的键（全部是位模式，equals/hashCode只比较整数）
+     */
+    private static final class Key {
+        private final int sinBits;
+        private final int cosBits;
+        private final int buildUpAirtime;
+        private final int jumpAirtime;
+        private final long lengthBits;
+        private final long coordBits;
+        private final long speedBits;
+        private final int hash;
+
+        Key(float sin, float cos, int buildUpAirtime, int jumpAirtime, double buildUpLength,
+            double startCoord, double startSpeed) {
+            this.sinBits = Float.floatToRawIntBits(sin);
+            this.cosBits = Float.floatToRawIntBits(cos);
+            this.buildUpAirtime = buildUpAirtime;
+            this.jumpAirtime = jumpAirtime;
+            this.lengthBits = Double.doubleToRawLongBits(buildUpLength);
+            this.coordBits = Double.doubleToRawLongBits(startCoord);
+            this.speedBits = Double.doubleToRawLongBits(startSpeed);
+
+            int h = sinBits;
+            h = 31 * h + cosBits;
+            h = 31 * h + buildUpAirtime;
+            h = 31 * h + jumpAirtime;
+            h = 31 * h + Long.hashCode(lengthBits);
+            h = 31 * h + Long.hashCode(coordBits);
+            h = 31 * h + Long.hashCode(speedBits);
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return sinBits == other.sinBits && cosBits == other.cosBits &&
+                   buildUpAirtime == other.buildUpAirtime && jumpAirtime == other.jumpAirtime &&
+                   lengthBits == other.lengthBits && coordBits == other.coordBits && speedBits == other.speedBits;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
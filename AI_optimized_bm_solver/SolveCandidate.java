@@ -0,0 +1,63 @@
+import java.util.Comparator;
+
+/**
+ * 一次求解中算出的一种跳法（不可变）
+ *
+ * calculateFinalResult会算出好几种跳法再从中推荐一种：非delayed和delayed起跳（或者它们的移动阻断处理）、
+ * 连跳满助跑、非delayed和delayed的跑跳。BmSolverOptimized.candidates()把这些都保留下来，按距离从远到近排序，
+ * 例如最远的跳法容错很小或者loop次数很多时，可以看第二种是否更合适，不需要换设置重新求解。
+ *
+ * 推荐的那一种（result()的跳法）chosen为true，它不一定排在第一个：原版的比较方式下，
+ * 连跳满助跑更远时result()的distance为0，有跑跳时会推荐跑跳。
+ * 这些都是求解过程中已经算好的值，不会多做任何模拟。
+ */
+public final class SolveCandidate {
+    /**
+     * 排序：距离从远到近，相同时loop次数少的在前
+     */
+    public static final Comparator<SolveCandidate> RANKING =
+        Comparator.comparingDouble((SolveCandidate candidate) -> -candidate.distance)
+                  .thenComparingInt(candidate -> candidate.loops);
+
+    public final SolveResult.Strategy strategy; // 跳法
+    public final boolean delayed;       // 是否使用delayed起跳（起跳时跑1t）
+    public final double distance;       // 距离
+    public final double pb;             // 容错
+    public final int loops;             // 需要的loop次数
+    public final int blockFixPlan;      // 起跳时的移动阻断方案：0=无, 1, 2, 3（跑跳为0）
+    public final int bwmmBlockFixPlan;  // 后跳时的移动阻断方案：-1=无, 1, 2（使用了时loops为0）
+    public final double backwardSpeed;  // 需要凑出的向后速度（跑跳为0）
+    public final double landSpeed;      // 落地速度（连跳满助跑）或跑1t的速度（跑跳），其他为0
+    public final double jumpSpeed;      // 起跳速度
+    public final boolean chosen;        // 是否是result()推荐的跳法
+
+    SolveCandidate(SolveResult.Strategy strategy, boolean delayed, double distance, double pb, int loops,
+                   int blockFixPlan, int bwmmBlockFixPlan, double backwardSpeed, double landSpeed,
+                   double jumpSpeed, boolean chosen) {
+        this.strategy = strategy;
+        this.delayed = delayed;
+        this.distance = distance;
+        this.pb = pb;
+        this.loops = loops;
+        this.blockFixPlan = blockFixPlan;
+        this.bwmmBlockFixPlan = bwmmBlockFixPlan;
+        this.backwardSpeed = backwardSpeed;
+        this.landSpeed = landSpeed;
+        this.jumpSpeed = jumpSpeed;
+        this.chosen = chosen;
+    }
+
+    /**
+     * 同一种跳法，标为result()推荐的
+     */
+    SolveCandidate asChosen() {
+        return new SolveCandidate(strategy, delayed, distance, pb, loops, blockFixPlan, bwmmBlockFixPlan,
+                                  backwardSpeed, landSpeed, jumpSpeed, true);
+    }
+
+    @Override
+    public String toString() {
+        return strategy + "\t" + delayed + "\t" + distance + "\t" + pb + "\t" + loops + "\t" +
+               blockFixPlan + "\t" + bwmmBlockFixPlan + "\t" + backwardSpeed + "\t" + landSpeed + "\t" + jumpSpeed + "\t" + chosen;
+    }
+}
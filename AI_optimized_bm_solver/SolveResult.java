@@ -0,0 +1,158 @@
+/**
+ * 求解结果
+ *
+ * 一次求解的全部结果（不可变），代替直接读取BmSolverOptimized的public字段
+ * 和原版BmSolverA2.single拼好的String[]。
+ *
+ * 文字说明只在调用lines()/toString()时才生成，批量扫描、服务端等只读数值的场景
+ * 不会有任何字符串拼接的开销。
+ *
+ * 使用方法：
+ *   SolveResult result = engine.solve(2, 12, 12, 15.4375).result();
+ *   double pb = result.pb;
+ *   String[] text = result.lines(SolveResult.Language.ZH);
+ */
+public final class SolveResult {
+    /**
+     * 推荐的跳法
+     */
+    public enum Strategy {
+        BWMM,           // 后跳，不需要loop
+        LOOP,           // 后跳，需要loop积累速度
+        FULL_BUILD_UP,  // 连跳能用满助跑
+        RUN_JUMP_1,     // 跑跳Type 1（负速度跑1t）
+        RUN_JUMP_2,     // 跑跳Type 2（正速度跑1t，处理移动阻断）
+        RUN_JUMP_3;     // 跑跳Type 3（正速度跑1t）
+
+        /**
+         * 跑跳类型（1, 2, 3）对应的跳法
+         */
+        public static Strategy runJump(int type) {
+            switch (type) {
+                case 1:
+                    return RUN_JUMP_1;
+                case 2:
+                    return RUN_JUMP_2;
+                default:
+                    return RUN_JUMP_3;
+            }
+        }
+
+        public boolean isRunJump() {
+            return this == RUN_JUMP_1 || this == RUN_JUMP_2 || this == RUN_JUMP_3;
+        }
+    }
+
+    /**
+     * 文字说明的语言
+     */
+    public enum Language {
+        ZH,
+        EN
+    }
+
+    public final double distance;       // 最终距离
+    public final double pb;             // 容错
+    public final double jpb;            // loop第一次达成跳跃时的pb
+    public final int loops;             // 非delay起跳的loop极限
+    public final int deloops;           // delay起跳的loop极限
+    public final int jloops;            // 达成最远距离的loop极限
+    public final boolean delayed;       // 是否使用delayed起跳（起跳时跑1t）
+    public final Strategy strategy;     // 推荐的跳法
+    public final int blockFixPlan;      // 起跳时的移动阻断方案：0=无, 1, 2, 3（见BlockFixHandler）
+    public final int bwmmBlockFixPlan;  // 后跳时的移动阻断方案：-1=无, 1, 2（见SolverState）
+    public final double backwardSpeed;  // 需要凑出的向后速度（后跳）
+    public final double landSpeed;      // 落地速度（连跳满助跑）或跑1t的速度（跑跳）
+    public final double jumpSpeed;      // 最终起跳速度
+
+    public SolveResult(double distance, double pb, double jpb, int loops, int deloops, int jloops,
+                       boolean delayed, Strategy strategy, int blockFixPlan, int bwmmBlockFixPlan,
+                       double backwardSpeed, double landSpeed, double jumpSpeed) {
+        this.distance = distance;
+        this.pb = pb;
+        this.jpb = jpb;
+        this.loops = loops;
+        this.deloops = deloops;
+        this.jloops = jloops;
+        this.delayed = delayed;
+        this.strategy = strategy;
+        this.blockFixPlan = blockFixPlan;
+        this.bwmmBlockFixPlan = bwmmBlockFixPlan;
+        this.backwardSpeed = backwardSpeed;
+        this.landSpeed = landSpeed;
+        this.jumpSpeed = jumpSpeed;
+    }
+
+    /**
+     * 实际使用的起跳方式对应的loop次数
+     */
+    public int loopCount() {
+        return delayed ? deloops : loops;
+    }
+
+    /**
+     * 文字说明，与原版BmSolverA2.single的五行输出一一对应：
+     * 容错、跳跃距离、推荐跳法、起跳时是否跑1t、移动阻断提示（没有时为空字符串）
+     *
+     * 中文的措辞沿用A2，但推荐跳法一行比A2多了信息：需要loop时写出loop次数（"loop N 次，"），
+     * 跑跳时写出跳法种类（"（跳法种类: N）"，与调试输出的RUN_JUMP_TYPE相同）。A2对这两种情况都只有笼统的一句。
+     */
+    public String[] lines(Language language) {
+        boolean zh = language == Language.ZH;
+        return new String[] {
+            (zh ? "容错: " : "PB: ") + pb,
+            (zh ? "跳跃距离: " : "Jump distance: ") + distance,
+            strategyText(zh),
+            zh ? (delayed ? "起跳时跑1t" : "起跳时无需跑1t")
+               : (delayed ? "Run 1t before the jump" : "No need to run 1t before the jump"),
+            blockFixText(zh)
+        };
+    }
+
+    private String strategyText(boolean zh) {
+        switch (strategy) {
+            case BWMM:
+                return zh ? "推荐使用后跳，凑出 " + backwardSpeed + " 的向后速度"
+                          : "Use backward momentum, reach a backward speed of " + backwardSpeed;
+            case LOOP:
+                return zh ? "推荐使用后跳，loop " + loopCount() + " 次，凑出 " + backwardSpeed + " 的向后速度"
+                          : "Use backward momentum with " + loopCount() + " loops, reach a backward speed of " + backwardSpeed;
+            case FULL_BUILD_UP:
+                return zh ? "推荐使用后跳，连跳能用满助跑，在连跳开始时，凑出 " + landSpeed + " 的落地速度"
+                          : "Use backward momentum, the jumps fill the whole build-up, land at a speed of " + landSpeed;
+            default:
+                return zh ? "推荐使用跑跳（跳法种类: " + runJumpType() + "）"
+                          : "Use a run jump (type " + runJumpType() + ")";
+        }
+    }
+
+    private String blockFixText(boolean zh) {
+        if (strategy.isRunJump()) {
+            return "";
+        }
+        switch (blockFixPlan) {
+            case 1:
+                return zh ? "注意移动阻断，碰到移动阻断时请刚好慢于它"
+                          : "Mind the movement block: stay just below it";
+            case 2:
+                return zh ? "注意移动阻断，碰到移动阻断时请刚好在它的下限，通过阻断时可能需减速以不超出助跑"
+                          : "Mind the movement block: stay exactly at its lower bound, slow down after it if needed";
+            case 3:
+                return zh ? "注意移动阻断，碰到移动阻断时请刚好快于它，通过阻断时需减速以不超出助跑"
+                          : "Mind the movement block: stay just above it, then slow down to stay on the build-up";
+            default:
+                return "";
+        }
+    }
+
+    private int runJumpType() {
+        return strategy.ordinal() - Strategy.RUN_JUMP_1.ordinal() + 1;
+    }
+
+    @Override
+    public String toString() {
+        return "SolveResult[distance=" + distance + ", pb=" + pb + ", jpb=" + jpb +
+               ", loops=" + loops + ", deloops=" + deloops + ", jloops=" + jloops +
+               ", delayed=" + delayed + ", strategy=" + strategy + ", blockFixPlan=" + blockFixPlan + "]";
+    }
+}
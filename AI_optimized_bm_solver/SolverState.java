@@ -78,9 +78,23 @@ public class SolverState {
     public void reset() {
         blockFixPlan = -1;
         blockFixPB = -1;
+        blockFixDistance = 0;
+        blockFixBackwardSpeed = 0;
+        blockFixJumpSpeed = 0;
         delayedBlockFixPB = -1;
         delayedBlockFixPlan = -1;
+        delayedBlockFixDistance = 0;
+        delayedBlockFixBackwardSpeed = 0;
+        delayedBlockFixJumpSpeed = 0;
+        runJumpSpeed = 0;
+        runJumpStartSpeed = 0;
+        runJumpDistance = 0;
+        runJumpPB = 0;
         runJumpType = 0;
+        delayedRunJumpSpeed = 0;
+        delayedRunJumpStartSpeed = 0;
+        delayedRunJumpDistance = 0;
+        delayedRunJumpPB = 0;
         delayedRunJumpType = 0;
         infill = false;
         defill = false;
@@ -0,0 +1,85 @@
+/**
+ * 调试事件类型
+ * 
+ * 每种事件对应求解过程中的一处调试输出，labels是原来输出中数值之间的文字，
+ * format()拼出的文字与原来System.out.println的内容完全相同。
+ * 例如PLAN2_SPEED的labels是{"p2v0 ", "  fixsp ", ""}，
+ * format(0.1, 0.2)得到"p2v0 0.1  fixsp 0.2"。
+ */
+public enum TraceEvent {
+    // PhysicsCalculator：最终跳跃时每个tick的速度
+    TICK_VELOCITY("", ""),
+    
+    // JumpOptimizer
+    FORWARD_JUMP_SPEED("finJS: ", ""),
+    FORWARD_JUMP_RESULT("", " finbm  ", " tempv0 ", " js plan: 0"),
+    BACKWARD_JUMP_PROBE("fbm: ", " sbm: ", ""),
+    BACKWARD_JUMP_SPEED("run: ", " finbm  ", ""),
+    BACKWARD_JUMP_START("now s0: ", ""),
+    BACKWARD_JUMP_RESULT("run: ", " finbm  ", " tempv0 ", " js plan: 0"),
+    
+    // BlockFixHandler
+    BLOCK_FIX_RESULT("", " finbm  ", " tempv0 ", " js plan: ", ""),
+    PLAN1_SPEED("p1v0 ", ""),
+    PLAN2_SPEED("p2v0 ", "  fixsp ", ""),
+    PLAN3_SPEED("p3v0 ", "  fixsp ", ""),
+    
+    // RunJumpHandler
+    RUN_JUMP_TYPE1("run type1: ", " pb ", " s0 ", ""),
+    RUN_JUMP_TYPE2("run type2: ", " pb ", " s0 ", ""),
+    RUN_JUMP_TYPE3("run type3: ", " pb ", " s0 ", " rjs0: ", ""),
+    RUN_SPEED("", ""),
+    
+    // BmSolverOptimized 阶段1
+    BLOCK_FIX_PLAN_SPEEDS("p1: ", " p2: ", ""),
+    
+    // BmSolverOptimized 阶段2（loop）
+    LOOP_SPEED_LIMIT("d ", ""),
+    LOOP_DELAYED_FULL_BUILD_UP("Delayed时已经用满助跑，已获得最大bwmm速度，无需再loop"),
+    LOOP_BACKWARD_SPEED("s0 ", ""),
+    LOOP_FRONT_BM("s0: ", " sbm: ", ""),
+    LOOP_FULL_BUILD_UP("连跳已经可以用满助跑，无需再获得更高bwmm速度了"),
+    
+    // BmSolverOptimized 阶段3（最终结果）
+    FINAL_SPEED_LIMIT("fbws ", ""),
+    FINAL_LOOP_LIMITED("bwmm/loop已经可以达到极限收益，bwmm/loop有限次数即可"),
+    FINAL_BACKWARD_SPEED("bm ", " s0 ", ""),
+    FINAL_JUMP_SPEED("Jump s0: ", ""),
+    FINAL_NORMAL_DISTANCE("normal D: ", ""),
+    INSTANT_JUMP_DISTANCE("", " instant jump"),
+    DELAYED_JUMP_DISTANCE("", " delayed jump"),
+    RUN_JUMP_BETTER("跑几t再起跳的跳法比后跳更优"),
+    RUN_JUMP_TYPE("起跳时不跑的跑nt跳法更优，跳法种类: ", ""),
+    DELAYED_RUN_JUMP_TYPE("起跳时跑的跑nt跳法更优，跳法种类: ", ""),
+    SUMMARY_MAX_SPEED("BMlooped: ", ", max BWspeed: ", ", noDelayv0: ", ", Maxpb: ", ""),
+    SUMMARY_SPEED("BMloop times: ", ", speed: ", ", noDelayv0: ", ", Maxpb: ", ""),
+    SUMMARY_LAND_SPEED("BMloop times: ", ", landspeed: ", ", noDelayv0: ", ", Maxpb: ", ""),
+    SUMMARY_RUN_JUMP("runSpeed: ", ", startv0: ", ", Maxpb: ", ""),
+    SUMMARY("PB: ", ", MAXdistance: ", ", loops~", ", delayed?", ""),
+    BLOCK_FIX_PLAN("bwmm plan: ", ""),
+    DELAYED_NOT_ENOUGH("", "");
+    
+    private final String[] labels;
+    
+    TraceEvent(String... labels) {
+        this.labels = labels;
+    }
+    
+    /**
+     * 事件的数值个数
+     */
+    public int valueCount() {
+        return labels.length - 1;
+    }
+    
+    /**
+     * 格式化为文字（与原来的调试输出相同）
+     */
+    public String format(Object... values) {
+        StringBuilder text = new StringBuilder(labels[0]);
+        for (int i = 0; i < values.length && i + 1 < labels.length; i++) {
+            text.append(values[i]).append(labels[i + 1]);
+        }
+        return text.toString();
+    }
+}
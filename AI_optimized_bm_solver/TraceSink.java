@@ -0,0 +1,52 @@
+/**
+ * 调试事件输出接口
+ * 
+ * 求解过程中的调试信息（原来直接System.out.println的内容）改为结构化的事件：
+ * 事件类型（TraceEvent）+ 数值。调用方式：
+ * 
+ *   TraceSink trace = blockFixContext.trace;
+ *   if (trace.enabled()) {
+ *       trace.event(TraceEvent.PLAN1_SPEED, physicsCalculator.tempV0);
+ *   }
+ * 
+ * 默认使用NOOP：enabled()恒为false，JIT内联后整个if块会被消除，
+ * 不会拼接字符串，也不会装箱参数。
+ * 
+ * 可选实现：
+ * - ConsoleTraceSink：输出到控制台（与原来的输出完全相同）
+ * - RingBufferTraceSink：保存最近的N条事件
+ * - FileTraceSink：写入文件
+ */
+public interface TraceSink {
+    /**
+     * 不输出任何事件（默认）
+     */
+    TraceSink NOOP = new Noop();
+    
+    /**
+     * 是否需要事件，调用方必须先检查，避免关闭时准备参数
+     */
+    boolean enabled();
+    
+    /**
+     * 一条调试事件
+     * 
+     * @param event 事件类型
+     * @param values 事件的数值（个数与event.valueCount()相同）
+     */
+    void event(TraceEvent event, Object... values);
+    
+    final class Noop implements TraceSink {
+        private Noop() {
+        }
+        
+        @Override
+        public boolean enabled() {
+            return false;
+        }
+        
+        @Override
+        public void event(TraceEvent event, Object... values) {
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package bmsolver.bench;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 基准测试的输入
+ *
+ * query格式：角度类型:助跑滞空时间:跳跃滞空时间:助跑长度
+ * 默认的查询覆盖了普通loop、跑跳（2.1875）、移动阻断、长助跑和短滞空时间几种情况。
+ *
+ * 单个方法的基准测试使用求解器阶段1最终停下的滞空时间序列
+ * （第一个s0=0时能达到助跑长度的连跳次数），也就是求解器实际最常用的序列长度。
+ * 连跳前缀状态在这里关闭：每次调用的参数都一样，开着的话测到的只是缓存命中，而不是逐tick计算本身。
+ */
+@State(Scope.Thread)
+public class Fixture {
+    @Param({"1:12:12:15.4375", "2:12:12:2.1875", "4:11:6:4.0625", "3:12:22:12.3125", "2:6:11:1.5", "1:12:12:0.375"})
+    public String query;
+
+    public int angleType;
+    public int buildUpAirtime;
+    public int jumpAirtime;
+    public double buildUpLength;
+
+    // 单个方法基准测试用的模块（与BmSolverOptimized中的连接方式相同）
+    public Object angleConfig;
+    public Object blockFixContext;
+    public Object physicsCalculator;
+    public Object blockFixHandler;
+    public Object jumpOptimizer;
+
+    // 方法参数（放在字段里，避免被JIT当成常量）
+    public double backwardSpeed = -0.2;
+    public double jumpSpeed = 0.3;
+    public double landSpeed = -0.1;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        String[] parts = query.split(":");
+        angleType = Integer.parseInt(parts[0]);
+        buildUpAirtime = Integer.parseInt(parts[1]);
+        jumpAirtime = Integer.parseInt(parts[2]);
+        buildUpLength = Double.parseDouble(parts[3]);
+
+        angleConfig = (Object) Solvers.NEW_ANGLE_CONFIG.invokeExact();
+        Solvers.SET_ANGLE_TYPE.invokeExact(angleConfig, angleType);
+        blockFixContext = (Object) Solvers.NEW_BLOCK_FIX_CONTEXT.invokeExact();
+        physicsCalculator = (Object) Solvers.NEW_PHYSICS_CALCULATOR.invokeExact(angleConfig, blockFixContext);
+        Solvers.SET_USE_JUMP_PREFIX.invokeExact(physicsCalculator, false);
+        blockFixHandler = (Object) Solvers.NEW_BLOCK_FIX_HANDLER.invokeExact(physicsCalculator, blockFixContext, angleConfig);
+        jumpOptimizer = (Object) Solvers.NEW_JUMP_OPTIMIZER.invokeExact(physicsCalculator, blockFixContext,
+                                                                       blockFixHandler, angleConfig);
+
+        int jumpCount = 2;
+        while (true) {
+            Solvers.SET_AIRTIME_SEQUENCE.invokeExact(physicsCalculator, airtimeSequence(jumpCount));
+            double bm = (double) Solvers.CALCULATE_JUMP_BM.invokeExact(physicsCalculator, 0.0, false);
+            if (bm >= buildUpLength || jumpCount >= 1000) {
+                break;
+            }
+            jumpCount++;
+        }
+    }
+
+    private int[] airtimeSequence(int jumpCount) {
+        int[] sequence = new int[jumpCount];
+        Arrays.fill(sequence, buildUpAirtime);
+        sequence[jumpCount - 1] = jumpAirtime;
+        return sequence;
+    }
+}
@@ -0,0 +1,42 @@
+package bmsolver.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JumpOptimizer和BlockFixHandler的吞吐量（每次调用内部会多次调用PhysicsCalculator）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptimizerBenchmark {
+
+    @Benchmark
+    public double optimizeForwardJump(Fixture f) throws Throwable {
+        return (double) Solvers.OPTIMIZE_FORWARD_JUMP.invokeExact(f.jumpOptimizer, f.buildUpLength, f.backwardSpeed);
+    }
+
+    @Benchmark
+    public double optimizeBackwardJump(Fixture f) throws Throwable {
+        return (double) Solvers.OPTIMIZE_BACKWARD_JUMP.invokeExact(f.jumpOptimizer, f.buildUpLength, f.backwardSpeed);
+    }
+
+    @Benchmark
+    public double convertBackSpeedToFrontBM(Fixture f) throws Throwable {
+        return (double) Solvers.CONVERT_BACK_SPEED_TO_FRONT_BM.invokeExact(f.jumpOptimizer, f.backwardSpeed, false);
+    }
+
+    @Benchmark
+    public double handleBlockFix(Fixture f) throws Throwable {
+        return (double) Solvers.HANDLE_BLOCK_FIX.invokeExact(f.blockFixHandler, f.buildUpLength, f.backwardSpeed, false);
+    }
+}
@@ -0,0 +1,58 @@
+package bmsolver.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PhysicsCalculator中每个计算方法的吞吐量
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhysicsCalculatorBenchmark {
+
+    @Benchmark
+    public double calculateJumpBM(Fixture f) throws Throwable {
+        return (double) Solvers.CALCULATE_JUMP_BM.invokeExact(f.physicsCalculator, f.backwardSpeed, false);
+    }
+
+    @Benchmark
+    public double calculateJumpBMDelayed(Fixture f) throws Throwable {
+        return (double) Solvers.CALCULATE_JUMP_BM.invokeExact(f.physicsCalculator, f.backwardSpeed, true);
+    }
+
+    @Benchmark
+    public double calculateDelayedJumpJumps(Fixture f) throws Throwable {
+        return (double) Solvers.CALCULATE_DELAYED_JUMP_JUMPS.invokeExact(f.physicsCalculator, f.backwardSpeed,
+                                                                         f.jumpSpeed, true);
+    }
+
+    @Benchmark
+    public Object calculateFinalJump(Fixture f) throws Throwable {
+        return (Object) Solvers.CALCULATE_FINAL_JUMP.invokeExact(f.physicsCalculator, f.jumpSpeed, true);
+    }
+
+    @Benchmark
+    public double calculateEndToStart(Fixture f) throws Throwable {
+        return (double) Solvers.CALCULATE_END_TO_START.invokeExact(f.physicsCalculator, f.backwardSpeed, f.jumpSpeed);
+    }
+
+    @Benchmark
+    public double calculateBackToFrontUnit(Fixture f) throws Throwable {
+        return (double) Solvers.CALCULATE_BACK_TO_FRONT_UNIT.invokeExact(f.physicsCalculator, f.landSpeed, false);
+    }
+
+    @Benchmark
+    public double calculateRunJump(Fixture f) throws Throwable {
+        return (double) Solvers.CALCULATE_RUN_JUMP.invokeExact(f.physicsCalculator, f.jumpSpeed, false);
+    }
+}
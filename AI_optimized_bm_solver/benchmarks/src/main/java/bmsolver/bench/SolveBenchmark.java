@@ -0,0 +1,38 @@
+package bmsolver.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 完整求解：BmSolverOptimized.solve 对比原版 BmSolverA2.single
+ * 每次都新建求解器（与实际使用方式相同），所以分配率包含求解器本身
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+
+    @Benchmark
+    public double optimized(Fixture f) throws Throwable {
+        Object solver = (Object) Solvers.NEW_SOLVER.invokeExact();
+        Solvers.SOLVER_SET_ANGLE_TYPE.invokeExact(solver, f.angleType);
+        Solvers.SOLVE.invokeExact(solver, f.buildUpAirtime, f.jumpAirtime, f.buildUpLength);
+        return (double) Solvers.SOLVER_DISTANCE.invokeExact(solver);
+    }
+
+    @Benchmark
+    public Object original(Fixture f) throws Throwable {
+        Object solver = (Object) Solvers.NEW_A2.invokeExact();
+        Solvers.A2_SIN_MAKER.invokeExact(solver, f.angleType);
+        return (Object) Solvers.A2_SINGLE.invokeExact(solver, f.buildUpAirtime, f.jumpAirtime, f.buildUpLength);
+    }
+}
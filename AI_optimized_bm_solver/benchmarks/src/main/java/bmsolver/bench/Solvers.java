@@ -0,0 +1,119 @@
+package bmsolver.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * 求解器类的方法句柄
+ *
+ * 求解器的类都在默认包里，命名包里的代码不能直接引用它们，
+ * 而JMH又要求基准测试类不能在默认包里，所以这里通过MethodHandle调用。
+ * 句柄都是static final，invokeExact会被JIT内联，不影响测量结果。
+ *
+ * 为了能在这里写invokeExact，所有求解器类型都被擦除成Object。
+ */
+final class Solvers {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    // 配置和上下文
+    static final MethodHandle NEW_ANGLE_CONFIG = constructor("AngleConfig");
+    static final MethodHandle SET_ANGLE_TYPE = method("AngleConfig", "setAngleType", void.class, int.class);
+    static final MethodHandle NEW_BLOCK_FIX_CONTEXT = constructor("BlockFixContext");
+
+    // PhysicsCalculator
+    static final MethodHandle NEW_PHYSICS_CALCULATOR = constructor("PhysicsCalculator", "AngleConfig", "BlockFixContext");
+    static final MethodHandle SET_AIRTIME_SEQUENCE = method("PhysicsCalculator", "setAirtimeSequence", void.class, int[].class);
+    static final MethodHandle SET_USE_JUMP_PREFIX = method("PhysicsCalculator", "setUseJumpPrefix", void.class, boolean.class);
+    static final MethodHandle CALCULATE_JUMP_BM =
+        method("PhysicsCalculator", "calculateJumpBM", double.class, double.class, boolean.class);
+    static final MethodHandle CALCULATE_DELAYED_JUMP_JUMPS =
+        method("PhysicsCalculator", "calculateDelayedJumpJumps", double.class, double.class, double.class, boolean.class);
+    static final MethodHandle CALCULATE_FINAL_JUMP =
+        method("PhysicsCalculator", "calculateFinalJump", type("PhysicsCalculator$JumpResult"), double.class, boolean.class);
+    static final MethodHandle CALCULATE_END_TO_START =
+        method("PhysicsCalculator", "calculateEndToStart", double.class, double.class, double.class);
+    static final MethodHandle CALCULATE_BACK_TO_FRONT_UNIT =
+        method("PhysicsCalculator", "calculateBackToFrontUnit", double.class, double.class, boolean.class);
+    static final MethodHandle CALCULATE_RUN_JUMP =
+        method("PhysicsCalculator", "calculateRunJump", double.class, double.class, boolean.class);
+
+    // BlockFixHandler / JumpOptimizer
+    static final MethodHandle NEW_BLOCK_FIX_HANDLER =
+        constructor("BlockFixHandler", "PhysicsCalculator", "BlockFixContext", "AngleConfig");
+    static final MethodHandle HANDLE_BLOCK_FIX =
+        method("BlockFixHandler", "handleBlockFix", double.class, double.class, double.class, boolean.class);
+    static final MethodHandle NEW_JUMP_OPTIMIZER =
+        constructor("JumpOptimizer", "PhysicsCalculator", "BlockFixContext", "BlockFixHandler", "AngleConfig");
+    static final MethodHandle OPTIMIZE_FORWARD_JUMP =
+        method("JumpOptimizer", "optimizeForwardJump", double.class, double.class, double.class);
+    static final MethodHandle OPTIMIZE_BACKWARD_JUMP =
+        method("JumpOptimizer", "optimizeBackwardJump", double.class, double.class, double.class);
+    static final MethodHandle CONVERT_BACK_SPEED_TO_FRONT_BM =
+        method("JumpOptimizer", "convertBackSpeedToFrontBM", double.class, double.class, boolean.class);
+
+    // 完整求解
+    static final MethodHandle NEW_SOLVER = constructor("BmSolverOptimized");
+    static final MethodHandle SOLVER_SET_ANGLE_TYPE = method("BmSolverOptimized", "setAngleType", void.class, int.class);
+    static final MethodHandle SOLVE = method("BmSolverOptimized", "solve", void.class, int.class, int.class, double.class);
+    static final MethodHandle SOLVER_DISTANCE = getter("BmSolverOptimized", "distance", double.class);
+    static final MethodHandle NEW_A2 = constructor("BmSolverA2");
+    static final MethodHandle A2_SIN_MAKER = method("BmSolverA2", "sinMaker", void.class, int.class);
+    static final MethodHandle A2_SINGLE = method("BmSolverA2", "single", String[].class, int.class, int.class, double.class);
+
+    private Solvers() {
+    }
+
+    static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("找不到求解器类: " + name, e);
+        }
+    }
+
+    /**
+     * 构造函数句柄，参数和返回值都擦除成Object
+     */
+    private static MethodHandle constructor(String owner, String... parameterTypes) {
+        Class<?>[] parameters = new Class<?>[parameterTypes.length];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = type(parameterTypes[i]);
+        }
+        try {
+            MethodHandle handle = LOOKUP.findConstructor(type(owner), MethodType.methodType(void.class, parameters));
+            return handle.asType(handle.type().generic());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(owner + " 的构造函数不存在", e);
+        }
+    }
+
+    /**
+     * 实例方法句柄，接收者和求解器类型的返回值擦除成Object，基本类型参数保持不变
+     */
+    private static MethodHandle method(String owner, String name, Class<?> returnType, Class<?>... parameters) {
+        try {
+            MethodHandle handle = LOOKUP.findVirtual(type(owner), name, MethodType.methodType(returnType, parameters));
+            return handle.asType(erase(handle.type()));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(owner + "." + name + " 不存在", e);
+        }
+    }
+
+    private static MethodHandle getter(String owner, String name, Class<?> fieldType) {
+        try {
+            MethodHandle handle = LOOKUP.findGetter(type(owner), name, fieldType);
+            return handle.asType(erase(handle.type()));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(owner + "." + name + " 不存在", e);
+        }
+    }
+
+    private static MethodType erase(MethodType type) {
+        MethodType erased = type.changeParameterType(0, Object.class);
+        if (!erased.returnType().isPrimitive()) {
+            erased = erased.changeReturnType(Object.class);
+        }
+        return erased;
+    }
+}
@@ -0,0 +1,105 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * PhysicsBatch的向量实现（jdk.incubator.vector）
+ *
+ * 每次取SPECIES.length()个速度放进一个DoubleVector，逐tick一起推进；
+ * 每个tick只有逐元素的mul/add，运算顺序与标量相同，结果逐位一致。
+ * 数组末尾不足一组的部分、以及calculateFinalJump最后的ulp/pb换算用标量计算。
+ *
+ * 编译和运行都需要打开incubator模块（与其他类放在一起编译即可，由PhysicsBatch.create()通过反射加载）：
+ *   javac --add-modules jdk.incubator.vector -encoding UTF-8 -d out *.java vector/*.java
+ *   java --add-modules jdk.incubator.vector -cp out ...
+ */
+public final class VectorPhysicsBatch extends PhysicsBatch {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private static final double FRICTION_GROUND = MinecraftPhysicsConstants.FRICTION_GROUND;
+    private static final double FRICTION_AIR = MinecraftPhysicsConstants.FRICTION_AIR;
+    private static final double JUMP_BOOST = MinecraftPhysicsConstants.JUMP_BOOST;
+    private static final double GROUND_MOVEMENT = MinecraftPhysicsConstants.GROUND_MOVEMENT;
+    private static final double PLAYER_WIDTH_HALF = MinecraftPhysicsConstants.PLAYER_WIDTH_HALF;
+    private static final double PLAYER_CENTER_OFFSET = MinecraftPhysicsConstants.PLAYER_CENTER_OFFSET;
+
+    public VectorPhysicsBatch(AngleConfig angleConfig, int[] airtimeSequence, double startCoord) {
+        super(angleConfig, airtimeSequence, startCoord);
+    }
+
+    @Override
+    public boolean vectorized() {
+        return true;
+    }
+
+    @Override
+    public void jumpBM(double[] initialBackwardSpeeds, boolean delayed, boolean delayedNotEnough,
+                       double[] bms, double[] velocities) {
+        int length = initialBackwardSpeeds.length;
+        int vectorEnd = SPECIES.loopBound(length);
+        int startIndex = delayed && delayedNotEnough ? 1 : 0;
+        double air = airMovement;
+        double landing = landingMovement;
+        for (int k = 0; k < vectorEnd; k += SPECIES.length()) {
+            DoubleVector velocity = DoubleVector.fromArray(SPECIES, initialBackwardSpeeds, k);
+            DoubleVector bm = DoubleVector.broadcast(SPECIES, startCoord).add(velocity);
+
+            // 起跳tick
+            velocity = velocity.mul(FRICTION_GROUND).add(JUMP_BOOST).add(GROUND_MOVEMENT);
+            bm = bm.add(velocity);
+
+            for (int i = startIndex; i < airtimeSequence.length - 1; i++) {
+                if (i > startIndex) {
+                    velocity = velocity.mul(FRICTION_AIR).add(JUMP_BOOST).add(GROUND_MOVEMENT);
+                    bm = bm.add(velocity);
+                }
+                if (airtimeSequence[i] >= 2) {
+                    velocity = velocity.mul(FRICTION_GROUND).add(air);
+                    bm = bm.add(velocity);
+                }
+                for (int l = 0; l < airtimeSequence[i] - 2; l++) {
+                    velocity = velocity.mul(FRICTION_AIR).add(air);
+                    bm = bm.add(velocity);
+                }
+            }
+
+            if (!delayed) {
+                bm = bm.sub(velocity);
+            } else {
+                velocity = velocity.mul(FRICTION_AIR).add(landing);
+            }
+            velocity.intoArray(velocities, k);
+            bm.sub(startCoord).sub(PLAYER_WIDTH_HALF).intoArray(bms, k);
+        }
+        jumpBM(initialBackwardSpeeds, delayed, delayedNotEnough, bms, velocities, vectorEnd, length);
+    }
+
+    @Override
+    public void finalJump(double[] jumpVelocities, boolean delayed, double[] distances, double[] pbs) {
+        int length = jumpVelocities.length;
+        int vectorEnd = SPECIES.loopBound(length);
+        int airtime = airtimeSequence[airtimeSequence.length - 1];
+        double jumpFriction = delayed ? FRICTION_GROUND : FRICTION_AIR;
+        double air = airMovement;
+        double start = startCoord + PLAYER_CENTER_OFFSET;
+        for (int k = 0; k < vectorEnd; k += SPECIES.length()) {
+            DoubleVector velocity = DoubleVector.fromArray(SPECIES, jumpVelocities, k);
+            DoubleVector distance = DoubleVector.broadcast(SPECIES, start).add(velocity);
+
+            // 起跳tick
+            velocity = velocity.mul(jumpFriction).add(JUMP_BOOST).add(GROUND_MOVEMENT);
+            distance = distance.add(velocity);
+
+            if (airtime > 2) {
+                velocity = velocity.mul(FRICTION_GROUND).add(air);
+                distance = distance.add(velocity);
+            }
+            for (int l = 0; l < airtime - 3; l++) {
+                velocity = velocity.mul(FRICTION_AIR).add(air);
+                distance = distance.add(velocity);
+            }
+            distance.intoArray(distances, k);
+        }
+        finishFinalJump(distances, pbs, 0, vectorEnd);
+        finalJump(jumpVelocities, delayed, distances, pbs, vectorEnd, length);
+    }
+}
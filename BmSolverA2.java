@@ -12,6 +12,9 @@
 
 
 import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntConsumer;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -19,70 +22,86 @@ import java.awt.event.ActionListener;
 
 
 public class BmSolverA2 {
-    public static double coord2;
-    public static double bm;
-    public static int loops;   
-    public static int deloops; 
-    public static int jloops;  
-    public static int[] ti;
-
-    public static double pb;
-    public static double jpb;  
-    public static double distance;
-    public static double finv0;
-    public static int inPlace;
-    public static int inFix;
-    public static int fixPlan;
-    public static int planSteps;
-    public static double fixSpeed;
-    public static double maxFixSpeed;
-    public static double landSpeed;
-    public static int djsplan;
-    public static int jsplan;
+    public double coord2;
+    public double bm;
+    public int loops;   
+    public int deloops; 
+    public int jloops;  
+    public int[] ti;
+
+    public double pb;
+    public double jpb;  
+    public double distance;
+    public double finv0;
+    public int inPlace;
+    public int inFix;
+    public int fixPlan;
+    public int planSteps;
+    public double fixSpeed;
+    public double maxFixSpeed;
+    public double landSpeed;
+    public int djsplan;
+    public int jsplan;
     
-    public static double tempBM;
-    public static double tempV0;
-    public static double injs = 0;
-    public static double starts0;
-    public static boolean dne = false;
-
-    public static boolean infill=false;
-    public static boolean defill=false;
-    public static double inspeed=0;
+    public double tempBM;
+    public double tempV0;
+    private double loopBM;   //jumpLoop的结果
+    private double loopV0;
+    public double injs = 0;
+    public double starts0;
+    public boolean dne = false;
+    public boolean boundedSearch = true;  //false时从2开始逐个扫描连跳次数（原做法）
+
+    //求解阶段，给界面显示进度用
+    public static final int PHASE_JUMP_COUNT = 0;  //确定连跳次数
+    public static final int PHASE_LOOP = 1;        //loop
+    public static final int PHASE_FINAL = 2;       //最终比较
+    public static final String[] PHASE_NAMES = {"确定连跳次数", "loop优化", "最终比较"};
+    public IntConsumer phaseListener = null;       //进入每个阶段时调用（在求解的线程上）
+
+    public boolean infill=false;
+    public boolean defill=false;
+    public double inspeed=0;
 
     //bwmm 移动阻断 part
-    public static int bwmmPlan = -1;
-    public static int rbwmmPlan = -1;
-    public static double sinDPB=-1;
-    public static double sinDd0;
-    public static double sinDs0;
-    public static double sinDjs0;
-
-    public static double sinPB=-1;
-    public static double sind0;
-    public static double sins0;
-    public static double sinjs0;
+    public int bwmmPlan = -1;
+    public int rbwmmPlan = -1;
+    public double sinDPB=-1;
+    public double sinDd0;
+    public double sinDs0;
+    public double sinDjs0;
+
+    public double sinPB=-1;
+    public double sind0;
+    public double sins0;
+    public double sinjs0;
 
     //run1t part
-    public static double RunEqualv0 = -0.084087943141335;
-    public static double AWRun;
-    public static double rs0;
-    public static double rjs0;
-    public static double rd0;
-    public static double rpb;
-    public static int runType = 0;
-
-    public static double rds0;
-    public static double rdjs0;
-    public static double rdd0;
-    public static double rdpb;
-    public static int rrunType = 0;
+    public double RunEqualv0 = -0.084087943141335;
+    public double AWRun;
+    public double rs0;
+    public double rjs0;
+    public double rd0;
+    public double rpb;
+    public int runType = 0;
+
+    public double rds0;
+    public double rdjs0;
+    public double rdd0;
+    public double rdpb;
+    public int rrunType = 0;
 
     //默认45度整
-    public static float sin = 0.70710677f;
-    public static float cos = 0.70710677f;
+    public float sin = 0.70710677f;
+    public float cos = 0.70710677f;
+    //每tick的45度加速（float），只随角度变化，在sinMaker中算好
+    public float airMovement = (float)(0.018384775) * sin + (float)(0.018384775) * cos;
+    public float landingMovement = (float)(0.09192386) * sin + (float)(0.09192386) * cos;
 
     private static JTextArea resultArea;
+    private static JProgressBar progressBar;
+    private static SwingWorker<String[], Integer> worker;  //正在进行的计算（只在EDT上访问）
+    private static int generation;                          //每次提交+1，旧的计算结果直接丢弃
 
     public static void main(String[] args) {
 
@@ -117,31 +136,101 @@ public class BmSolverA2 {
         resultArea.setEditable(false);
         JScrollPane resultScroll = new JScrollPane(resultArea);
 
+        // 进度条
+        progressBar = new JProgressBar(0, PHASE_NAMES.length);
+        progressBar.setStringPainted(true);
+        progressBar.setString("");
+
         // 操作按钮
         JButton calcButton = new JButton("计算");
+        JButton cancelButton = new JButton("取消");
+        cancelButton.setEnabled(false);
         calcButton.addActionListener(e -> {
+            int type;
+            int runTime;
+            int jumpTime;
+            double length;
             try {
-                int type = Integer.parseInt(typeField.getText());
-                int runTime = Integer.parseInt(runField.getText());
-                int jumpTime = Integer.parseInt(jumpField.getText());
-                double length = Double.parseDouble(lengthField.getText());
-
-                sinMaker(type);
-                String[] results = single(runTime, jumpTime, length);
-                
-                resultArea.setText("");
-                for (String result : results) {
-                    resultArea.append(result + "\n");
-                }
+                type = Integer.parseInt(typeField.getText());
+                runTime = Integer.parseInt(runField.getText());
+                jumpTime = Integer.parseInt(jumpField.getText());
+                length = Double.parseDouble(lengthField.getText());
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(frame, "输入格式错误", "错误", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            //新的输入提交时，取消还没算完的旧计算
+            if (worker != null) {
+                worker.cancel(true);
+            }
+            int current = ++generation;
+            resultArea.setText("");
+            cancelButton.setEnabled(true);
+            worker = new SwingWorker<String[], Integer>() {
+                @Override
+                protected String[] doInBackground() {
+                    //每次计算用一个新的实例，状态互不影响（可以多线程同时计算）
+                    BmSolverA2 solver = new BmSolverA2();
+                    solver.phaseListener = phase -> publish(phase);
+                    solver.sinMaker(type);
+                    return solver.single(runTime, jumpTime, length);
+                }
+
+                @Override
+                protected void process(java.util.List<Integer> phases) {
+                    if (current != generation || isCancelled()) {
+                        return;
+                    }
+                    int phase = phases.get(phases.size() - 1);
+                    progressBar.setValue(phase);
+                    progressBar.setString(PHASE_NAMES[phase]);
+                }
+
+                @Override
+                protected void done() {
+                    if (current != generation) {
+                        return;  //已经有更新的输入，丢弃这个结果
+                    }
+                    cancelButton.setEnabled(false);
+                    if (isCancelled()) {
+                        progressBar.setValue(0);
+                        progressBar.setString("已取消");
+                        return;
+                    }
+                    try {
+                        String[] results = get();
+                        progressBar.setValue(PHASE_NAMES.length);
+                        progressBar.setString("完成");
+                        for (String result : results) {
+                            resultArea.append(result + "\n");
+                        }
+                    } catch (InterruptedException | ExecutionException ex) {
+                        progressBar.setValue(0);
+                        progressBar.setString("");
+                        JOptionPane.showMessageDialog(frame, "计算出错: " + ex.getCause(), "错误", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            };
+            progressBar.setValue(0);
+            progressBar.setString(PHASE_NAMES[PHASE_JUMP_COUNT]);
+            worker.execute();
+        });
+        cancelButton.addActionListener(e -> {
+            if (worker != null) {
+                worker.cancel(true);
             }
         });
 
+        JPanel buttonPanel = new JPanel(new BorderLayout(10, 10));
+        buttonPanel.add(progressBar, BorderLayout.NORTH);
+        buttonPanel.add(calcButton, BorderLayout.CENTER);
+        buttonPanel.add(cancelButton, BorderLayout.EAST);
+
         // 组装界面
         frame.add(inputPanel, BorderLayout.NORTH);
         frame.add(resultScroll, BorderLayout.CENTER);
-        frame.add(calcButton, BorderLayout.SOUTH);
+        frame.add(buttonPanel, BorderLayout.SOUTH);
 
         frame.pack();
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -157,7 +246,7 @@ public class BmSolverA2 {
 
     }
 
-    public static void sinMaker(int type){
+    public void sinMaker(int type){
         switch (type) {
             case 1:
                 sin = 0.70710677f;
@@ -178,16 +267,18 @@ public class BmSolverA2 {
             default:
                 break;
         }
+        airMovement = (float)(0.018384775) * sin + (float)(0.018384775) * cos;
+        landingMovement = (float)(0.09192386) * sin + (float)(0.09192386) * cos;
         //前置速度计算
-        AWRun = (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos));
-        double fv0 = -1 * (float)(0.54600006) + (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos));
-        double sv0 = 1 * (float)(0.54600006) + (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos));
+        AWRun = landingMovement;
+        double fv0 = -1 * (float)(0.54600006) + landingMovement;
+        double sv0 = 1 * (float)(0.54600006) + landingMovement;
         RunEqualv0 = 2*(-fv0+1)/(sv0-fv0+2)-1;
         for (int i=0; i<20; i++)
-            RunEqualv0 = (RunEqualv0 - (RunEqualv0* (float)(0.54600006) + (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos))))/2;
+            RunEqualv0 = (RunEqualv0 - (RunEqualv0* (float)(0.54600006) + landingMovement))/2;
     }
 
-    public static String[] single(int bmt, int jt, double bms) {
+    public String[] single(int bmt, int jt, double bms) {
 
         int bmTick = bmt;    //助跑上的airtime
         int jumpTick = jt;   //跳跃的airtime
@@ -254,11 +345,12 @@ public class BmSolverA2 {
         loops = -1;
         jpb = 114514;
 
-        for (int i=2; i<100000; i++){
-            int[] t = new int[i];
-            Arrays.fill(t, bmTick);
-            t[i-1]=jumpTick;
-            ti=t;
+        phase(PHASE_JUMP_COUNT);
+        //先用指数+二分找到不影响结果的连跳次数，直接从那里开始扫
+        int firsti = boundedSearch ? replayStart(bmTick, jumpTick) : 2;
+        for (int i=firsti; i<100000; i++){
+            checkCancelled();
+            setTi(i, bmTick, jumpTick);
 
             //bwmm 移动阻断处理区
             double bmf = bmfind(bm, false);
@@ -339,13 +431,13 @@ public class BmSolverA2 {
                 if(0.1759+awRunJump(0.1759, false)>bm){
                     if (awRunJump(-RunEqualv0, false)>=bm) {
                         double tv0 = 0;
-                        tv0 = tv0 * (float)(0.54600006) + (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos));
+                        tv0 = tv0 * (float)(0.54600006) + landingMovement;
                         double fbm = awRunJump(tv0, false);
                         tv0 = -1;
-                        tv0 = tv0 * (float)(0.54600006) + (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos));
+                        tv0 = tv0 * (float)(0.54600006) + landingMovement;
                         double sbm = awRunJump(tv0, false);
                         rs0=((bm-sbm)/(fbm-sbm))-1;
-                        awRunJump(rs0* (float)(0.54600006) + (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos)), false);
+                        awRunJump(rs0* (float)(0.54600006) + landingMovement, false);
                         rjs0=tempV0;
     
                         finaljump(rjs0, false);
@@ -355,14 +447,14 @@ public class BmSolverA2 {
                         //System.out.println("run type1: "+rd0+" pb "+rpb +" s0 "+rs0);
                     }else if (AWRun+awRunJump(AWRun, false)>=bm){
                         double tv0 = 0;
-                        tv0 = tv0 * (float)(0.54600006) + (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos));
+                        tv0 = tv0 * (float)(0.54600006) + landingMovement;
                         double fbm = tv0+awRunJump(tv0, false);
                         tv0 = RunEqualv0;
-                        tv0 = tv0 * (float)(0.54600006) + (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos));
+                        tv0 = tv0 * (float)(0.54600006) + landingMovement;
                         double sbm = awRunJump(tv0, false);
                         rs0=-RunEqualv0*((bm-sbm)/(fbm-sbm))+RunEqualv0;
                         if (rs0<-0.009157508093840406) {
-                            awRunJump(rs0* (float)(0.54600006) + (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos)), false);
+                            awRunJump(rs0* (float)(0.54600006) + landingMovement, false);
                             rjs0=tempV0;
                         }else{
                             fbm = awRunJump(0, false)-0.009157508093840406;
@@ -395,13 +487,13 @@ public class BmSolverA2 {
                 if(bmfd > 0 && 0.1759+awRunJump(0.1759, true)>bm){
                     if (awRunJump(-RunEqualv0, true)>=bm) {
                         double tv0 = 0;
-                        tv0 = tv0 * (float)(0.54600006) + (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos));
+                        tv0 = tv0 * (float)(0.54600006) + landingMovement;
                         double fbm = awRunJump(tv0, true);
                         tv0 = -1;
-                        tv0 = tv0 * (float)(0.54600006) + (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos));
+                        tv0 = tv0 * (float)(0.54600006) + landingMovement;
                         double sbm = awRunJump(tv0, true);
                         rds0=((bm-sbm)/(fbm-sbm))-1;
-                        awRunJump(rds0* (float)(0.54600006) + (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos)), true);
+                        awRunJump(rds0* (float)(0.54600006) + landingMovement, true);
                         rdjs0=tempV0;
     
                         finaljump(rdjs0, true);
@@ -411,14 +503,14 @@ public class BmSolverA2 {
                         //System.out.println("derun type1: "+rdd0+" pb "+rdpb +" s0 "+rds0);
                     }else if (AWRun+awRunJump(AWRun, true)>=bm){
                         double tv0 = 0;
-                        tv0 = tv0 * (float)(0.54600006) + (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos));
+                        tv0 = tv0 * (float)(0.54600006) + landingMovement;
                         double fbm = tv0+awRunJump(tv0, true);
                         tv0 = RunEqualv0;
-                        tv0 = tv0 * (float)(0.54600006) + (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos));
+                        tv0 = tv0 * (float)(0.54600006) + landingMovement;
                         double sbm = awRunJump(tv0, true);
                         rds0=-RunEqualv0*((bm-sbm)/(fbm-sbm))+RunEqualv0;
                         if (rds0<-0.009157508093840406) {
-                            awRunJump(rds0* (float)(0.54600006) + (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos)), true);
+                            awRunJump(rds0* (float)(0.54600006) + landingMovement, true);
                             rdjs0=tempV0;
                         }else{
                             fbm = awRunJump(0, true)-0.009157508093840406;
@@ -451,6 +543,7 @@ public class BmSolverA2 {
         }
 
         //loop区域 
+        phase(PHASE_LOOP);
         double BwSpeed=bmfind(bm,false);
         double DeBwSpeed=bmfind(bm,true);
         //System.out.println("d "+BwSpeed);
@@ -467,6 +560,7 @@ public class BmSolverA2 {
         boolean delayedG2 = true;
         double fillBmDistance = 0;
         while (true) {
+            checkCancelled();
             
             //检测loop时的delayed状态下，当前bw速度是否能够做到完整助跑
             if (backSpeedToFront(s0,true)>=bm) {
@@ -561,6 +655,7 @@ public class BmSolverA2 {
         if (loops<0) {
             loops = deloops;
         }
+        phase(PHASE_FINAL);
         double finalv0 = 0;
         double d1 = 0;
         double prepb = -1;
@@ -700,7 +795,22 @@ public class BmSolverA2 {
         return res;
     }
 
-    public static double delayedJumps(double bmGoal, double s0) {
+    //进入一个新阶段：先检查是否已取消，再通知界面
+    private void phase(int phase) {
+        checkCancelled();
+        if (phaseListener != null) {
+            phaseListener.accept(phase);
+        }
+    }
+
+    //界面取消计算时（SwingWorker.cancel(true)）线程会被中断，在这里真正停下来
+    private static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("计算已取消");
+        }
+    }
+
+    public double delayedJumps(double bmGoal, double s0) {
         double fbm = delayedJumpJumps(s0,-1,false);
         double sbm = delayedJumpJumps(s0,1,false);
         double finJs = 2*((bm-fbm)/(sbm-fbm))-1;
@@ -801,7 +911,7 @@ public class BmSolverA2 {
 
 
     //input bm, sn, output sn+1
-    public static double delayedDelayJumps(double bmGoal, double s0) {
+    public double delayedDelayJumps(double bmGoal, double s0) {
         double fbm = delayedJumpJumps(s0,-1,true);
         double sbm = delayedJumpJumps(s0,1,true);
         double finJs = 2*((bm-fbm)/(sbm-fbm))-1;
@@ -901,7 +1011,7 @@ public class BmSolverA2 {
     }
 
     //input s0, jumpspeed, output bm
-    public static double delayedJumpJumps(double s0, double jSpeed, boolean finDelay) {
+    public double delayedJumpJumps(double s0, double jSpeed, boolean finDelay) {
         if (fixPlan==0) {
             inPlace = 0;
         }
@@ -929,58 +1039,13 @@ public class BmSolverA2 {
         if (finDelay && dne) {
             starti = 1;
         }
-        for (int i = starti; i < ti.length - 1; i++) {
-            if (i>starti){
-                //normal jump tick
-                v0 = v0 * (float) 0.91 + (float) 0.2 + (float) 0.12739998; 
-                bm+=v0;
-            }
-            //first airtime 45
-
-            if (fixPlan==2 && planSteps==2 &&inFix==1 && i==0) {
-                v0=fixSpeed;
-            }else{
-                if (ti[i]>=2) {
-                    v0 = v0 * (float) 0.54600006 + (float) ((float)(0.018384775) * (float)(sin) + (float)(0.018384775) * (float)(cos));
-                }
-            }
-            if (fixPlan==2 && planSteps==0 &&inFix==1 && i==0) {
-                return v0;
-            }
-            
-            
-            bm+=v0;
-            for (int l = 0; l < ti[i] - 2; l++) {
-                //airtime 45
-                //FIX p3
-                if (v0>-(float)(0.005494505) & v0<(float)0.005494505&& inPlace==0){  //bwmm移动阻断
-                    inPlace = 2+l;
-                }
-                if (inFix==2+l && fixPlan==2 && i==0){
-                    v0=0;
-                }
-                if (fixPlan==1 && inFix==2+l && i==0) {
-                    return v0;
-                }
-                if (fixPlan==3 && planSteps==0 && inFix==2+l && i==0) {
-                    return v0;
-                }
-                if (fixPlan==2 && planSteps==0 && inFix==l+1 && i==0) {
-                    return v0;
-                }
-                if (fixPlan==2 && planSteps==2 && inFix==l+2 && i==0) {
-                    v0=fixSpeed;
-                }else{
-                    v0 = v0 * (float) 0.91 + (float) ((float)(0.018384775) * (float)(sin) + (float)(0.018384775) * (float)(cos));
-                }
-                
-                ////System.out.println("running: "+v0);
-                bm+=v0;
-            }
-
+        if (jumpLoop(v0, bm, starti, ti.length - 1, false, true)) {
+            return loopV0;
         }
+        v0 = loopV0;
+        bm = loopBM;
         if (finDelay) {
-            v0 = v0*(float)(0.91) + (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos));
+            v0 = v0*(float)(0.91) + landingMovement;
             // if (v0>-0.009157508093840406 & v0<0){  //bwmm移动阻断
             //     v0=0;
             // }
@@ -995,7 +1060,7 @@ public class BmSolverA2 {
         return v0;
     }
 
-    public static void finaljump(double v0, boolean delayed){
+    public void finaljump(double v0, boolean delayed){
         
         double d0 = coord2+(float)0.3;
         d0+=v0;
@@ -1009,12 +1074,12 @@ public class BmSolverA2 {
         int i = ti.length - 1;
 
         if (ti[i]>2) {
-            v0 = v0 * (float) 0.54600006 + (float) ((float)(0.018384775) * (float)(sin) + (float)(0.018384775) * (float)(cos));
+            v0 = v0 * (float) 0.54600006 + airMovement;
             d0 += v0;
         }
 
         for (int l = 0; l < ti[i] - 3; l++) {
-            v0 = v0 * (float) 0.91 + (float) ((float)(0.018384775) * (float)(sin) + (float)(0.018384775) * (float)(cos));
+            v0 = v0 * (float) 0.91 + airMovement;
             d0 += v0;
         }
 
@@ -1027,7 +1092,56 @@ public class BmSolverA2 {
 
 
 
-    public static double bmfind(double bm,boolean d) {
+    //连跳次数n对应的滞空时间序列
+    public void setTi(int n, int bmTick, int jumpTick) {
+        int[] t = new int[n];
+        Arrays.fill(t, bmTick);
+        t[n-1]=jumpTick;
+        ti=t;
+    }
+
+    /*
+    bmfind随连跳次数单调递减，上面的循环每次都会覆盖之前的结果，所以只有最后几次有用：
+    - 非delayed的移动阻断只会出现在第一个bmf<=0的次数（也就是break的地方）
+    - delayed的移动阻断只会出现在第一个bmfd<=0的次数之后
+    - 跑跳的判断条件也随次数单调，最后一次在上面两个次数中较小的那个-1
+    所以从min(两个次数)-1开始扫，结果和从2开始扫完全一样
+    */
+    public int replayStart(int bmTick, int jumpTick) {
+        int breaki = firstNonPositive(bmTick, jumpTick, false, 99999);
+        int dnei = firstNonPositive(bmTick, jumpTick, true, breaki);
+        return Math.max(2, Math.min(breaki, dnei) - 1);
+    }
+
+    //第一个bmfind<=0的连跳次数（先翻倍再二分），没有的话返回limit+1
+    public int firstNonPositive(int bmTick, int jumpTick, boolean d, int limit) {
+        int low = 1;
+        int high = 2;
+        while (true) {
+            if (high > limit) {
+                high = limit + 1;
+                break;
+            }
+            setTi(high, bmTick, jumpTick);
+            if (bmfind(bm, d) <= 0) {
+                break;
+            }
+            low = high;
+            high = 2 * high - 1;
+        }
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            setTi(mid, bmTick, jumpTick);
+            if (bmfind(bm, d) <= 0) {
+                high = mid;
+            }else{
+                low = mid;
+            }
+        }
+        return high;
+    }
+
+    public double bmfind(double bm,boolean d) {
         double bm0=jump1(0,d);
         double bm1=jump1(-1,d);
         jump1(-(bm0-bm)/(bm0-bm1), d);
@@ -1035,7 +1149,7 @@ public class BmSolverA2 {
     }
 
     //input delayed speed, use ti+speed to output bm 
-    public static double jump1(double s0, boolean delayed) {
+    public double jump1(double s0, boolean delayed) {
         double v0 = s0;
         double bm = coord2+s0;
         
@@ -1050,32 +1164,13 @@ public class BmSolverA2 {
         if (delayed && dne) {
             starti = 1;
         }
-        for (int i = starti; i < ti.length - 1; i++) {
-            if (i>starti){
-                //normal jump tick
-                v0 = v0 * (float) 0.91 + (float) 0.2 + (float) 0.12739998; 
-                
-                bm+=v0;
-            }
-
-            //first airtime 45
-            if (ti[i]>=2) {
-                v0 = v0 * (float) 0.54600006 + (float) ((float)(0.018384775) * (float)(sin) + (float)(0.018384775) * (float)(cos));
-                
-                bm+=v0;
-            }
-            for (int l = 0; l < ti[i] - 2; l++) {
-                //airtime 45
-                v0 = v0 * (float) 0.91 + (float) ((float)(0.018384775) * (float)(sin) + (float)(0.018384775) * (float)(cos));
-                
-                bm+=v0;
-            }
-            
-        }
+        jumpLoop(v0, bm, starti, ti.length - 1, false, false);
+        v0 = loopV0;
+        bm = loopBM;
         if (!delayed) {
             bm-=v0; 
         }else{
-            v0 = v0*(float)(0.91) + (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos));
+            v0 = v0*(float)(0.91) + landingMovement;
         }
         
         tempV0 = v0;
@@ -1083,7 +1178,7 @@ public class BmSolverA2 {
         return bm-coord2-(float)0.6;
     }
 
-    public static double backSpeedToFront(double v0, boolean delayed){
+    public double backSpeedToFront(double v0, boolean delayed){
         if (ti.length<=2) {
             return -114514;
         }
@@ -1185,7 +1280,7 @@ public class BmSolverA2 {
         return backToFrontUnit(tempV0,delayed);
     }
 
-    public static double endMStart(double v0, double js){
+    public double endMStart(double v0, double js){
         if (fixPlan==0) {
             inPlace = 0;
         }
@@ -1207,50 +1302,19 @@ public class BmSolverA2 {
             return v0;
         }
 
-        if (fixPlan==2 && planSteps==2 &&inFix==1) {
-            v0=fixSpeed;
-        }else{
-            if (ti[0]>=2) {
-                v0 = v0 * (float) 0.54600006 + (float) ((float)(0.018384775) * (float)(sin) + (float)(0.018384775) * (float)(cos));
-            }
-            
-        }
-        if (fixPlan==2 && planSteps==0 &&inFix==1) {
-            return v0;
-        }
-        bm+=v0;
-        for (int l = 0; l < ti[0] - 2; l++) {
-            //airtime 45
-            //FIX p3
-            if (v0>-(float)(0.005494505) & v0<(float)0.005494505&& inPlace==0){  //bwmm移动阻断
-                inPlace = 2+l;
-            }
-            if (inFix==2+l && fixPlan==2){
-                v0=0;
-            }
-            if (fixPlan==1 && inFix==2+l) {
-                return v0;
-            }
-            if (fixPlan==3 && planSteps==0 && inFix==2+l) {
-                return v0;
-            }
-            if (fixPlan==2 && planSteps==0 && inFix==l+1) {
-                return v0;
-            }
-            if (fixPlan==2 && planSteps==2 && inFix==l+2) {
-                v0=fixSpeed;
-            }else{
-                v0 = v0 * (float) 0.91 + (float) ((float)(0.018384775) * (float)(sin) + (float)(0.018384775) * (float)(cos));
-            }
-            bm+=v0;
+        //只有第一个连跳的滞空部分
+        if (jumpLoop(v0, bm, 0, 1, false, true)) {
+            return loopV0;
         }
+        v0 = loopV0;
+        bm = loopBM;
         bm-=v0;
         tempV0 = v0;
         tempBM = bm;
         return bm;
     }
 
-    public static double backToFrontUnit(double v0,boolean delayed){
+    public double backToFrontUnit(double v0,boolean delayed){
         double bm2 = v0;
         int starti = 1;
         if (dne && delayed) {
@@ -1259,24 +1323,11 @@ public class BmSolverA2 {
         if (starti >= ti.length - 1) {
             return -114514;
         }
-        for (int i = starti; i < ti.length - 1; i++) {
-            v0 = v0 * (float) 0.91 + (float) 0.2 + (float) 0.12739998; 
-            bm2+=v0;
-            //
-            if (ti[i]>=2) {
-                v0 = v0 * (float) 0.54600006 + (float) ((float)(0.018384775) * (float)(sin) + (float)(0.018384775) * (float)(cos));
-                bm2+=v0;
-            }
-            
-            for (int l = 0; l < ti[i] - 2; l++) {
-                //
-                v0 = v0 * (float) 0.91 + (float) ((float)(0.018384775) * (float)(sin) + (float)(0.018384775) * (float)(cos));
-                bm2+=v0;
-                
-            }
-        }
+        jumpLoop(v0, bm2, starti, ti.length - 1, true, false);
+        v0 = loopV0;
+        bm2 = loopBM;
         if (delayed) {
-            v0 = v0*(float)(0.91) + (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos));
+            v0 = v0*(float)(0.91) + landingMovement;
         }else{
             bm2-=v0;
         }
@@ -1285,7 +1336,7 @@ public class BmSolverA2 {
     }
 
     //input run 1t speed, output jump bm (not include the run1t)
-    public static double awRunJump(double v0, boolean delayed){
+    public double awRunJump(double v0, boolean delayed){
         double bm = coord2;
         if (fixPlan==4) {
             v0 = fixSpeed;
@@ -1294,31 +1345,77 @@ public class BmSolverA2 {
         }
         bm+=v0;
 
-        for (int i = 0; i < ti.length - 1; i++) {
-            if (i>0){
+        jumpLoop(v0, bm, 0, ti.length - 1, false, false);
+        v0 = loopV0;
+        bm = loopBM;
+        if (!delayed) {
+            bm-=v0; 
+        }else{
+            v0 = v0*(float)(0.91) + landingMovement;
+        }
+        tempV0 = v0;
+        return bm-coord2-(float)0.6;
+    }
+
+    /*
+    连跳的逐tick循环，jump1、awRunJump、backToFrontUnit、delayedJumpJumps、endMStart共用：
+    从第starti个连跳算到第endi个（不含），jumpFirst为true时第starti个连跳也从起跳tick开始（否则起跳tick已经由调用者算好）。
+    fix为true时按delayedJumpJumps/endMStart的写法检测移动阻断（inPlace），并在第0个连跳上执行fixPlan；
+    这种写法里第一个airtime即使小于2也会把速度再加进bm一次，与原来一样保留。
+    结果的速度和bm在loopV0、loopBM；修复方案要求中途停下时返回true（只有loopV0有效）
+    */
+    private boolean jumpLoop(double v0, double bm, int starti, int endi, boolean jumpFirst, boolean fix) {
+        for (int i = starti; i < endi; i++) {
+            if (jumpFirst || i>starti){
                 //normal jump tick
                 v0 = v0 * (float) 0.91 + (float) 0.2 + (float) 0.12739998; 
                 bm+=v0;
             }
 
             //first airtime 45
-            if (ti[i]>=2) {
-                v0 = v0 * (float) 0.54600006 + (float) ((float)(0.018384775) * (float)(sin) + (float)(0.018384775) * (float)(cos));
+            if (fix && fixPlan==2 && planSteps==2 &&inFix==1 && i==0) {
+                v0=fixSpeed;
+            }else if (ti[i]>=2) {
+                v0 = v0 * (float) 0.54600006 + airMovement;
+                if (!fix) {
+                    bm+=v0;
+                }
+            }
+            if (fix) {
+                if (fixPlan==2 && planSteps==0 &&inFix==1 && i==0) {
+                    loopV0 = v0;
+                    return true;
+                }
                 bm+=v0;
             }
             for (int l = 0; l < ti[i] - 2; l++) {
                 //airtime 45
-                v0 = v0 * (float) 0.91 + (float) ((float)(0.018384775) * (float)(sin) + (float)(0.018384775) * (float)(cos));
+                if (fix) {
+                    //FIX p3
+                    if (v0>-(float)(0.005494505) & v0<(float)0.005494505&& inPlace==0){  //bwmm移动阻断
+                        inPlace = 2+l;
+                    }
+                    if (inFix==2+l && fixPlan==2 && i==0){
+                        v0=0;
+                    }
+                    if ((fixPlan==1 && inFix==2+l && i==0) ||
+                        (fixPlan==3 && planSteps==0 && inFix==2+l && i==0) ||
+                        (fixPlan==2 && planSteps==0 && inFix==l+1 && i==0)) {
+                        loopV0 = v0;
+                        return true;
+                    }
+                    if (fixPlan==2 && planSteps==2 && inFix==l+2 && i==0) {
+                        v0=fixSpeed;
+                        bm+=v0;
+                        continue;
+                    }
+                }
+                v0 = v0 * (float) 0.91 + airMovement;
                 bm+=v0;
             }
-            
         }
-        if (!delayed) {
-            bm-=v0; 
-        }else{
-            v0 = v0*(float)(0.91) + (float)((float)(0.09192386) * (float)(sin) + (float)(0.09192386) * (float)(cos));
-        }
-        tempV0 = v0;
-        return bm-coord2-(float)0.6;
+        loopV0 = v0;
+        loopBM = bm;
+        return false;
     }
 }